@@ -20,7 +20,10 @@ CREATE TABLE `people` (
   `us_citizen` tinyint(1) NOT NULL,
   `gender` enum('male','female') NOT NULL,
   `occupation` varchar(45) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_people_name_id` (`name`, `id`),
+  KEY `idx_people_occupation` (`occupation`),
+  KEY `idx_people_categories` (`age`, `employment_status`, `gender`, `us_citizen`)
 ) ENGINE=InnoDB AUTO_INCREMENT=4 DEFAULT CHARSET=latin1;
 
 --
@@ -30,3 +33,22 @@ CREATE TABLE `people` (
 LOCK TABLES `people` WRITE;
 INSERT INTO `people` VALUES (1,'Joe Smith','adult','employed','777',1,'male','lion tamer'),(2,'Sue','adult','other',NULL,1,'female','artist'),(3,'John','adult','selfEmployed','',0,'male','software');
 UNLOCK TABLES;
+
+--
+-- Table structure for table `id_sequences`
+--
+
+DROP TABLE IF EXISTS `id_sequences`;
+CREATE TABLE `id_sequences` (
+  `name` varchar(45) NOT NULL,
+  `next_id` int(11) NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+--
+-- Dumping data for table `id_sequences`
+--
+
+LOCK TABLES `id_sequences` WRITE;
+INSERT INTO `id_sequences` VALUES ('people',4);
+UNLOCK TABLES;
@@ -0,0 +1,14 @@
+USE `swingtest`;
+-- Adds indexes used by filtering, sorting and paging of the people table.
+-- Apply once to databases created from mysql_database.sql before these indexes were added.
+
+--
+-- (name, id) - keyset pagination and default ordering
+-- occupation - occupation prefix search
+-- (age, employment_status, gender, us_citizen) - category filters
+--
+
+ALTER TABLE `people`
+  ADD KEY `idx_people_name_id` (`name`, `id`),
+  ADD KEY `idx_people_occupation` (`occupation`),
+  ADD KEY `idx_people_categories` (`age`, `employment_status`, `gender`, `us_citizen`);
@@ -0,0 +1,18 @@
+USE `swingtest`;
+-- Adds sequence table the application reserves blocks of people's ids from.
+-- Apply once to databases created from mysql_database.sql before this table was added.
+
+--
+-- name - sequence name ('people')
+-- next_id - the first id which isn't reserved yet
+--
+
+CREATE TABLE IF NOT EXISTS `id_sequences` (
+  `name` varchar(45) NOT NULL,
+  `next_id` int(11) NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+INSERT INTO `id_sequences` (`name`, `next_id`)
+  SELECT 'people', COALESCE(MAX(`id`), 0) + 1 FROM `people`
+  ON DUPLICATE KEY UPDATE `next_id` = GREATEST(`next_id`, VALUES(`next_id`));
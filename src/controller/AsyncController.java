@@ -0,0 +1,420 @@
+package controller;
+
+import model.BatchReport;
+import model.Bitmap;
+import model.Database;
+import model.FileImport;
+import model.JournalRecovery;
+import model.MappedPersonTableModel;
+import model.PersonChangeSet;
+import model.PersonDelta;
+import model.PersonModel;
+import model.PersonPrefixIndex;
+import model.enums.IdConflict;
+import model.io.PersonTextFormat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous variant of {@link Controller}.
+ * Database and file operations run on a dedicated executor and return {@link CompletableFuture}s.
+ * Futures are completed and callbacks are called on the callback executor
+ * (the Event Dispatch Thread for the GUI), so people list is changed only there.
+ * Cancelling a future interrupts its running operation
+ */
+public class AsyncController {
+
+    /**
+     * Quantity of worker threads
+     */
+    private static final int WORKERS = 4;
+
+    /**
+     * Wrapped controller
+     */
+    private final Controller controller;
+
+    /**
+     * Executor running database and file operations
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Executor running callbacks and completing futures
+     */
+    private final Executor callbackExecutor;
+
+    /**
+     * Constructor. New people's ids are reserved ahead on the executor
+     *
+     * @param controller       wrapped {@link Controller}
+     * @param callbackExecutor executor for callbacks, e.g. <code>SwingUtilities::invokeLater</code>
+     */
+    public AsyncController(Controller controller, Executor callbackExecutor) {
+        this.controller = controller;
+        this.callbackExecutor = callbackExecutor;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread thread = new Thread(r, "controller-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        controller.db.setIdExecutor(executor);
+    }
+
+    /**
+     * Connects to database in background
+     *
+     * @return future completed when connected
+     */
+    public CompletableFuture<Void> connect() {
+        return submit(new TaskFuture<>(), () -> {
+            controller.connect();
+            return null;
+        });
+    }
+
+    /**
+     * Clears people and streams them from database in background.
+     * Must be called from the callback executor
+     *
+     * @param chunkConsumer receives loaded chunks on the callback executor
+     * @return future with quantity of loaded people
+     */
+    public CompletableFuture<Integer> load(Consumer<List<PersonModel>> chunkConsumer) {
+        controller.beginLoad();
+
+        TaskFuture<Integer> future = new TaskFuture<>();
+        return submit(future, () -> {
+            controller.connect();
+
+            AtomicInteger count = new AtomicInteger();
+            controller.load(chunk -> {
+                count.addAndGet(chunk.size());
+                deliver(future, () -> chunkConsumer.accept(chunk));
+            });
+            return count.get();
+        });
+    }
+
+    /**
+     * Saves changes to database in background.
+     * Must be called from the callback executor.
+     * If saving fails or is cancelled, changes are kept for the next save
+     *
+     * @param batchListener receives {@link BatchReport} after each written batch on the callback executor
+     * @return future with list of {@link BatchReport}s
+     */
+    public CompletableFuture<List<BatchReport>> save(Consumer<BatchReport> batchListener) {
+        Database db = controller.db;
+        PersonChangeSet pending = db.takeChanges();
+
+        TaskFuture<List<BatchReport>> future = new TaskFuture<>();
+        submit(future, () -> {
+            controller.connect();
+            return db.save(pending, report -> deliver(future, () -> batchListener.accept(report)));
+        });
+
+        future.whenComplete((reports, e) -> {
+            if (e != null) {
+                db.restoreChanges(pending);
+            } else {
+                db.changesSaved(pending);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Writes people to file in background.
+     * Must be called from the callback executor
+     *
+     * @param file {@link File} object
+     * @return future completed when file is written
+     */
+    public CompletableFuture<Void> saveToFile(File file) {
+        return saveToFile(file, false);
+    }
+
+    /**
+     * Writes people to file in background, optionally split into compressed blocks.
+     * Must be called from the callback executor
+     *
+     * @param file       {@link File} object
+     * @param compressed if file is compressed
+     * @return future completed when file is written
+     */
+    public CompletableFuture<Void> saveToFile(File file, boolean compressed) {
+        List<PersonModel> people = controller.snapshotPeople();
+
+        return submit(new TaskFuture<>(), () -> {
+            Database.writeToFile(file, people, compressed);
+            return null;
+        });
+    }
+
+    /**
+     * Writes people to CSV or JSON lines file in background.
+     * Must be called from the callback executor
+     *
+     * @param file   {@link File} object
+     * @param format format of the file
+     * @return future completed when file is written
+     */
+    public CompletableFuture<Void> exportText(File file, PersonTextFormat format) {
+        List<PersonModel> people = controller.snapshotPeople();
+
+        return submit(new TaskFuture<>(), () -> {
+            Database.writeToTextFile(file, people, format);
+            return null;
+        });
+    }
+
+    /**
+     * Reads people from CSV or JSON lines file in background and replaces people with them on the callback executor
+     *
+     * @param file   {@link File} object
+     * @param format format of the file
+     * @return future completed when people are replaced
+     */
+    public CompletableFuture<Void> importText(File file, PersonTextFormat format) {
+        TaskFuture<Void> future = new TaskFuture<>();
+        return submit(future, () -> {
+            List<PersonModel> people = Database.readFromTextFile(file, format);
+            return apply(future, () -> controller.db.replacePeople(people));
+        });
+    }
+
+    /**
+     * Reads people from file in background and replaces people with them on the callback executor
+     *
+     * @param file {@link File} object
+     * @return future completed when people are replaced
+     */
+    public CompletableFuture<Void> loadFromFile(File file) {
+        TaskFuture<Void> future = new TaskFuture<>();
+        return submit(future, () -> {
+            List<PersonModel> people = Database.readFromFile(file);
+            return apply(future, () -> controller.db.replacePeople(people));
+        });
+    }
+
+    /**
+     * Reads files in parallel in background and adds their people on the callback executor.
+     * Files which can't be read are skipped, their errors are kept in their {@link FileImport}s.
+     * If new ids are assigned, they are reserved in background before people are added
+     *
+     * @param files    files to read
+     * @param conflict what to do with imported person which id is already used
+     * @return future with {@link FileImport} of each file, completed when people are added
+     */
+    public CompletableFuture<List<FileImport>> importFiles(List<File> files, IdConflict conflict) {
+        TaskFuture<List<FileImport>> future = new TaskFuture<>();
+        return submit(future, () -> {
+            List<FileImport> imports = Database.readFromFiles(files);
+
+            // merged at once, so new ids are assigned above ids of all files
+            List<PersonModel> people = new ArrayList<>();
+            for (FileImport fileImport : imports) {
+                people.addAll(fileImport.getPeople());
+            }
+            if (conflict == IdConflict.assignNewId) controller.db.reserveIdsFor(people);
+
+            apply(future, () -> controller.db.mergePeople(people, conflict));
+            return imports;
+        });
+    }
+
+    /**
+     * Writes people changed after given watermark to delta file in background.
+     * Must be called from the callback executor
+     *
+     * @param file      {@link File} object
+     * @param watermark watermark of the previous export
+     * @return future with written {@link PersonDelta}, its watermark is the base of the next export
+     */
+    public CompletableFuture<PersonDelta> exportDelta(File file, long watermark) {
+        PersonDelta delta = controller.db.getDelta(watermark);
+
+        return submit(new TaskFuture<>(), () -> {
+            Database.writeDelta(file, delta);
+            return delta;
+        });
+    }
+
+    /**
+     * Reads delta files in background and applies them on the callback executor in order of their watermarks
+     *
+     * @param files delta files to read
+     * @return future with applied {@link PersonDelta}s, completed when they are applied
+     */
+    public CompletableFuture<List<PersonDelta>> importDeltas(List<File> files) {
+        TaskFuture<List<PersonDelta>> future = new TaskFuture<>();
+        return submit(future, () -> {
+            List<PersonDelta> deltas = new ArrayList<>();
+            for (File file : files) {
+                deltas.add(Database.readDelta(file));
+            }
+            deltas.sort(Comparator.comparingLong(PersonDelta::getWatermark));
+
+            apply(future, () -> {
+                for (PersonDelta delta : deltas) {
+                    controller.db.applyDelta(delta);
+                }
+            });
+            return deltas;
+        });
+    }
+
+    /**
+     * Replays journal in background and starts recording changes to it on the callback executor.
+     * Must be called before people list is changed
+     *
+     * @param dir journal directory
+     * @return future with true if unsaved changes were recovered and replaced people list
+     */
+    public CompletableFuture<Boolean> openJournal(File dir) {
+        TaskFuture<Boolean> future = new TaskFuture<>();
+        return submit(future, () -> {
+            JournalRecovery recovery = Database.recoverJournal(dir);
+            AtomicBoolean restored = new AtomicBoolean();
+            apply(future, () -> restored.set(controller.db.attachJournal(recovery)));
+            return restored.get();
+        });
+    }
+
+    /**
+     * Searches people whose name or occupation starts with prefix in background.
+     * Index is searched as it was when method was called, found people are converted to their
+     * current positions on the callback executor (people changed meanwhile are searched again there).
+     * Must be called from the callback executor
+     *
+     * @param prefix searched prefix (case insensitive)
+     * @return future with {@link Bitmap} of positions of found people
+     */
+    public CompletableFuture<Bitmap> search(String prefix) {
+        PersonPrefixIndex.Snapshot snapshot = controller.db.searchSnapshot();
+
+        TaskFuture<int[]> future = new TaskFuture<>();
+        submit(future, () -> snapshot.find(prefix));
+        return future.thenApply(ids -> {
+            PersonPrefixIndex.Snapshot current = controller.db.searchSnapshot();
+            return controller.rowsOf(current.isUnchangedSince(snapshot) ? ids : current.find(prefix));
+        });
+    }
+
+    /**
+     * Opens binary person file read only in background
+     *
+     * @param file {@link File} object
+     * @return future with {@link MappedPersonTableModel} showing the file
+     */
+    public CompletableFuture<MappedPersonTableModel> openReadOnly(File file) {
+        return submit(new TaskFuture<>(), () -> controller.openReadOnly(file));
+    }
+
+    /**
+     * Stops worker threads and closes database connection
+     */
+    public void close() {
+        executor.shutdownNow();
+        controller.close();
+    }
+
+    /**
+     * Runs task on the executor and completes future with its result on the callback executor
+     *
+     * @param future future to complete
+     * @param task   operation to run
+     * @param <T>    type of result
+     * @return given future
+     */
+    private <T> CompletableFuture<T> submit(TaskFuture<T> future, Callable<T> task) {
+        future.task = executor.submit(() -> {
+            try {
+                T result = task.call();
+                callbackExecutor.execute(() -> future.complete(result));
+            } catch (Throwable e) {
+                callbackExecutor.execute(() -> future.completeExceptionally(e));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs callback on the callback executor unless future is already done (e.g. cancelled)
+     *
+     * @param future   future of running operation
+     * @param callback callback to run
+     */
+    private void deliver(CompletableFuture<?> future, Runnable callback) {
+        callbackExecutor.execute(() -> {
+            if (!future.isDone()) callback.run();
+        });
+    }
+
+    /**
+     * Runs change of people list on the callback executor and waits for it
+     *
+     * @param future future of running operation
+     * @param change change to apply
+     * @return null
+     * @throws Exception if change failed or operation was interrupted
+     */
+    private Void apply(CompletableFuture<?> future, Runnable change) throws Exception {
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        callbackExecutor.execute(() -> {
+            if (future.isDone()) {
+                applied.cancel(false);
+                return;
+            }
+            try {
+                change.run();
+                applied.complete(null);
+            } catch (RuntimeException e) {
+                applied.completeExceptionally(e);
+            }
+        });
+
+        try {
+            return applied.get();
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    /**
+     * Future which interrupts its operation when cancelled
+     *
+     * @param <T> type of result
+     */
+    private static class TaskFuture<T> extends CompletableFuture<T> {
+
+        /**
+         * Running operation
+         */
+        private volatile Future<?> task;
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param mayInterruptIfRunning ignored, operation is always interrupted
+         * @return true if future was cancelled
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Future<?> running = task;
+            if (cancelled && running != null) running.cancel(true);
+            return cancelled;
+        }
+    }
+}
@@ -2,11 +2,15 @@ package controller;
 
 import gui.helpers.FormEvent;
 import model.*;
+import model.io.MappedPersonFile;
+import model.io.PersonTextFormat;
 
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 // controller used to create connection between View and model
 // we must not use model in view, only through controller
@@ -30,16 +34,75 @@ public class Controller {
         return db.getPeople();
     }
 
+    /**
+     * Sets object notified about changes of people list, see {@link Database#setPeopleListener(PeopleListener)}
+     *
+     * @param listener {@link PeopleListener} object
+     */
+    public void setPeopleListener(PeopleListener listener) {
+        db.setPeopleListener(listener);
+    }
+
+    /**
+     * Query the {@link Database#snapshotPeople} to retrieve copy of people list for background thread
+     *
+     * @return List of {@link PersonModel} objects
+     */
+    public List<PersonModel> snapshotPeople() {
+        return db.snapshotPeople();
+    }
+
+    /**
+     * Selects positions of loaded people matching the query, see {@link Database#selectLoaded(PersonQuery)}
+     *
+     * @param query conditions people have to match
+     * @return {@link Bitmap} with bits of matching positions set
+     */
+    public Bitmap selectLoaded(PersonQuery query) {
+        return db.selectLoaded(query);
+    }
+
+    /**
+     * Returns current positions of people with given ids, see {@link Database#rowsOf(int[])}
+     *
+     * @param ids people's ids
+     * @return {@link Bitmap} with bits of people's positions set
+     */
+    public Bitmap rowsOf(int[] ids) {
+        return db.rowsOf(ids);
+    }
+
+    /**
+     * Counts loaded people matching the query, see {@link Database#countLoaded(PersonQuery)}
+     *
+     * @param query conditions people have to match
+     * @return quantity of matching people
+     */
+    public int countLoaded(PersonQuery query) {
+        return db.countLoaded(query);
+    }
+
+    /**
+     * Switches storage of people list, see {@link Database#setColumnar(boolean)}
+     *
+     * @param columnar true to store people in columns
+     */
+    public void setColumnar(boolean columnar) {
+        db.setColumnar(columnar);
+    }
+
     /**
      * Prepare data and adds a person to Database. Uses {@link Database#addPerson} to add user
      *
      * @param ev object of {@link FormEvent} which contains all data needed to be
      *           passed after button "OK" clicked
+     * @throws IllegalStateException if there is no reserved id for new person
      */
     public void addPerson(FormEvent ev) {
 
         db.addPerson(PersonModel
                 .getBuilder()
+                .withId(db.nextId())
                 .withName(ev.getName())
                 .withOccupation(ev.getOccupation())
                 .withCategory(ev.getAgeCategory())
@@ -50,13 +113,41 @@ public class Controller {
         );
     }
 
+    /**
+     * Ask {@link Database} to mark edited person as changed.
+     *
+     * @param id id of edited person
+     */
+    public void personChanged(int id) {
+        db.personChanged(id);
+    }
+
     /**
      * Ask {@link Database} to remove person.
      *
-     * @param row number of row to delete (start from 0)
+     * @param id id of person to delete
      */
-    public void removePerson(int row) {
-        db.removePerson(row);
+    public void removePerson(int id) {
+        db.removePerson(id);
+    }
+
+    /**
+     * Ask {@link Database} to edit people as one change, see {@link Database#editPeople(Collection, Consumer)}
+     *
+     * @param ids  ids of people to edit
+     * @param edit changes each person
+     */
+    public void editPeople(List<Integer> ids, Consumer<PersonModel> edit) {
+        db.editPeople(ids, edit);
+    }
+
+    /**
+     * Ask {@link Database} to remove people as one change, see {@link Database#removePeople(Collection)}
+     *
+     * @param ids ids of people to delete
+     */
+    public void removePeople(List<Integer> ids) {
+        db.removePeople(ids);
     }
 
     /**
@@ -79,6 +170,40 @@ public class Controller {
         db.loadFromFile(file);
     }
 
+    /**
+     * Writes people to CSV or JSON lines file, see {@link Database#writeToTextFile(File, List, PersonTextFormat)}
+     *
+     * @param file   {@link File} object
+     * @param format format of the file
+     * @throws IOException if failed to write the file
+     */
+    public void exportText(File file, PersonTextFormat format) throws IOException {
+        Database.writeToTextFile(file, db.getPeople(), format);
+    }
+
+    /**
+     * Replaces people with ones read from CSV or JSON lines file,
+     * see {@link Database#readFromTextFile(File, PersonTextFormat)}
+     *
+     * @param file   {@link File} object
+     * @param format format of the file
+     * @throws IOException if failed to read the file or it has malformed record
+     */
+    public void importText(File file, PersonTextFormat format) throws IOException {
+        db.replacePeople(Database.readFromTextFile(file, format));
+    }
+
+    /**
+     * Opens binary person file read only, people are read from it only when they are shown
+     *
+     * @param file {@link File} object
+     * @return {@link MappedPersonTableModel} showing the file
+     * @throws IOException if file can't be opened
+     */
+    public MappedPersonTableModel openReadOnly(File file) throws IOException {
+        return new MappedPersonTableModel(new MappedPersonFile(file));
+    }
+
     /**
      * Method configures database connection credentials
      *
@@ -91,6 +216,16 @@ public class Controller {
         db.configure(port, user, password);
     }
 
+    /**
+     * Method wraps {@link Database#setPoolSize(int, int)} method
+     *
+     * @param minSize minimum quantity of pooled connections
+     * @param maxSize maximum quantity of pooled connections
+     */
+    public void setPoolSize(int minSize, int maxSize) {
+        db.setPoolSize(minSize, maxSize);
+    }
+
     /**
      * Method wraps {@link Database#connect()} method to database
      *
@@ -109,13 +244,99 @@ public class Controller {
         db.load();
     }
 
+    /**
+     * Method wraps streaming {@link Database#load(Consumer)} method
+     *
+     * @param chunkConsumer receives loaded chunks of {@link PersonModel}s
+     * @throws SQLException if exception occurs while preparing the statement or querying
+     */
+    public void load(Consumer<List<PersonModel>> chunkConsumer) throws SQLException {
+        db.load(chunkConsumer);
+    }
+
+    /**
+     * Method wraps {@link Database#beginLoad()} method
+     */
+    public void beginLoad() {
+        db.beginLoad();
+    }
+
+    /**
+     * Method wraps {@link Database#appendLoaded(List)} method
+     *
+     * @param chunk loaded {@link PersonModel}s
+     */
+    public void appendLoaded(List<PersonModel> chunk) {
+        db.appendLoaded(chunk);
+    }
+
+    /**
+     * Method wraps {@link Database#isReloadNeeded()} method
+     *
+     * @return true if people list has to be loaded to show recovered changes
+     */
+    public boolean isReloadNeeded() {
+        return db.isReloadNeeded();
+    }
+
+    /**
+     * Method wraps {@link Database#setFetchSize(int)} method
+     *
+     * @param fetchSize rows per fetch
+     */
+    public void setFetchSize(int fetchSize) {
+        db.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Method wraps {@link Database#query(PersonQuery)} method.
+     * Filtering, sorting and limiting is done by database
+     *
+     * @param query conditions, sorting and range
+     * @return list of matching {@link PersonModel}s
+     * @throws SQLException if exception occurs while preparing the statement or querying
+     */
+    public List<PersonModel> query(PersonQuery query) throws SQLException {
+        return db.query(query);
+    }
+
+    /**
+     * Method wraps {@link Database#countPeople(PersonQuery)} method
+     *
+     * @param query conditions people have to match
+     * @return quantity of matching people
+     * @throws SQLException if exception occurs while preparing the statement or querying
+     */
+    public int countPeople(PersonQuery query) throws SQLException {
+        return db.countPeople(query);
+    }
+
+    /**
+     * Creates read only table model which fetches people from database page by page
+     *
+     * @return {@link PagedPersonTableModel} object
+     */
+    public PagedPersonTableModel createPagedTableModel() {
+        return new PagedPersonTableModel(db, 200, 20);
+    }
+
     /**
      * Method wraps {@link Database#save()} method
      *
+     * @return list of {@link BatchReport}s, one per written batch
      * @throws SQLException if exception occurs while preparing the statement or querying
      */
-    public void save() throws SQLException {
-        db.save();
+    public List<BatchReport> save() throws SQLException {
+        return db.save();
+    }
+
+    /**
+     * Method wraps {@link Database#setBatchSize(int)} method
+     *
+     * @param batchSize rows per JDBC batch
+     */
+    public void setBatchSize(int batchSize) {
+        db.setBatchSize(batchSize);
     }
 
     /**
@@ -123,5 +344,6 @@ public class Controller {
      */
     public void close() {
         db.disconnect();
+        db.closeJournal();
     }
 }
@@ -1,19 +1,33 @@
 package gui;
 
+import controller.AsyncController;
 import controller.Controller;
 import gui.dialogs.PrefsDialog;
 import gui.helpers.PersonFileFilter;
+import gui.listeners.PersonTableListener;
 import gui.listeners.ToolbarListener;
 import gui.views.FormPanel;
 import gui.views.MessagePanel;
 import gui.views.TablePanel;
 import gui.views.Toolbar;
+import model.FileImport;
+import model.MappedPersonTableModel;
+import model.PagedPersonTableModel;
+import model.PersonModel;
+import model.enums.IdConflict;
+import model.io.CorruptedBlockException;
+import model.io.PersonTextFormat;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.IOException;
+import java.io.File;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.prefs.Preferences;
 
 /**
@@ -21,6 +35,11 @@ import java.util.prefs.Preferences;
  */
 public class MainFrame extends JFrame {
 
+    /**
+     * Directory of journal keeping unsaved changes
+     */
+    private static final File JOURNAL_DIR = new File(System.getProperty("user.home"), ".swingtest" + File.separator + "journal");
+
     /**
      * Top toolbar widget
      */
@@ -71,6 +90,31 @@ public class MainFrame extends JFrame {
      */
     private final Controller controller;
 
+    /**
+     * Runs database and file operations outside the Event Dispatch Thread
+     */
+    private final AsyncController asyncController;
+
+    /**
+     * Running loading of people from database
+     */
+    private CompletableFuture<Integer> loadTask;
+
+    /**
+     * Table model browsing database page by page (null while people list is shown)
+     */
+    private PagedPersonTableModel pagedModel;
+
+    /**
+     * Table model showing file opened read only (null while people list is shown)
+     */
+    private MappedPersonTableModel fileModel;
+
+    /**
+     * Menu item switching people list to columnar storage
+     */
+    private JCheckBoxMenuItem columnarItem;
+
     /**
      * MainFrame constructor preforms main initializations and configurations
      *
@@ -86,6 +130,7 @@ public class MainFrame extends JFrame {
         formPanel = new FormPanel();
         tablePanel = new TablePanel();
         controller = new Controller();
+        asyncController = new AsyncController(controller, SwingUtilities::invokeLater);
         fileChooser = new JFileChooser();
         tabPane = new JTabbedPane();
         messagePanel = new MessagePanel(this);
@@ -107,16 +152,17 @@ public class MainFrame extends JFrame {
         // set filter for file choosing (from menu)
         fileChooser.addChoosableFileFilter(new PersonFileFilter());
 
-        // initialization data for table in TablePane
+        // initialization data for table in TablePane, table follows changes of people list
         tablePanel.setData(controller.getPeople());
+        controller.setPeopleListener(tablePanel.getPeopleListener());
 
         // set layout and adding components into window
         setLayout(new BorderLayout());
         add(toolbar, BorderLayout.PAGE_START);
         add(splitPane, BorderLayout.CENTER);
 
-        // refresh table after window loads
-        refreshTable();
+        // restore unsaved changes of the previous run, otherwise load people after window loads
+        openJournal();
 
         // setting the window
         setMinimumSize(new Dimension(500, 400));
@@ -141,12 +187,12 @@ public class MainFrame extends JFrame {
         toolbar.setListener(new ToolbarListener() {
             @Override
             public void saveEventOccurred() {
-                connect();
-                try {
-                    controller.save();
-                } catch (SQLException e) {
-                    showErrorMessageDialog("Unable to save to database.", "Database connection problem");
-                }
+                asyncController.save(report -> System.out.println("Saved " + report))
+                        .whenComplete((reports, e) -> {
+                            if (e != null && !(e instanceof CancellationException)) {
+                                showErrorMessageDialog("Unable to save to database.", "Database connection problem");
+                            }
+                        });
             }
 
             @Override
@@ -155,14 +201,41 @@ public class MainFrame extends JFrame {
             }
         });
 
-        // adding person from Form panel
-        formPanel.setFormListener(e -> {
-            controller.addPerson(e);
-            tablePanel.refresh();
+        // adding person from Form panel (fails if no ids are reserved, e.g. database is unavailable)
+        formPanel.setFormListener(ev -> {
+            try {
+                controller.addPerson(ev);
+            } catch (IllegalStateException e) {
+                showErrorMessageDialog("Unable to add person", e.getMessage());
+            }
+        });
+
+        // remove person from table (with context menu) and track edited cells
+        tablePanel.addPersonTableListener(new PersonTableListener() {
+            @Override
+            public void peopleDeleted(List<Integer> ids) {
+                controller.removePeople(ids);
+            }
+
+            @Override
+            public void personEdited(int id) {
+                controller.personChanged(id);
+            }
+
+            @Override
+            public void peopleEdited(List<Integer> ids, Consumer<PersonModel> edit) {
+                controller.editPeople(ids, edit);
+            }
         });
 
-        // remove person from table (with context menu)
-        tablePanel.addPersonTableListener(controller::removePerson);
+        // search typed prefix off the EDT, table shows rows found for the latest prefix only
+        tablePanel.setSearchListener(prefix -> asyncController.search(prefix).whenComplete((rows, e) -> {
+            if (e == null) {
+                tablePanel.showSearchResult(prefix, rows);
+            } else if (!(e instanceof CancellationException)) {
+                System.err.println("Search failed: " + e.getMessage());
+            }
+        }));
 
         // listener on changes the tab in tabbed panel
         tabPane.addChangeListener(e -> {
@@ -175,6 +248,8 @@ public class MainFrame extends JFrame {
             @Override
             public void windowClosing(WindowEvent e) {
                 System.out.println("Window closing");
+                closeReadOnlyFile();
+                asyncController.close();
                 dispose();
                 System.gc();
             }
@@ -210,39 +285,197 @@ public class MainFrame extends JFrame {
     }
 
     /**
-     * Method refreshes table in TablePane with data loaded fom Database
+     * Method refreshes table in TablePane with data loaded fom Database.
+     * Rows are streamed in background and appended to the table chunk by chunk
      */
     public void refreshTable() {
-        if (!connect()) return;
 
-        try {
-            controller.load();
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(MainFrame.this,
-                    "Unable to load from database.",
-                    "Database connection problem",
-                    JOptionPane.ERROR_MESSAGE);
+        closeReadOnlyFile();
+
+        if (pagedModel != null) {
+            pagedModel.reload();
+            return;
+        }
+
+        // previous loading would append its rows to the new ones
+        if (loadTask != null) {
+            loadTask.cancel(true);
         }
 
-        tablePanel.refresh();
+        loadTask = asyncController.load(controller::appendLoaded);
+
+        loadTask.whenComplete((count, e) -> {
+            if (e != null && !(e instanceof CancellationException)) {
+                JOptionPane.showMessageDialog(MainFrame.this,
+                        "Unable to load from database.",
+                        "Database connection problem",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    /**
+     * Asks for several files and merges their people into people list.
+     * Files are read in parallel, table is updated once when all of them are merged
+     */
+    private void importFiles() {
+        fileChooser.setMultiSelectionEnabled(true);
+        int result = fileChooser.showOpenDialog(MainFrame.this);
+        fileChooser.setMultiSelectionEnabled(false);
+        if (result != JFileChooser.APPROVE_OPTION) return;
+
+        List<File> files = Arrays.asList(fileChooser.getSelectedFiles());
+
+        String[] options = {"Keep existing", "Replace existing", "Assign new ids"};
+        int choice = JOptionPane.showOptionDialog(MainFrame.this,
+                "What to do with imported people which ids are already used?",
+                "Import and merge files",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null, options, options[2]);
+        if (choice < 0) return;
+
+        asyncController.importFiles(files, IdConflict.values()[choice]).whenComplete((imports, ex) -> {
+            if (ex != null) {
+                showErrorMessageDialog("Error", "Could not import files. " + ex.getMessage());
+                return;
+            }
+
+            StringBuilder failed = new StringBuilder();
+            for (FileImport fileImport : imports) {
+                System.out.println("Imported " + fileImport);
+                if (!fileImport.isSuccessful()) {
+                    failed.append('\n').append(fileImport.getFile().getName())
+                            .append(": ").append(fileImport.getError().getMessage());
+                }
+            }
+            if (failed.length() > 0) {
+                showErrorMessageDialog("Error", "Could not import files:" + failed);
+            }
+        });
     }
 
     /**
-     * Method wraps {@link Controller#connect} method (for Database connection)
+     * Asks for file and writes people to it
      *
-     * @return true if connect successfully
+     * @param compressed if file is split into compressed blocks
      */
-    public boolean connect() {
-        try {
-            controller.connect();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(MainFrame.this,
-                    "Cannot connect to database.",
-                    "Database connection problem",
-                    JOptionPane.ERROR_MESSAGE);
-            return false;
+    private void exportData(boolean compressed) {
+        if (fileChooser.showSaveDialog(MainFrame.this) != JFileChooser.APPROVE_OPTION) return;
+
+        asyncController.saveToFile(fileChooser.getSelectedFile(), compressed).whenComplete((result, ex) -> {
+            if (ex != null) {
+                JOptionPane.showMessageDialog(MainFrame.this,
+                        "Could not save data to file",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    /**
+     * Asks for file and writes people to it as CSV or JSON lines
+     *
+     * @param format format of the file
+     */
+    private void exportText(PersonTextFormat format) {
+        if (fileChooser.showSaveDialog(MainFrame.this) != JFileChooser.APPROVE_OPTION) return;
+
+        asyncController.exportText(fileChooser.getSelectedFile(), format).whenComplete((result, ex) -> {
+            if (ex != null) {
+                showErrorMessageDialog("Error", "Could not save data to file");
+            }
+        });
+    }
+
+    /**
+     * Asks for CSV or JSON lines file (format is chosen by extension) and replaces people with its ones
+     */
+    private void importText() {
+        if (fileChooser.showOpenDialog(MainFrame.this) != JFileChooser.APPROVE_OPTION) return;
+
+        File file = fileChooser.getSelectedFile();
+        PersonTextFormat format = PersonTextFormat.forFile(file);
+        if (format == null) {
+            showErrorMessageDialog("Error", "File name has to end with .csv, .jsonl, .ndjson or .json");
+            return;
         }
-        return true;
+
+        asyncController.importText(file, format).whenComplete((result, ex) -> {
+            if (ex != null) {
+                showErrorMessageDialog("Error", "Could not load data from file. " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Asks for file and writes people changed since the last delta export to it.
+     * Watermark of the export is kept in preferences, so the next export starts from it
+     */
+    private void exportDelta() {
+        if (fileChooser.showSaveDialog(MainFrame.this) != JFileChooser.APPROVE_OPTION) return;
+
+        long watermark = prefs.getLong("deltaWatermark", 0);
+        asyncController.exportDelta(fileChooser.getSelectedFile(), watermark).whenComplete((delta, ex) -> {
+            if (ex != null) {
+                showErrorMessageDialog("Error", "Could not save changes to file");
+                return;
+            }
+            System.out.println("Exported " + delta);
+            prefs.putLong("deltaWatermark", delta.getWatermark());
+        });
+    }
+
+    /**
+     * Asks for delta files and applies them on top of people list (e.g. imported base file)
+     */
+    private void importDeltas() {
+        fileChooser.setMultiSelectionEnabled(true);
+        int result = fileChooser.showOpenDialog(MainFrame.this);
+        fileChooser.setMultiSelectionEnabled(false);
+        if (result != JFileChooser.APPROVE_OPTION) return;
+
+        List<File> files = Arrays.asList(fileChooser.getSelectedFiles());
+        asyncController.importDeltas(files).whenComplete((deltas, ex) -> {
+            if (ex != null) {
+                showErrorMessageDialog("Error", "Could not import changes. " + ex.getMessage());
+                return;
+            }
+            deltas.forEach(delta -> System.out.println("Imported " + delta));
+        });
+    }
+
+    /**
+     * Replays journal of unsaved changes. If there are such changes, people list is restored from journal,
+     * otherwise it is loaded from database (changes of people loaded from database are applied while loading)
+     */
+    private void openJournal() {
+        asyncController.openJournal(JOURNAL_DIR).whenComplete((restored, ex) -> {
+            if (ex != null) {
+                System.err.println("Unable to open journal: " + ex.getMessage());
+            }
+
+            if (ex == null && restored) {
+                JOptionPane.showMessageDialog(MainFrame.this,
+                        "Unsaved changes of the previous session were restored.",
+                        "Changes restored",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+            if (ex != null || !restored || controller.isReloadNeeded()) {
+                refreshTable();
+            }
+        });
+    }
+
+    /**
+     * Closes file opened read only and shows people list again
+     */
+    private void closeReadOnlyFile() {
+        if (fileModel == null) return;
+
+        fileModel.close();
+        fileModel = null;
+        tablePanel.setTableModel(null);
     }
 
     /**
@@ -273,6 +506,11 @@ public class MainFrame extends JFrame {
 
         prefsDialog.setDefaults(user, password, port);
 
+        // storage of people list
+        boolean columnar = prefs.getBoolean("columnar", false);
+        columnarItem.setSelected(columnar);
+        controller.setColumnar(columnar);
+
         // set configuration
         try {
             controller.configure(port, user, password);
@@ -304,10 +542,26 @@ public class MainFrame extends JFrame {
         JMenu fileMenu = new JMenu("File");
         // menu name with '...' by convention means that will be shown popup window
         JMenuItem exportDataItem = new JMenuItem("Export data...");
+        JMenuItem exportCompressedItem = new JMenuItem("Export compressed...");
         JMenuItem importDataItem = new JMenuItem("Import data...");
+        JMenuItem importFilesItem = new JMenuItem("Import and merge files...");
+        JMenuItem exportDeltaItem = new JMenuItem("Export changes since last export...");
+        JMenuItem importDeltaItem = new JMenuItem("Import changes...");
+        JMenuItem exportCsvItem = new JMenuItem("Export CSV...");
+        JMenuItem exportJsonItem = new JMenuItem("Export JSON lines...");
+        JMenuItem importTextItem = new JMenuItem("Import CSV or JSON lines...");
+        JMenuItem openReadOnlyItem = new JMenuItem("Open read-only...");
         JMenuItem exitItem = new JMenuItem("Exit");
         fileMenu.add(exportDataItem);
+        fileMenu.add(exportCompressedItem);
         fileMenu.add(importDataItem);
+        fileMenu.add(importFilesItem);
+        fileMenu.add(exportDeltaItem);
+        fileMenu.add(importDeltaItem);
+        fileMenu.add(exportCsvItem);
+        fileMenu.add(exportJsonItem);
+        fileMenu.add(importTextItem);
+        fileMenu.add(openReadOnlyItem);
         fileMenu.addSeparator();
         fileMenu.add(exitItem);
 
@@ -318,33 +572,31 @@ public class MainFrame extends JFrame {
         // - accelerators
         importDataItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_I, InputEvent.CTRL_DOWN_MASK));
         exportDataItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E, InputEvent.CTRL_DOWN_MASK));
+        openReadOnlyItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_DOWN_MASK));
 
         // - listeners
         importDataItem.addActionListener(e -> {
             if (fileChooser.showOpenDialog(MainFrame.this) == JFileChooser.APPROVE_OPTION) {
-                try {
-                    controller.loadFromFile(fileChooser.getSelectedFile());
-                    tablePanel.refresh();
-                } catch (IOException ioException) {
-                    JOptionPane.showMessageDialog(MainFrame.this,
-                            "Could not load data from file",
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        });
-        exportDataItem.addActionListener(e -> {
-            if (fileChooser.showSaveDialog(MainFrame.this) == JFileChooser.APPROVE_OPTION) {
-                try {
-                    controller.saveToFile(fileChooser.getSelectedFile());
-                } catch (IOException ioException) {
-                    JOptionPane.showMessageDialog(MainFrame.this,
-                            "Could not save data to file",
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                }
+                asyncController.loadFromFile(fileChooser.getSelectedFile()).whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        JOptionPane.showMessageDialog(MainFrame.this,
+                                ex instanceof CorruptedBlockException
+                                        ? "Could not load data from file. " + ex.getMessage()
+                                        : "Could not load data from file",
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                });
             }
         });
+        importFilesItem.addActionListener(e -> importFiles());
+        exportDataItem.addActionListener(e -> exportData(false));
+        exportCompressedItem.addActionListener(e -> exportData(true));
+        exportDeltaItem.addActionListener(e -> exportDelta());
+        importDeltaItem.addActionListener(e -> importDeltas());
+        exportCsvItem.addActionListener(e -> exportText(PersonTextFormat.csv));
+        exportJsonItem.addActionListener(e -> exportText(PersonTextFormat.jsonLines));
+        importTextItem.addActionListener(e -> importText());
 
         //// ------------------------------------------------------------------------
         //// ------------------------------------------------------------------------
@@ -353,9 +605,13 @@ public class MainFrame extends JFrame {
         JMenu showMenu = new JMenu("Show");
         JMenuItem prefsItem = new JMenuItem("Preferences...");
         JCheckBoxMenuItem showFormItem = new JCheckBoxMenuItem("Person form");
+        JCheckBoxMenuItem pagedItem = new JCheckBoxMenuItem("Paged database view");
+        columnarItem = new JCheckBoxMenuItem("Compact people storage");
         showFormItem.setSelected(true);
         showMenu.add(showFormItem);
+        showMenu.add(pagedItem);
         windowMenu.add(showMenu);
+        windowMenu.add(columnarItem);
         windowMenu.add(prefsItem);
 
         // - accelerators
@@ -372,6 +628,46 @@ public class MainFrame extends JFrame {
             }
             formPanel.setVisible(menuItem.isSelected());
         });
+        columnarItem.addActionListener(e -> {
+            prefs.putBoolean("columnar", columnarItem.isSelected());
+            controller.setColumnar(columnarItem.isSelected());
+        });
+        pagedItem.addActionListener(e -> {
+            if (pagedItem.isSelected()) {
+                closeReadOnlyFile();
+                pagedModel = controller.createPagedTableModel();
+                tablePanel.setTableModel(pagedModel);
+                pagedModel.reload();
+            } else {
+                pagedModel.close();
+                pagedModel = null;
+                tablePanel.setTableModel(null);
+            }
+        });
+        // read only file replaces paged view, so this listener is set after paged view's one
+        openReadOnlyItem.addActionListener(e -> {
+            if (fileChooser.showOpenDialog(MainFrame.this) != JFileChooser.APPROVE_OPTION) return;
+
+            asyncController.openReadOnly(fileChooser.getSelectedFile()).whenComplete((model, ex) -> {
+                if (ex != null) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Could not open file. Only files exported by this version can be opened read-only",
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                closeReadOnlyFile();
+                if (pagedModel != null) {
+                    pagedItem.setSelected(false);
+                    pagedModel.close();
+                    pagedModel = null;
+                }
+
+                fileModel = model;
+                tablePanel.setTableModel(fileModel);
+            });
+        });
         exitItem.addActionListener(e -> {
             int action = JOptionPane.showConfirmDialog(MainFrame.this,
                     "Do you really want to exit application?",
@@ -0,0 +1,794 @@
+package gui.helpers;
+
+import model.Bitmap;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+import java.text.Collator;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Row sorter filtering and sorting table rows.
+ * Unlike {@link javax.swing.table.TableRowSorter} it doesn't check every row on each change:
+ * rows of the filter are given as {@link Bitmap} found by an index,
+ * the filter's predicate is checked only for inserted and updated rows.
+ * Rows are sorted by one column. Its cells are read once and turned into int keys
+ * (integers as they are, other values as ranks of their collation keys), which are cached,
+ * so rows are sorted as primitive array (in parallel for big tables) without comparing cells.
+ * Inserted rows and rows updated in the sorted column are marked unranked instead of dropping the keys,
+ * they are put at their places by binary search, other rows are only shifted.
+ * Keys are computed again only when many rows are unranked
+ */
+public class PersonRowSorter extends RowSorter<TableModel> {
+
+    /**
+     * Quantity of rows or distinct cells from which they are sorted and turned into keys in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
+    /**
+     * Inserted rows are sorted together with shown rows if there are more of them than shown rows divided by this
+     */
+    private static final int RESORT_RATIO = 64;
+
+    /**
+     * Filtered model
+     */
+    private final TableModel model;
+
+    /**
+     * Compares strings in the user's language
+     */
+    private final Collator collator = Collator.getInstance();
+
+    /**
+     * Checks if model row is shown (null - all rows are shown)
+     */
+    private IntPredicate filter;
+
+    /**
+     * Column and order rows are sorted by (null if rows aren't sorted)
+     */
+    private SortKey sortKey;
+
+    /**
+     * Sort keys of model rows for the sorted column (null if they have to be computed again)
+     */
+    private int[] keys;
+
+    /**
+     * Model rows which keys aren't ranked (inserted or updated in the sorted column after keys were computed)
+     */
+    private final Bitmap unranked = new Bitmap(64);
+
+    /**
+     * Quantity of rows in {@link PersonRowSorter#unranked}
+     */
+    private int unrankedCount;
+
+    /**
+     * Model rows of view rows, in ascending order if rows aren't sorted (null if all rows are shown unsorted)
+     */
+    private int[] viewToModel;
+
+    /**
+     * View rows of model rows, -1 for hidden rows (built on the first conversion)
+     */
+    private int[] modelToView;
+
+    /**
+     * Quantity of model rows the sorter knows about
+     */
+    private int modelRowCount;
+
+    /**
+     * Constructor.
+     *
+     * @param model filtered {@link TableModel}
+     */
+    public PersonRowSorter(TableModel model) {
+        this.model = model;
+        this.modelRowCount = model.getRowCount();
+    }
+
+    /**
+     * Shows only given rows
+     *
+     * @param rows   model rows to show, found for current model
+     * @param filter checks if model row is shown, used for rows inserted or updated later
+     */
+    public void setFilter(Bitmap rows, IntPredicate filter) {
+        int[] previous = viewToModel;
+        this.filter = filter;
+        modelRowCount = model.getRowCount();
+
+        int[] shown = new int[Math.min(rows.cardinality(), modelRowCount)];
+        int count = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < modelRowCount && count < shown.length;
+             row = rows.nextSetBit(row + 1)) {
+            shown[count++] = row;
+        }
+        setViewToModel(sort(Arrays.copyOf(shown, count)));
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * Shows all rows
+     */
+    public void clearFilter() {
+        if (filter == null) return;
+        int[] previous = viewToModel;
+        filter = null;
+        modelRowCount = model.getRowCount();
+        setViewToModel(sortKey == null ? null : sort(allRows()));
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * Returns if some rows are hidden
+     *
+     * @return true if filter is set
+     */
+    public boolean isFiltered() {
+        return filter != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return filtered {@link TableModel}
+     */
+    @Override
+    public TableModel getModel() {
+        return model;
+    }
+
+    /**
+     * Sorts rows by column ascending, then descending, then shows them unsorted
+     *
+     * @param column column index
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+        if (sortKey == null || sortKey.getColumn() != column) {
+            setSortKeys(List.of(new SortKey(column, SortOrder.ASCENDING)));
+        } else if (sortKey.getSortOrder() == SortOrder.ASCENDING) {
+            setSortKeys(List.of(new SortKey(column, SortOrder.DESCENDING)));
+        } else {
+            setSortKeys(null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index view row
+     * @return model row
+     */
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid row: " + index);
+            return index;
+        }
+        return viewToModel[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index model row
+     * @return view row or -1 if row is hidden
+     */
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid row: " + index);
+        if (viewToModel == null) return index;
+
+        if (modelToView == null) {
+            modelToView = new int[modelRowCount];
+            Arrays.fill(modelToView, -1);
+            for (int view = 0; view < viewToModel.length; view++) {
+                modelToView[viewToModel[view]] = view;
+            }
+        }
+        return modelToView[index];
+    }
+
+    /**
+     * Sorts rows by the first of given keys (rows are sorted by one column only)
+     *
+     * @param keys sort keys, null or empty list to show rows unsorted
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        SortKey key = keys == null || keys.isEmpty() || keys.get(0).getSortOrder() == SortOrder.UNSORTED
+                ? null : keys.get(0);
+        if (Objects.equals(key, sortKey)) return;
+
+        if (key == null || sortKey == null || key.getColumn() != sortKey.getColumn()) forgetKeys();
+        sortKey = key;
+        fireSortOrderChanged();
+
+        int[] previous = viewToModel;
+        int[] shown = previous != null ? previous.clone() : allRows();
+        if (sortKey != null) {
+            sort(shown);
+        } else if (filter != null) {
+            Arrays.sort(shown);
+        } else {
+            shown = null;
+        }
+        setViewToModel(shown);
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return list with the sort key or empty list if rows aren't sorted
+     */
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKey == null ? Collections.emptyList() : List.of(sortKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return quantity of shown rows
+     */
+    @Override
+    public int getViewRowCount() {
+        return viewToModel == null ? modelRowCount : viewToModel.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return quantity of model rows
+     */
+    @Override
+    public int getModelRowCount() {
+        return modelRowCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Filter is checked for all rows
+     */
+    @Override
+    public void modelStructureChanged() {
+        allRowsChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Filter is checked for all rows, they are sorted again
+     */
+    @Override
+    public void allRowsChanged() {
+        modelRowCount = model.getRowCount();
+        forgetKeys();
+        if (filter == null && sortKey == null) return;
+
+        int[] previous = viewToModel;
+        int[] shown = new int[modelRowCount];
+        int count = 0;
+        for (int row = 0; row < modelRowCount; row++) {
+            if (filter == null || filter.test(row)) shown[count++] = row;
+        }
+        setViewToModel(sort(Arrays.copyOf(shown, count)));
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Filter is checked only for inserted rows, which are put at their sorted places.
+     * Keys of other rows are shifted, inserted rows are unranked
+     *
+     * @param firstRow the first inserted model row
+     * @param endRow   the last inserted model row
+     */
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int previousCount = modelRowCount;
+        int inserted = endRow - firstRow + 1;
+        modelRowCount = model.getRowCount();
+        if (keys != null) {
+            if (keys.length < modelRowCount) {
+                keys = Arrays.copyOf(keys, Math.max(modelRowCount, keys.length + (keys.length >> 1)));
+            }
+            System.arraycopy(keys, firstRow, keys, endRow + 1, previousCount - firstRow);
+            unranked.move(firstRow, endRow + 1, previousCount - firstRow);
+            unranked.clear(firstRow, endRow + 1);
+            keysChanged(firstRow, endRow);
+        }
+        if (filter == null && sortKey == null) return;
+
+        int[] previous = viewToModel;
+        int[] added = new int[inserted];
+        int count = 0;
+        for (int row = firstRow; row <= endRow; row++) {
+            if (filter == null || filter.test(row)) added[count++] = row;
+        }
+
+        if (sortKey == null) {
+            int[] shown = new int[previous.length + count];
+            int view = 0;
+            int index = 0;
+            while (view < previous.length && previous[view] < firstRow) {
+                shown[index++] = previous[view++];
+            }
+            System.arraycopy(added, 0, shown, index, count);
+            index += count;
+            while (view < previous.length) {
+                shown[index++] = previous[view++] + inserted;
+            }
+            setViewToModel(shown);
+        } else {
+            int[] shifted = new int[previous.length];
+            for (int view = 0; view < previous.length; view++) {
+                int row = previous[view];
+                shifted[view] = row >= firstRow ? row + inserted : row;
+            }
+            setViewToModel(insertSorted(shifted, Arrays.copyOf(added, count)));
+        }
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Order of other rows doesn't change, they are only shifted
+     *
+     * @param firstRow the first deleted model row
+     * @param endRow   the last deleted model row
+     */
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int deleted = endRow - firstRow + 1;
+        if (keys != null) {
+            // ranks of other rows stay valid
+            System.arraycopy(keys, endRow + 1, keys, firstRow, modelRowCount - endRow - 1);
+            for (int row = unranked.nextSetBit(firstRow); row >= 0 && row <= endRow; row = unranked.nextSetBit(row + 1)) {
+                unrankedCount--;
+            }
+            unranked.move(endRow + 1, firstRow, modelRowCount - endRow - 1);
+            unranked.clear(modelRowCount - deleted, modelRowCount);
+        }
+        modelRowCount = model.getRowCount();
+        if (filter == null && sortKey == null) return;
+
+        int[] previous = viewToModel;
+        int[] shown = new int[previous.length];
+        int count = 0;
+        for (int row : previous) {
+            if (row < firstRow) {
+                shown[count++] = row;
+            } else if (row > endRow) {
+                shown[count++] = row - deleted;
+            }
+        }
+        setViewToModel(Arrays.copyOf(shown, count));
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Filter is checked only for updated rows, which are put at their sorted places
+     *
+     * @param firstRow the first updated model row
+     * @param endRow   the last updated model row
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        rowsUpdated(firstRow, endRow, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Filter is checked only for updated rows, which are put at their sorted places.
+     * Keys are kept if other column than the sorted one is updated
+     *
+     * @param firstRow the first updated model row
+     * @param endRow   the last updated model row
+     * @param column   updated column
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        rowsUpdated(firstRow, endRow, sortKey != null && column == sortKey.getColumn());
+    }
+
+    /**
+     * Checks filter for updated rows and puts them at their sorted places
+     *
+     * @param firstRow            the first updated model row
+     * @param endRow              the last updated model row
+     * @param sortedColumnChanged if cells of the sorted column may have changed
+     */
+    private void rowsUpdated(int firstRow, int endRow, boolean sortedColumnChanged) {
+        if (filter == null && sortKey == null) return;
+        if (sortedColumnChanged) keysChanged(firstRow, endRow);
+
+        int[] previous = viewToModel;
+        int[] updated = new int[endRow - firstRow + 1];
+        int count = 0;
+        for (int row = firstRow; row <= endRow; row++) {
+            if (filter == null || filter.test(row)) updated[count++] = row;
+        }
+
+        if (sortKey != null) {
+            int[] kept = new int[previous.length];
+            int keptCount = 0;
+            for (int row : previous) {
+                if (row < firstRow || row > endRow) kept[keptCount++] = row;
+            }
+            setViewToModel(insertSorted(Arrays.copyOf(kept, keptCount), Arrays.copyOf(updated, count)));
+            fireRowSorterChanged(previous);
+            return;
+        }
+
+        int start = lowerBound(previous, firstRow);
+        int end = lowerBound(previous, endRow + 1);
+        if (count == end - start && Arrays.equals(updated, 0, count, previous, start, end)) return;
+
+        int[] shown = new int[start + count + previous.length - end];
+        System.arraycopy(previous, 0, shown, 0, start);
+        System.arraycopy(updated, 0, shown, start, count);
+        System.arraycopy(previous, end, shown, start + count, previous.length - end);
+        setViewToModel(shown);
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * Sets shown rows and forgets view rows of model rows
+     *
+     * @param viewToModel model rows of view rows (null - all rows)
+     */
+    private void setViewToModel(int[] viewToModel) {
+        this.viewToModel = viewToModel;
+        this.modelToView = null;
+    }
+
+    /**
+     * Returns all model rows in ascending order
+     *
+     * @return array of model rows
+     */
+    private int[] allRows() {
+        int[] rows = new int[modelRowCount];
+        for (int row = 0; row < modelRowCount; row++) {
+            rows[row] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Sorts model rows by sort key, rows with equal cells stay in model order.
+     * Few unranked rows are put among sorted ranked rows by binary search, otherwise keys are computed again
+     *
+     * @param rows model rows in ascending order, sorted in place
+     * @return given rows
+     */
+    private int[] sort(int[] rows) {
+        if (sortKey == null) return rows;
+        int[] rowKeys = getKeys();
+
+        if (unrankedCount > 0) {
+            int[] ranked = new int[rows.length];
+            int[] added = new int[Math.min(rows.length, unrankedCount)];
+            int rankedCount = 0;
+            int addedCount = 0;
+            for (int row : rows) {
+                if (unranked.get(row)) {
+                    added[addedCount++] = row;
+                } else {
+                    ranked[rankedCount++] = row;
+                }
+            }
+
+            if ((long) addedCount * RESORT_RATIO > rows.length) {
+                // too many rows for binary search, all rows are ranked again
+                forgetKeys();
+                rowKeys = getKeys();
+            } else if (addedCount > 0) {
+                ranked = sortRanked(Arrays.copyOf(ranked, rankedCount), rowKeys);
+                int[] sorted = placeSorted(ranked, Arrays.copyOf(added, addedCount));
+                System.arraycopy(sorted, 0, rows, 0, rows.length);
+                return rows;
+            }
+        }
+        return sortRanked(rows, rowKeys);
+    }
+
+    /**
+     * Sorts model rows by their keys, rows with equal keys stay in model order.
+     * Each row is packed with its key into long, so rows are sorted as primitive array
+     *
+     * @param rows    ranked model rows in ascending order, sorted in place
+     * @param rowKeys key of each model row
+     * @return given rows
+     */
+    private int[] sortRanked(int[] rows, int[] rowKeys) {
+        boolean descending = sortKey.getSortOrder() == SortOrder.DESCENDING;
+
+        long[] packed = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            int key = rowKeys[rows[i]];
+            packed[i] = (long) (descending ? ~key : key) << 32 | rows[i];
+        }
+        if (packed.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(packed);
+        } else {
+            Arrays.sort(packed);
+        }
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) packed[i];
+        }
+        return rows;
+    }
+
+    /**
+     * Puts rows among sorted rows. Few rows are put at places found by binary search,
+     * many rows are sorted together with the other ones
+     *
+     * @param shown sorted model rows
+     * @param added model rows to add (not among shown rows)
+     * @return sorted model rows of both arrays
+     */
+    private int[] insertSorted(int[] shown, int[] added) {
+        if ((long) added.length * RESORT_RATIO > shown.length) {
+            int[] rows = Arrays.copyOf(shown, shown.length + added.length);
+            System.arraycopy(added, 0, rows, shown.length, added.length);
+            return sort(rows);
+        }
+        return placeSorted(shown, added);
+    }
+
+    /**
+     * Puts rows at places found by binary search among sorted rows
+     *
+     * @param shown sorted model rows
+     * @param added model rows to add (not among shown rows)
+     * @return sorted model rows of both arrays
+     */
+    private int[] placeSorted(int[] shown, int[] added) {
+        Object[] values = new Object[added.length];
+        Integer[] order = new Integer[added.length];
+        for (int i = 0; i < added.length; i++) {
+            values[i] = sortValue(added[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compareRows(values[a], added[a], values[b], added[b]));
+
+        // places of sorted added rows grow, so shown rows are copied once
+        int[] rows = new int[shown.length + added.length];
+        int view = 0;
+        int index = 0;
+        for (int i : order) {
+            int place = upperBound(shown, view, values[i], added[i]);
+            System.arraycopy(shown, view, rows, index, place - view);
+            index += place - view;
+            view = place;
+            rows[index++] = added[i];
+        }
+        System.arraycopy(shown, view, rows, index, shown.length - view);
+        return rows;
+    }
+
+    /**
+     * Finds place of row among sorted rows
+     *
+     * @param rows  sorted model rows
+     * @param from  the first place row can be put at
+     * @param value sort value of row's cell
+     * @param row   model row
+     * @return position of the first row which is sorted after given one
+     */
+    private int upperBound(int[] rows, int from, Object value, int row) {
+        int low = from;
+        int high = rows.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareRows(sortValue(rows[middle]), rows[middle], value, row) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares rows in sort order, like their keys are compared
+     *
+     * @param value1 sort value of the first row's cell
+     * @param row1   the first model row
+     * @param value2 sort value of the second row's cell
+     * @param row2   the second model row
+     * @return negative number if the first row is sorted before the second one
+     */
+    private int compareRows(Object value1, int row1, Object value2, int row2) {
+        int result = compareValues(value1, value2);
+        if (sortKey.getSortOrder() == SortOrder.DESCENDING) result = -result;
+        return result != 0 ? result : Integer.compare(row1, row2);
+    }
+
+    /**
+     * Returns sort keys of the sorted column, computes them if they aren't cached
+     *
+     * @return key of each model row
+     */
+    private int[] getKeys() {
+        if (keys == null || keys.length < modelRowCount) {
+            forgetKeys();
+            keys = computeKeys(sortKey.getColumn());
+        }
+        return keys;
+    }
+
+    /**
+     * Drops cached keys, they are computed again when rows are sorted
+     */
+    private void forgetKeys() {
+        keys = null;
+        unranked.clear(0, Integer.MAX_VALUE);
+        unrankedCount = 0;
+    }
+
+    /**
+     * Updates keys of rows which cells of the sorted column changed. Integers are read as keys,
+     * other rows are marked unranked (keys are dropped if there are many unranked rows)
+     *
+     * @param firstRow the first changed model row
+     * @param endRow   the last changed model row
+     */
+    private void keysChanged(int firstRow, int endRow) {
+        if (keys == null) return;
+
+        int column = sortKey.getColumn();
+        if (model.getColumnClass(column) == Integer.class) {
+            for (int row = firstRow; row <= endRow; row++) {
+                keys[row] = integerKey(model.getValueAt(row, column));
+                if (unranked.get(row)) {
+                    unranked.set(row, false);
+                    unrankedCount--;
+                }
+            }
+            return;
+        }
+
+        for (int row = firstRow; row <= endRow; row++) {
+            if (!unranked.get(row)) {
+                unranked.set(row, true);
+                unrankedCount++;
+            }
+        }
+        if ((long) unrankedCount * RESORT_RATIO > modelRowCount) forgetKeys();
+    }
+
+    /**
+     * Reads cells of column once and turns them into keys.
+     * Integers are keys themselves, other values get ranks of their distinct sort values
+     *
+     * @param column column index
+     * @return key of each model row
+     */
+    private int[] computeKeys(int column) {
+        int[] rowKeys = new int[modelRowCount];
+        if (model.getColumnClass(column) == Integer.class) {
+            for (int row = 0; row < modelRowCount; row++) {
+                rowKeys[row] = integerKey(model.getValueAt(row, column));
+            }
+            return rowKeys;
+        }
+
+        // codes of distinct cells, so each distinct cell gets its collation key once
+        Map<Object, Integer> codes = new HashMap<>();
+        List<Object> distinct = new ArrayList<>();
+        for (int row = 0; row < modelRowCount; row++) {
+            Object value = model.getValueAt(row, column);
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = distinct.size();
+                codes.put(value, code);
+                distinct.add(value);
+            }
+            rowKeys[row] = code;
+        }
+
+        // collator isn't thread safe, so each thread uses its own copy
+        ThreadLocal<Collator> collators = ThreadLocal.withInitial(() -> (Collator) collator.clone());
+        Object[] values = new Object[distinct.size()];
+        IntStream indexes = IntStream.range(0, values.length);
+        if (values.length >= PARALLEL_THRESHOLD) indexes = indexes.parallel();
+        indexes.forEach(i -> values[i] = toSortValue(distinct.get(i), collators.get()));
+
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> byValue = (a, b) -> compareValues(values[a], values[b]);
+        if (order.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(order, byValue);
+        } else {
+            Arrays.sort(order, byValue);
+        }
+
+        // equal values get equal ranks
+        int[] ranks = new int[values.length];
+        int rank = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i > 0 && compareValues(values[order[i - 1]], values[order[i]]) != 0) rank++;
+            ranks[order[i]] = rank;
+        }
+        for (int row = 0; row < modelRowCount; row++) {
+            rowKeys[row] = ranks[rowKeys[row]];
+        }
+        return rowKeys;
+    }
+
+    /**
+     * Returns key of integer cell
+     *
+     * @param value cell value
+     * @return integer itself, the least key for null
+     */
+    private static int integerKey(Object value) {
+        return value == null ? Integer.MIN_VALUE : (Integer) value;
+    }
+
+    /**
+     * Returns value row is sorted by
+     *
+     * @param row model row
+     * @return sort value of row's cell in the sorted column
+     */
+    private Object sortValue(int row) {
+        return toSortValue(model.getValueAt(row, sortKey.getColumn()), collator);
+    }
+
+    /**
+     * Turns cell into value it is sorted by: strings and values which aren't comparable
+     * into collation keys, comparable values are kept
+     *
+     * @param value    cell value
+     * @param collator {@link Collator} creating collation keys
+     * @return comparable value or null
+     */
+    private static Object toSortValue(Object value, Collator collator) {
+        if (value == null || value instanceof Comparable && !(value instanceof String)) return value;
+        return collator.getCollationKey(value.toString());
+    }
+
+    /**
+     * Compares sort values, null is the least
+     *
+     * @param value1 the first sort value
+     * @param value2 the second sort value
+     * @return negative number, zero or positive number as the first value is less, equal or greater
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object value1, Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == null ? (value2 == null ? 0 : -1) : 1;
+        }
+        return ((Comparable) value1).compareTo(value2);
+    }
+
+    /**
+     * Returns position of the first row which isn't less than given one
+     *
+     * @param rows rows in ascending order
+     * @param row  searched row
+     * @return position of row (length if all rows are less)
+     */
+    private static int lowerBound(int[] rows, int row) {
+        int index = Arrays.binarySearch(rows, row);
+        return index >= 0 ? index : -index - 1;
+    }
+}
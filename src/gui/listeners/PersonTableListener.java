@@ -1,5 +1,10 @@
 package gui.listeners;
 
+import model.PersonModel;
+
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * Interface for object,
  * that will preform action on table in Table Pane
@@ -7,9 +12,24 @@ package gui.listeners;
 public interface PersonTableListener {
 
     /**
-     * Method to preform table's row deleting (from model)
+     * Method to preform deleting of people shown in selected table's rows (from model)
+     *
+     * @param ids people's ids
+     */
+    void peopleDeleted(List<Integer> ids);
+
+    /**
+     * Method to preform actions after person shown in table's row was edited
+     *
+     * @param id person's id
+     */
+    void personEdited(int id);
+
+    /**
+     * Method to preform the same edit of people shown in selected table's rows
      *
-     * @param row row's id
+     * @param ids  people's ids
+     * @param edit changes each person
      */
-    void rowDeleted(int row);
+    void peopleEdited(List<Integer> ids, Consumer<PersonModel> edit);
 }
@@ -0,0 +1,15 @@
+package gui.listeners;
+
+/**
+ * Interface for object,
+ * that will search people typed in search box of Table Pane
+ */
+public interface SearchListener {
+
+    /**
+     * Method to preform search of people whose name or occupation starts with prefix
+     *
+     * @param prefix typed prefix (not empty)
+     */
+    void searchRequested(String prefix);
+}
@@ -195,6 +195,13 @@ public class FormPanel extends JPanel {
 
                 String gender = genderGroup.getSelection().getActionCommand();
 
+                if (name.trim().isEmpty()) {
+                    JOptionPane.showMessageDialog(FormPanel.this, "Name can't be empty", "Add Person",
+                            JOptionPane.ERROR_MESSAGE);
+                    nameField.requestFocusInWindow();
+                    return;
+                }
+
                 // send
                 FormEvent ev = new FormEvent(this, name, occupation,
                         ageCat.getId(), empCat, taxId, usCitizen, gender);
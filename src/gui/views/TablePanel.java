@@ -2,15 +2,25 @@ package gui.views;
 
 import gui.helpers.EmploymentCategoryEditor;
 import gui.helpers.EmploymentCategoryRenderer;
+import gui.helpers.PersonRowSorter;
 import gui.listeners.PersonTableListener;
+import gui.listeners.SearchListener;
+import model.Bitmap;
 import model.enums.EmploymentCategory;
+import model.PeopleListener;
+import model.PeopleTableModel;
 import model.PersonModel;
 import model.PersonTableModel;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,15 +28,45 @@ import java.util.List;
  */
 public class TablePanel extends JPanel {
 
+    /**
+     * Milliseconds search waits for the next typed character before it starts
+     */
+    private static final int SEARCH_DELAY = 150;
+
     /**
      * For table
      */
     private final JTable table;
 
     /**
-     * For table Model
+     * For sorting rows of people list by clicked column and filtering them by search
+     */
+    private final PersonRowSorter sorter;
+
+    /**
+     * For search box
      */
-    private final PersonTableModel tableModel;
+    private final JTextField searchField;
+
+    /**
+     * Starts search when typing pauses
+     */
+    private final Timer searchTimer;
+
+    /**
+     * For search listener object
+     */
+    private SearchListener searchListener;
+
+    /**
+     * For table Model showing people list
+     */
+    private final PeopleTableModel listModel;
+
+    /**
+     * For table Model currently shown
+     */
+    private PersonTableModel tableModel;
 
     /**
      * For context menu
@@ -38,15 +78,31 @@ public class TablePanel extends JPanel {
      */
     private PersonTableListener personTableListener;
 
+    /**
+     * Notifies about edited cells (whole table refreshes are ignored)
+     */
+    private final TableModelListener editListener = e -> {
+        if (e.getType() != TableModelEvent.UPDATE || e.getColumn() == TableModelEvent.ALL_COLUMNS) return;
+        if (personTableListener != null) {
+            personTableListener.personEdited(tableModel.getPersonId(e.getFirstRow()));
+        }
+    };
+
     /**
      * Table pane constructor
      */
     public TablePanel() {
 
         // initialization
-        tableModel = new PersonTableModel();
+        listModel = new PeopleTableModel();
+        tableModel = listModel;
         table = new JTable(tableModel);
+        sorter = new PersonRowSorter(listModel);
+        table.setRowSorter(sorter);
         popupMenu = new JPopupMenu();
+        searchField = new JTextField(20);
+        searchTimer = new Timer(SEARCH_DELAY, e -> search());
+        searchTimer.setRepeats(false);
 
         // set renderer and editor for Employment column
         table.setDefaultRenderer(EmploymentCategory.class, new EmploymentCategoryRenderer());
@@ -54,57 +110,209 @@ public class TablePanel extends JPanel {
 
         table.setRowHeight(25);
 
-        JMenuItem removeItem = new JMenuItem("Delete row");
+        JMenuItem removeItem = new JMenuItem("Delete selected rows");
+        JMenuItem setValueItem = new JMenuItem("Set value for selected rows...");
         popupMenu.add(removeItem);
+        popupMenu.add(setValueItem);
+
+        setListeners(removeItem, setValueItem);
 
-        setListeners(removeItem);
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Search name or occupation:"));
+        searchPanel.add(searchField);
 
         setLayout(new BorderLayout());
+        add(searchPanel, BorderLayout.PAGE_START);
         add(new JScrollPane(table), BorderLayout.CENTER);
     }
 
     /**
      * Method sets Listeners for Table panel
      *
-     * @param removeItem menu item
+     * @param removeItem   menu item deleting selected rows
+     * @param setValueItem menu item setting value of selected rows
      */
-    private void setListeners(JMenuItem removeItem) {
-        // showing context menu
+    private void setListeners(JMenuItem removeItem, JMenuItem setValueItem) {
+        // showing context menu, selection is kept if clicked row is selected (ctrl and shift select more rows)
         table.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
+                if (e.getButton() != MouseEvent.BUTTON3) return;
                 int row = table.rowAtPoint(e.getPoint());
-                table.getSelectionModel().setSelectionInterval(row, row);
-                if (e.getButton() == MouseEvent.BUTTON3) {
+                if (row >= 0 && !table.isRowSelected(row)) {
+                    table.getSelectionModel().setSelectionInterval(row, row);
+                }
+                if (!tableModel.isReadOnly()) {
                     popupMenu.show(table, e.getX(), e.getY());
                 }
             }
         });
 
-        // action on delete click
+        // action on delete click (people are identified by id, so sorting and filtering don't matter),
+        // all selected people are removed as one change, table is notified by people list
         removeItem.addActionListener(e -> {
-            int row = table.getSelectedRow();
-            if (personTableListener != null) {
-                personTableListener.rowDeleted(row);
-                tableModel.fireTableRowsDeleted(row, row);
+            List<Integer> ids = selectedIds();
+            if (personTableListener != null && !ids.isEmpty()) {
+                personTableListener.peopleDeleted(ids);
+            }
+        });
+
+        setValueItem.addActionListener(e -> setSelectedValue());
+
+        // notify about edited cells (whole table refreshes are ignored)
+        tableModel.addTableModelListener(editListener);
+
+        // restart search delay on each typed character
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
             }
         });
     }
 
+    /**
+     * Returns ids of people shown in selected rows
+     *
+     * @return list of people's ids
+     */
+    private List<Integer> selectedIds() {
+        int[] viewRows = table.getSelectedRows();
+        List<Integer> ids = new ArrayList<>(viewRows.length);
+        for (int viewRow : viewRows) {
+            int id = tableModel.getPersonId(table.convertRowIndexToModel(viewRow));
+            if (id >= 0) ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Asks for editable column and its value, and sets it to all selected people as one change
+     */
+    private void setSelectedValue() {
+        List<Integer> ids = selectedIds();
+        if (personTableListener == null || ids.isEmpty()) return;
+
+        String[] columns = {listModel.getColumnName(1), listModel.getColumnName(4), listModel.getColumnName(5)};
+        String column = (String) JOptionPane.showInputDialog(this, "Column:", "Set value for " + ids.size() + " people",
+                JOptionPane.QUESTION_MESSAGE, null, columns, columns[0]);
+        if (column == null) return;
+
+        String title = "Set value for " + ids.size() + " people";
+        int col;
+        Object value;
+        if (column.equals(columns[0])) {
+            col = 1;
+            // empty name is rejected like in the add form, the name is asked again
+            String name = JOptionPane.showInputDialog(this, "Name:", title, JOptionPane.QUESTION_MESSAGE);
+            while (name != null && name.trim().isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Name can't be empty", title, JOptionPane.ERROR_MESSAGE);
+                name = JOptionPane.showInputDialog(this, "Name:", title, JOptionPane.QUESTION_MESSAGE);
+            }
+            value = name;
+        } else if (column.equals(columns[1])) {
+            col = 4;
+            value = JOptionPane.showInputDialog(this, "Employment:", title,
+                    JOptionPane.QUESTION_MESSAGE, null, EmploymentCategory.values(), EmploymentCategory.values()[0]);
+        } else {
+            col = 5;
+            int answer = JOptionPane.showConfirmDialog(this, "US citizen?", title, JOptionPane.YES_NO_CANCEL_OPTION);
+            value = answer == JOptionPane.CANCEL_OPTION || answer == JOptionPane.CLOSED_OPTION
+                    ? null : answer == JOptionPane.YES_OPTION;
+        }
+        if (value == null) return;
+
+        personTableListener.peopleEdited(ids, person -> listModel.setPersonValue(person, value, col));
+    }
+
+    /**
+     * Asks listener to search typed prefix, shows all rows if search box is empty
+     */
+    private void search() {
+        String prefix = searchField.getText().trim();
+        if (prefix.isEmpty()) {
+            sorter.clearFilter();
+        } else if (searchListener != null) {
+            searchListener.searchRequested(prefix);
+        }
+    }
+
+    /**
+     * Shows only found rows of people list. Result is ignored if search box has changed since search started
+     *
+     * @param prefix searched prefix
+     * @param rows   rows of people list whose name or occupation starts with prefix
+     */
+    public void showSearchResult(String prefix, Bitmap rows) {
+        if (!prefix.equals(searchField.getText().trim())) return;
+        // found rows are positions in current people list
+        listModel.flush();
+        sorter.setFilter(rows, row -> startsWith(listModel.getValueAt(row, 1), prefix)
+                || startsWith(listModel.getValueAt(row, 2), prefix));
+    }
+
+    /**
+     * Case insensitive prefix check of cell value
+     *
+     * @param value  cell value
+     * @param prefix searched prefix
+     * @return true if value is string starting with prefix
+     */
+    private static boolean startsWith(Object value, String prefix) {
+        return value instanceof String && ((String) value).regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
     /**
      * set Data to tableModel
      *
      * @param data list of {@link PersonModel}s
      */
     public void setData(List<PersonModel> data) {
-        tableModel.setData(data);
+        listModel.setData(data);
+        sorter.allRowsChanged();
+    }
+
+    /**
+     * Returns object which has to be notified about changes of people list
+     *
+     * @return {@link PeopleListener} object updating the table
+     */
+    public PeopleListener getPeopleListener() {
+        return listModel;
     }
 
     /**
-     * Mehod fires notification for event listeners
+     * Shows given table model instead of people list
+     *
+     * @param model {@link PersonTableModel} object or null to show people list again
      */
-    public void refresh() {
-        tableModel.fireTableDataChanged();
+    public void setTableModel(PersonTableModel model) {
+        tableModel.removeTableModelListener(editListener);
+        tableModel = model != null ? model : listModel;
+        tableModel.addTableModelListener(editListener);
+
+        // search filters only people list
+        if (tableModel != listModel) {
+            searchField.setText("");
+            sorter.clearFilter();
+            table.setRowSorter(null);
+        }
+        searchField.setEnabled(tableModel == listModel);
+        table.setModel(tableModel);
+        if (tableModel == listModel) {
+            sorter.allRowsChanged();
+            table.setRowSorter(sorter);
+        }
     }
 
     /**
@@ -115,4 +323,13 @@ public class TablePanel extends JPanel {
     public void addPersonTableListener(PersonTableListener personTableListener) {
         this.personTableListener = personTableListener;
     }
+
+    /**
+     * Method sets object searching typed prefixes
+     *
+     * @param searchListener {@link SearchListener} object
+     */
+    public void setSearchListener(SearchListener searchListener) {
+        this.searchListener = searchListener;
+    }
 }
\ No newline at end of file
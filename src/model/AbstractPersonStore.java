@@ -0,0 +1,675 @@
+package model;
+
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * List of people with constant time access by position and by person's id.
+ * Positions of people are kept in {@link IntIntMap} id index.
+ * Removing a person only shifts the storage, the index of the following people is rebuilt lazily:
+ * until many people have moved, person is looked for next to its indexed position.
+ * People's categories are indexed by {@link PersonBitmapIndex}, so people can be filtered without reading them,
+ * names and occupations by {@link PersonPrefixIndex} for prefix search.
+ * Subclasses store people in chunks of {@link AbstractPersonStore#CHUNK_SIZE} positions.
+ * {@link AbstractPersonStore#snapshot()} shares the chunks with returned list, a chunk is copied
+ * on the first change of its shared positions, so editing one person copies one chunk
+ * (appending people doesn't copy anything).
+ * Changed positions are reported to {@link PeopleListener}.
+ * Subclasses store people's fields, see {@link PersonStore} and {@link ColumnarPersonStore}
+ */
+public abstract class AbstractPersonStore extends AbstractList<PersonModel> implements RandomAccess {
+
+    /**
+     * Binary logarithm of quantity of people stored in one chunk
+     */
+    protected static final int CHUNK_SHIFT = 12;
+
+    /**
+     * Quantity of people stored in one chunk
+     */
+    protected static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * Mask of position within its chunk
+     */
+    protected static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Quantity of people inserted or removed since id index was brought up to date, after which it is rebuilt
+     */
+    private static final int MAX_STALE_SHIFT = 256;
+
+    /**
+     * Quantity of people
+     */
+    protected int size;
+
+    /**
+     * Person's id - position index
+     */
+    private final IntIntMap slots = new IntIntMap(16);
+
+    /**
+     * Positions starting from this one may be stale in {@link AbstractPersonStore#slots}
+     */
+    private int indexedUpTo;
+
+    /**
+     * Quantity of people removed since id index was brought up to date (stale position is greater by at most it)
+     */
+    private int staleRemoved;
+
+    /**
+     * Quantity of people inserted since id index was brought up to date (stale position is less by at most it)
+     */
+    private int staleInserted;
+
+    /**
+     * Positions read while looking for people next to their stale positions since id index was brought up to date
+     */
+    private long staleReads;
+
+    /**
+     * Positions below this one are shared with the last snapshot
+     */
+    private int sharedSize;
+
+    /**
+     * Number of the last snapshot
+     */
+    private int epoch;
+
+    /**
+     * Numbers of snapshots after which chunks were copied, chunk is shared if its number isn't the last one
+     */
+    private int[] chunkEpochs = new int[0];
+
+    /**
+     * Index of people's categories by position
+     */
+    private final PersonBitmapIndex categories;
+
+    /**
+     * Index of people's names and occupations
+     */
+    private final PersonPrefixIndex prefixes;
+
+    /**
+     * Listener notified about changed positions (may be null)
+     */
+    private PeopleListener listener;
+
+    /**
+     * Constructor. Creates empty store
+     */
+    protected AbstractPersonStore() {
+        categories = new PersonBitmapIndex();
+        prefixes = new PersonPrefixIndex();
+    }
+
+    /**
+     * Returns person stored at position
+     *
+     * @param index position (less than size)
+     * @return {@link PersonModel} object
+     */
+    protected abstract PersonModel read(int index);
+
+    /**
+     * Stores person at position
+     *
+     * @param index  position (less than capacity)
+     * @param person {@link PersonModel} object
+     */
+    protected abstract void write(int index, PersonModel person);
+
+    /**
+     * Copies stored people to other position like {@link System#arraycopy}, ranges may overlap
+     *
+     * @param from   position of the first copied person
+     * @param to     position the first person is copied to
+     * @param length quantity of copied people
+     */
+    protected abstract void move(int from, int to, int length);
+
+    /**
+     * Forgets people stored at positions which are no longer used
+     *
+     * @param from position of the first person
+     * @param to   position after the last person
+     */
+    protected abstract void release(int from, int to);
+
+    /**
+     * Grows storage if it can't store given quantity of people
+     *
+     * @param capacity required capacity
+     */
+    public abstract void ensureCapacity(int capacity);
+
+    /**
+     * Returns immutable list reading current chunks of people (array of chunks is copied, chunks are shared)
+     *
+     * @return list of people in their order
+     */
+    protected abstract List<PersonModel> share();
+
+    /**
+     * Replaces chunk with its copy, the chunk is kept by snapshots
+     *
+     * @param chunk number of chunk
+     */
+    protected abstract void copyChunk(int chunk);
+
+    /**
+     * Replaces storage with empty one, the old storage is kept by snapshots
+     */
+    protected abstract void discard();
+
+    /**
+     * Returns person's id
+     *
+     * @param index position (less than size)
+     * @return id of person at position
+     */
+    public abstract int getId(int index);
+
+    /**
+     * Returns person's name
+     *
+     * @param index position (less than size)
+     * @return name of person at position
+     */
+    public abstract String getName(int index);
+
+    /**
+     * Returns person's occupation
+     *
+     * @param index position (less than size)
+     * @return occupation of person at position
+     */
+    public abstract String getOccupation(int index);
+
+    /**
+     * Returns person's age category
+     *
+     * @param index position (less than size)
+     * @return age category of person at position
+     */
+    public abstract AgeCategory getAgeCategory(int index);
+
+    /**
+     * Returns person's employment category
+     *
+     * @param index position (less than size)
+     * @return employment category of person at position
+     */
+    public abstract EmploymentCategory getEmpCat(int index);
+
+    /**
+     * Returns person's tax id
+     *
+     * @param index position (less than size)
+     * @return tax id of person at position
+     */
+    public abstract String getTaxId(int index);
+
+    /**
+     * Returns if person is US citizen
+     *
+     * @param index position (less than size)
+     * @return if person at position is US citizen
+     */
+    public abstract boolean isUsCitizen(int index);
+
+    /**
+     * Returns person's gender
+     *
+     * @param index position (less than size)
+     * @return gender of person at position
+     */
+    public abstract Gender getGender(int index);
+
+    /**
+     * Returns generation of person's last change
+     *
+     * @param index position (less than size)
+     * @return generation of person at position
+     */
+    public abstract long getGeneration(int index);
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position
+     * @return {@link PersonModel} object
+     */
+    @Override
+    public PersonModel get(int index) {
+        Objects.checkIndex(index, size);
+        return read(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return quantity of people
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index  position
+     * @param person new {@link PersonModel} object
+     * @return replaced person
+     */
+    @Override
+    public PersonModel set(int index, PersonModel person) {
+        Objects.checkIndex(index, size);
+        beforeChange(index, index + 1);
+        PersonModel old = read(index);
+        write(index, person);
+        categories.put(index, person);
+        if (old.getId() != person.getId()) {
+            slots.remove(old.getId());
+            slots.put(person.getId(), index);
+            prefixes.remove(old.getId());
+            prefixes.put(person.getId(), person.getName(), person.getOccupation());
+        } else if (!Objects.equals(old.getName(), person.getName())
+                || !Objects.equals(old.getOccupation(), person.getOccupation())) {
+            prefixes.put(person.getId(), person.getName(), person.getOccupation());
+        }
+        if (listener != null) listener.peopleUpdated(index, index);
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index  position
+     * @param person {@link PersonModel} to insert
+     */
+    @Override
+    public void add(int index, PersonModel person) {
+        Objects.checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+        beforeChange(index, size + 1);
+
+        if (index < size) {
+            move(index, index + 1, size - index);
+            categories.move(index, index + 1, size - index);
+            indexedUpTo = Math.min(indexedUpTo, index);
+            staleInserted++;
+        } else if (indexedUpTo == size) {
+            indexedUpTo++;
+        }
+
+        write(index, person);
+        categories.put(index, person);
+        size++;
+        slots.put(person.getId(), index);
+        prefixes.add(person.getId(), person.getName(), person.getOccupation());
+        modCount++;
+        if (listener != null) listener.peopleInserted(index, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param people people to append
+     * @return true if store was changed
+     */
+    @Override
+    public boolean addAll(Collection<? extends PersonModel> people) {
+        ensureCapacity(size + people.size());
+        for (PersonModel person : people) {
+            add(size, person);
+        }
+        return !people.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position
+     * @return removed person
+     */
+    @Override
+    public PersonModel remove(int index) {
+        Objects.checkIndex(index, size);
+        beforeChange(index, size);
+        PersonModel removed = read(index);
+
+        move(index + 1, index, size - index - 1);
+        categories.move(index + 1, index, size - index - 1);
+        release(size - 1, size);
+        categories.clear(size - 1, size);
+        size--;
+
+        slots.remove(removed.getId());
+        prefixes.remove(removed.getId());
+        indexedUpTo = Math.min(indexedUpTo, index);
+        staleRemoved++;
+        modCount++;
+        if (listener != null) listener.peopleDeleted(index, index);
+        return removed;
+    }
+
+    /**
+     * Removes people with given ids in one pass, so removing many people shifts the storage only once
+     *
+     * @param ids ids of people to remove (ids which aren't present are ignored)
+     * @return removed people in their order
+     */
+    public List<PersonModel> removeIds(Collection<Integer> ids) {
+        int[] indexes = new int[ids.size()];
+        int count = 0;
+        for (int id : ids) {
+            int index = indexOfId(id);
+            if (index >= 0) indexes[count++] = index;
+        }
+        Arrays.sort(indexes, 0, count);
+
+        // ids are removed from index after all are found (looking for them may rebuild it), repeated ones once
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique > 0 && indexes[unique - 1] == indexes[i]) continue;
+            indexes[unique++] = indexes[i];
+            slots.remove(getId(indexes[i]));
+        }
+        count = unique;
+
+        List<PersonModel> removed = new ArrayList<>(count);
+        if (count == 0) return removed;
+        int first = indexes[0];
+        beforeChange(first, size);
+
+        // each run of adjacent removed people is reported at its position after the previous runs were removed,
+        // people between two runs are moved down at once
+        int kept = first;
+        for (int r = 0; r < count; ) {
+            int runStart = indexes[r];
+            int runEnd = runStart;
+            while (++r < count && indexes[r] == runEnd + 1) {
+                runEnd++;
+            }
+            for (int i = runStart; i <= runEnd; i++) {
+                PersonModel person = read(i);
+                prefixes.remove(person.getId());
+                removed.add(person);
+            }
+            deleted(runStart, runEnd, runEnd + 1 - kept);
+
+            int next = r < count ? indexes[r] : size;
+            int length = next - runEnd - 1;
+            if (length > 0) {
+                move(runEnd + 1, kept, length);
+                categories.move(runEnd + 1, kept, length);
+            }
+            kept += length;
+        }
+        release(kept, size);
+        categories.clear(kept, size);
+        size = kept;
+
+        indexedUpTo = Math.min(indexedUpTo, first);
+        staleRemoved += count;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        int cleared = size;
+        if (sharedSize > 0) {
+            // nothing has to be copied, snapshots keep the old storage
+            discard();
+            sharedSize = 0;
+        } else {
+            release(0, size);
+        }
+        categories.clear(0, size);
+        size = 0;
+        indexedUpTo = 0;
+        staleRemoved = 0;
+        staleInserted = 0;
+        staleReads = 0;
+        slots.clear();
+        prefixes.clear();
+        modCount++;
+        if (listener != null && cleared > 0) listener.peopleDeleted(0, cleared - 1);
+    }
+
+    /**
+     * Returns immutable list of people which doesn't change together with the store,
+     * so it can be read from background thread while the store is changed.
+     * Copies only array of chunks, the chunks are copied later if shared people are changed
+     *
+     * @return list of people in their order
+     */
+    public List<PersonModel> snapshot() {
+        sharedSize = size;
+        epoch++;
+        int chunks = (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (chunkEpochs.length < chunks) {
+            chunkEpochs = Arrays.copyOf(chunkEpochs, Math.max(chunks, chunkEpochs.length * 2));
+        }
+        return share();
+    }
+
+    /**
+     * Returns position of person with given id
+     *
+     * @param id person's id
+     * @return position or -1 if there is no such person
+     */
+    public int indexOfId(int id) {
+        int slot = slots.get(id, -1);
+        if (slot < indexedUpTo) return slot;
+
+        // person has moved at most by quantity of people inserted or removed before it,
+        // index is rebuilt when looking for moved people costs more than rebuilding it
+        int from = Math.max(indexedUpTo, slot - staleRemoved);
+        int to = Math.min(size - 1, slot + staleInserted);
+        staleReads += to - from + 1;
+        if (staleRemoved + staleInserted <= MAX_STALE_SHIFT && staleReads <= size - indexedUpTo) {
+            for (int i = from; i <= to; i++) {
+                if (getId(i) == id) return i;
+            }
+        }
+        ensureIndexed();
+        return slots.get(id, -1);
+    }
+
+    /**
+     * Returns person with given id
+     *
+     * @param id person's id
+     * @return {@link PersonModel} object or null if there is no such person
+     */
+    public PersonModel getById(int id) {
+        int index = indexOfId(id);
+        return index < 0 ? null : read(index);
+    }
+
+    /**
+     * Returns positions of people matching query. Category conditions are answered by
+     * {@link PersonBitmapIndex}, only people matching them are read to check name and occupation prefixes
+     *
+     * @param query {@link PersonQuery} with conditions (its sorting and range are ignored)
+     * @return {@link Bitmap} with bits of matching positions set
+     */
+    public Bitmap select(PersonQuery query) {
+        Bitmap rows = categories.select(query, size);
+        if (query.getNamePrefix() == null && query.getOccupationPrefix() == null) return rows;
+
+        for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            if (!query.matchesPrefixes(getName(i), getOccupation(i))) rows.set(i, false);
+        }
+        return rows;
+    }
+
+    /**
+     * Counts people matching query
+     *
+     * @param query {@link PersonQuery} with conditions (its sorting and range are ignored)
+     * @return quantity of matching people
+     */
+    public int count(PersonQuery query) {
+        if (query.getNamePrefix() == null && query.getOccupationPrefix() == null) {
+            return categories.count(query, size);
+        }
+        return select(query).cardinality();
+    }
+
+    /**
+     * Returns state of names and occupations index which can be searched from background thread
+     *
+     * @return {@link PersonPrefixIndex.Snapshot} object
+     */
+    public PersonPrefixIndex.Snapshot searchSnapshot() {
+        return prefixes.snapshot();
+    }
+
+    /**
+     * Returns positions of people with given ids
+     *
+     * @param ids people's ids (ids which aren't present are ignored)
+     * @return {@link Bitmap} with bits of people's positions set
+     */
+    public Bitmap rowsOf(int[] ids) {
+        ensureIndexed();
+        Bitmap rows = new Bitmap(size);
+        for (int id : ids) {
+            int index = slots.get(id, -1);
+            if (index >= 0) rows.set(index, true);
+        }
+        return rows;
+    }
+
+    /**
+     * Sets object notified about changed positions
+     *
+     * @param listener {@link PeopleListener} object or null
+     */
+    public void setListener(PeopleListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns index of people's categories
+     *
+     * @return {@link AbstractPersonStore#categories}
+     */
+    protected PersonBitmapIndex getCategories() {
+        return categories;
+    }
+
+    /**
+     * Copies chunks shared with snapshot before people at positions are changed
+     *
+     * @param from the first changed position
+     * @param to   position after the last changed position
+     */
+    private void beforeChange(int from, int to) {
+        int end = Math.min(to, sharedSize);
+        if (from >= end) return;
+
+        for (int chunk = from >>> CHUNK_SHIFT, last = (end - 1) >>> CHUNK_SHIFT; chunk <= last; chunk++) {
+            if (chunkEpochs[chunk] != epoch) {
+                copyChunk(chunk);
+                chunkEpochs[chunk] = epoch;
+            }
+        }
+    }
+
+    /**
+     * Grows array of chunks to given capacity, new chunks are created by supplier
+     *
+     * @param chunks   array of chunks (e.g. int[][])
+     * @param capacity required quantity of positions
+     * @param newChunk creates empty chunk of {@link AbstractPersonStore#CHUNK_SIZE} positions
+     * @param <T>      type of chunk
+     * @return given array if it is large enough, otherwise new array
+     */
+    protected static <T> T[] growChunks(T[] chunks, int capacity, Supplier<T> newChunk) {
+        int count = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (count <= chunks.length) return chunks;
+
+        T[] grown = Arrays.copyOf(chunks, count);
+        for (int i = chunks.length; i < count; i++) {
+            grown[i] = newChunk.get();
+        }
+        return grown;
+    }
+
+    /**
+     * Copies positions of chunked array like {@link System#arraycopy}, ranges may overlap
+     *
+     * @param chunks array of chunks (e.g. int[][])
+     * @param from   the first copied position
+     * @param to     position the first one is copied to
+     * @param length quantity of copied positions
+     */
+    protected static void moveChunked(Object[] chunks, int from, int to, int length) {
+        if (to < from) {
+            while (length > 0) {
+                int n = Math.min(length, CHUNK_SIZE - Math.max(from & CHUNK_MASK, to & CHUNK_MASK));
+                System.arraycopy(chunks[from >>> CHUNK_SHIFT], from & CHUNK_MASK,
+                        chunks[to >>> CHUNK_SHIFT], to & CHUNK_MASK, n);
+                from += n;
+                to += n;
+                length -= n;
+            }
+        } else {
+            // copied from the end, so positions aren't overwritten before they are copied
+            int fromEnd = from + length;
+            int toEnd = to + length;
+            while (length > 0) {
+                int n = Math.min(length, Math.min(((fromEnd - 1) & CHUNK_MASK) + 1, ((toEnd - 1) & CHUNK_MASK) + 1));
+                fromEnd -= n;
+                toEnd -= n;
+                length -= n;
+                System.arraycopy(chunks[fromEnd >>> CHUNK_SHIFT], fromEnd & CHUNK_MASK,
+                        chunks[toEnd >>> CHUNK_SHIFT], toEnd & CHUNK_MASK, n);
+            }
+        }
+    }
+
+    /**
+     * Reports run of removed people
+     *
+     * @param from    position of the first removed person before removing
+     * @param to      position of the last removed person before removing
+     * @param removed quantity of removed people up to the last one, including the run
+     */
+    private void deleted(int from, int to, int removed) {
+        if (listener == null) return;
+        int shift = removed - (to - from + 1);
+        listener.peopleDeleted(from - shift, to - shift);
+    }
+
+    /**
+     * Brings id index up to date for positions shifted by inserting or removing
+     */
+    private void ensureIndexed() {
+        for (int i = indexedUpTo; i < size; i++) {
+            slots.put(getId(i), i);
+        }
+        indexedUpTo = size;
+        staleRemoved = 0;
+        staleInserted = 0;
+        staleReads = 0;
+    }
+}
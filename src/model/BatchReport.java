@@ -0,0 +1,93 @@
+package model;
+
+/**
+ * Class provides summary of one JDBC batch written by {@link Database#save()}
+ */
+public class BatchReport {
+
+    /**
+     * batch's number (start from 1)
+     */
+    private final int batch;
+
+    /**
+     * quantity of rows inserted by the batch
+     */
+    private final int inserted;
+
+    /**
+     * quantity of rows updated by the batch
+     */
+    private final int updated;
+
+    /**
+     * quantity of rows deleted by the batch
+     */
+    private final int deleted;
+
+    /**
+     * Constructor.
+     *
+     * @param batch    represents {@link BatchReport#batch}
+     * @param inserted represents {@link BatchReport#inserted}
+     * @param updated  represents {@link BatchReport#updated}
+     * @param deleted  represents {@link BatchReport#deleted}
+     */
+    public BatchReport(int batch, int inserted, int updated, int deleted) {
+        this.batch = batch;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Getter, returns batch's number
+     *
+     * @return {@link BatchReport#batch}
+     */
+    public int getBatch() {
+        return batch;
+    }
+
+    /**
+     * Getter, returns quantity of inserted rows
+     *
+     * @return {@link BatchReport#inserted}
+     */
+    public int getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Getter, returns quantity of updated rows
+     *
+     * @return {@link BatchReport#updated}
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Getter, returns quantity of deleted rows
+     *
+     * @return {@link BatchReport#deleted}
+     */
+    public int getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return BatchReport string representation
+     */
+    @Override
+    public String toString() {
+        return "Batch{" +
+                "batch=" + batch +
+                ", inserted=" + inserted +
+                ", updated=" + updated +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
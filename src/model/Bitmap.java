@@ -0,0 +1,247 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Growable set of bits stored in long words, one bit per row
+ */
+public class Bitmap {
+
+    /**
+     * Bits, bit i is bit (i % 64) of word (i / 64)
+     */
+    private long[] words;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity expected quantity of bits
+     */
+    public Bitmap(int capacity) {
+        words = new long[wordCount(capacity)];
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other bitmap to copy
+     */
+    public Bitmap(Bitmap other) {
+        words = other.words.clone();
+    }
+
+    /**
+     * Returns bit
+     *
+     * @param index position of bit
+     * @return true if bit is set
+     */
+    public boolean get(int index) {
+        int word = index >>> 6;
+        return word < words.length && (words[word] & 1L << index) != 0;
+    }
+
+    /**
+     * Sets or clears bit
+     *
+     * @param index position of bit
+     * @param value true to set bit, false to clear it
+     */
+    public void set(int index, boolean value) {
+        int word = index >>> 6;
+        if (value) {
+            ensureCapacity(index + 1);
+            words[word] |= 1L << index;
+        } else if (word < words.length) {
+            words[word] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Sets bits of range
+     *
+     * @param from position of the first bit
+     * @param to   position after the last bit
+     */
+    public void set(int from, int to) {
+        ensureCapacity(to);
+        for (int i = from; i < to; i += 64) {
+            putBits(i, -1L, Math.min(64, to - i));
+        }
+    }
+
+    /**
+     * Clears bits of range
+     *
+     * @param from position of the first bit
+     * @param to   position after the last bit
+     */
+    public void clear(int from, int to) {
+        to = Math.min(to, words.length << 6);
+        for (int i = from; i < to; i += 64) {
+            putBits(i, 0, Math.min(64, to - i));
+        }
+    }
+
+    /**
+     * Copies range of bits to other position like {@link System#arraycopy}, ranges may overlap
+     *
+     * @param from   position of the first copied bit
+     * @param to     position the first bit is copied to
+     * @param length quantity of copied bits
+     */
+    public void move(int from, int to, int length) {
+        if (length <= 0 || from == to) return;
+        ensureCapacity(to + length);
+        // chunks are copied in the order which doesn't overwrite bits before they are read
+        if (from > to) {
+            for (int i = 0; i < length; i += 64) {
+                putBits(to + i, getBits(from + i), Math.min(64, length - i));
+            }
+        } else {
+            for (int end = length; end > 0; end -= 64) {
+                int start = Math.max(0, end - 64);
+                putBits(to + start, getBits(from + start), end - start);
+            }
+        }
+    }
+
+    /**
+     * Returns position of the first set bit starting from given position
+     *
+     * @param from position to start from
+     * @return position of set bit or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) return -1;
+
+        long bits = words[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == words.length) return -1;
+            bits = words[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Keeps only bits which are set in other bitmap too
+     *
+     * @param other bitmap to AND with
+     */
+    public void and(Bitmap other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.getWord(i);
+        }
+    }
+
+    /**
+     * Sets bits which are set in other bitmap
+     *
+     * @param other bitmap to OR with
+     */
+    public void or(Bitmap other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * Clears bits which are set in other bitmap
+     *
+     * @param other bitmap which bits are cleared
+     */
+    public void andNot(Bitmap other) {
+        for (int i = 0, n = Math.min(words.length, other.words.length); i < n; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    /**
+     * Returns quantity of set bits
+     *
+     * @return set bits count
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Grows words if they can't store given quantity of bits
+     *
+     * @param capacity required quantity of bits
+     */
+    public void ensureCapacity(int capacity) {
+        int required = wordCount(capacity);
+        if (required > words.length) {
+            words = Arrays.copyOf(words, Math.max(required, words.length + (words.length >> 1)));
+        }
+    }
+
+    /**
+     * Returns size of words in bytes
+     *
+     * @return bytes used by bits
+     */
+    public long getByteSize() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * Returns word of bits
+     *
+     * @param word index of word
+     * @return bits of word (0 for words beyond capacity)
+     */
+    private long getWord(int word) {
+        return word < words.length ? words[word] : 0;
+    }
+
+    /**
+     * Returns 64 bits starting from any position
+     *
+     * @param from position of the first bit
+     * @return bits, the first one is the lowest
+     */
+    private long getBits(int from) {
+        int word = from >>> 6;
+        int shift = from & 63;
+        long bits = getWord(word) >>> shift;
+        return shift == 0 ? bits : bits | getWord(word + 1) << (64 - shift);
+    }
+
+    /**
+     * Overwrites up to 64 bits starting from any position, capacity must be ensured
+     *
+     * @param to     position of the first bit
+     * @param bits   bits, the first one is the lowest
+     * @param length quantity of bits (1 - 64)
+     */
+    private void putBits(int to, long bits, int length) {
+        long mask = length == 64 ? -1L : (1L << length) - 1;
+        int word = to >>> 6;
+        int shift = to & 63;
+        words[word] = words[word] & ~(mask << shift) | (bits & mask) << shift;
+        if (shift + length > 64) {
+            int written = 64 - shift;
+            words[word + 1] = words[word + 1] & ~(mask >>> written) | (bits & mask) >>> written;
+        }
+    }
+
+    /**
+     * Returns quantity of words storing given quantity of bits
+     *
+     * @param bits quantity of bits
+     * @return quantity of words
+     */
+    private static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
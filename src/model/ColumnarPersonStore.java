@@ -0,0 +1,511 @@
+package model;
+
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+
+import java.util.*;
+
+/**
+ * Person store keeping people's fields in columns of primitive arrays instead of {@link PersonModel} objects.
+ * Each column is split into chunks, categories are stored as ordinals in byte columns
+ * and strings as codes of {@link StringDictionary}.
+ * {@link ColumnarPersonStore#get(int)} creates new {@link PersonModel} object from columns,
+ * so changes of returned person are stored only by {@link ColumnarPersonStore#set(int, PersonModel)}
+ */
+public class ColumnarPersonStore extends AbstractPersonStore {
+
+    /**
+     * Age categories by ordinal
+     */
+    private static final AgeCategory[] AGE_CATEGORIES = AgeCategory.values();
+
+    /**
+     * Employment categories by ordinal
+     */
+    private static final EmploymentCategory[] EMPLOYMENT_CATEGORIES = EmploymentCategory.values();
+
+    /**
+     * Genders by ordinal
+     */
+    private static final Gender[] GENDERS = Gender.values();
+
+    /**
+     * People's ids
+     */
+    private int[][] ids;
+
+    /**
+     * Codes of people's names in {@link ColumnarPersonStore#names}
+     */
+    private int[][] nameCodes;
+
+    /**
+     * Codes of people's occupations in {@link ColumnarPersonStore#occupations}
+     */
+    private int[][] occupationCodes;
+
+    /**
+     * Codes of people's tax ids in {@link ColumnarPersonStore#taxIds}
+     */
+    private int[][] taxIdCodes;
+
+    /**
+     * Ordinals of people's age categories (-1 for null)
+     */
+    private byte[][] ageCategories;
+
+    /**
+     * Ordinals of people's employment categories (-1 for null)
+     */
+    private byte[][] empCats;
+
+    /**
+     * Ordinals of people's genders (-1 for null)
+     */
+    private byte[][] genders;
+
+    /**
+     * People's generations
+     */
+    private long[][] generations;
+
+    /**
+     * People's US citizenship (1 for US citizen)
+     */
+    private byte[][] usCitizens;
+
+    /**
+     * Dictionary of names
+     */
+    private final StringDictionary names;
+
+    /**
+     * Dictionary of occupations
+     */
+    private final StringDictionary occupations;
+
+    /**
+     * Dictionary of tax ids
+     */
+    private final StringDictionary taxIds;
+
+    /**
+     * Constructor. Creates empty store
+     */
+    public ColumnarPersonStore() {
+        allocate();
+        names = new StringDictionary();
+        occupations = new StringDictionary();
+        taxIds = new StringDictionary();
+    }
+
+    /**
+     * Constructor. Creates store with given people
+     *
+     * @param people people in their order
+     */
+    public ColumnarPersonStore(Collection<? extends PersonModel> people) {
+        this();
+        addAll(people);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return new {@link PersonModel} object
+     */
+    @Override
+    protected PersonModel read(int index) {
+        PersonModel person = new PersonModel(getId(index), getName(index), getOccupation(index),
+                getAgeCategory(index), getEmpCat(index), getTaxId(index),
+                isUsCitizen(index), getGender(index));
+        person.setGeneration(getGeneration(index));
+        return person;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index  position (less than capacity)
+     * @param person {@link PersonModel} object
+     */
+    @Override
+    protected void write(int index, PersonModel person) {
+        int chunk = index >>> CHUNK_SHIFT;
+        int offset = index & CHUNK_MASK;
+        ids[chunk][offset] = person.getId();
+        nameCodes[chunk][offset] = names.encode(person.getName());
+        occupationCodes[chunk][offset] = occupations.encode(person.getOccupation());
+        taxIdCodes[chunk][offset] = taxIds.encode(person.getTaxId());
+        ageCategories[chunk][offset] = ordinal(person.getAgeCategory());
+        empCats[chunk][offset] = ordinal(person.getEmpCat());
+        genders[chunk][offset] = ordinal(person.getGender());
+        generations[chunk][offset] = person.getGeneration();
+        usCitizens[chunk][offset] = (byte) (person.isUsCitizen() ? 1 : 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param from   position of the first copied person
+     * @param to     position the first person is copied to
+     * @param length quantity of copied people
+     */
+    @Override
+    protected void move(int from, int to, int length) {
+        moveChunked(ids, from, to, length);
+        moveChunked(nameCodes, from, to, length);
+        moveChunked(occupationCodes, from, to, length);
+        moveChunked(taxIdCodes, from, to, length);
+        moveChunked(ageCategories, from, to, length);
+        moveChunked(empCats, from, to, length);
+        moveChunked(genders, from, to, length);
+        moveChunked(generations, from, to, length);
+        moveChunked(usCitizens, from, to, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Dictionary entries of released people are kept until the store is cleared
+     *
+     * @param from position of the first person
+     * @param to   position after the last person
+     */
+    @Override
+    protected void release(int from, int to) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * Also empties dictionaries
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        names.clear();
+        occupations.clear();
+        taxIds.clear();
+    }
+
+    /**
+     * Adds chunks to columns if they can't store given quantity of people
+     *
+     * @param capacity required capacity
+     */
+    @Override
+    public void ensureCapacity(int capacity) {
+        ids = growChunks(ids, capacity, () -> new int[CHUNK_SIZE]);
+        nameCodes = growChunks(nameCodes, capacity, () -> new int[CHUNK_SIZE]);
+        occupationCodes = growChunks(occupationCodes, capacity, () -> new int[CHUNK_SIZE]);
+        taxIdCodes = growChunks(taxIdCodes, capacity, () -> new int[CHUNK_SIZE]);
+        ageCategories = growChunks(ageCategories, capacity, () -> new byte[CHUNK_SIZE]);
+        empCats = growChunks(empCats, capacity, () -> new byte[CHUNK_SIZE]);
+        genders = growChunks(genders, capacity, () -> new byte[CHUNK_SIZE]);
+        generations = growChunks(generations, capacity, () -> new long[CHUNK_SIZE]);
+        usCitizens = growChunks(usCitizens, capacity, () -> new byte[CHUNK_SIZE]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Chunks of columns and dictionaries are shared
+     *
+     * @return list reading current columns
+     */
+    @Override
+    protected List<PersonModel> share() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param chunk number of chunk
+     */
+    @Override
+    protected void copyChunk(int chunk) {
+        ids[chunk] = ids[chunk].clone();
+        nameCodes[chunk] = nameCodes[chunk].clone();
+        occupationCodes[chunk] = occupationCodes[chunk].clone();
+        taxIdCodes[chunk] = taxIdCodes[chunk].clone();
+        ageCategories[chunk] = ageCategories[chunk].clone();
+        empCats[chunk] = empCats[chunk].clone();
+        genders[chunk] = genders[chunk].clone();
+        generations[chunk] = generations[chunk].clone();
+        usCitizens[chunk] = usCitizens[chunk].clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void discard() {
+        allocate();
+    }
+
+    /**
+     * Returns size of columns and dictionaries in bytes
+     *
+     * @return bytes used by store arrays
+     */
+    public long getByteSize() {
+        long perPerson = Integer.BYTES * 4 + 4 + Long.BYTES;
+        return (long) ids.length * CHUNK_SIZE * perPerson + getCategories().getByteSize()
+                + names.getByteSize() + occupations.getByteSize() + taxIds.getByteSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return id of person at position
+     */
+    @Override
+    public int getId(int index) {
+        return ids[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return name of person at position
+     */
+    @Override
+    public String getName(int index) {
+        return names.decode(nameCodes[index >>> CHUNK_SHIFT][index & CHUNK_MASK]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return occupation of person at position
+     */
+    @Override
+    public String getOccupation(int index) {
+        return occupations.decode(occupationCodes[index >>> CHUNK_SHIFT][index & CHUNK_MASK]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return age category of person at position
+     */
+    @Override
+    public AgeCategory getAgeCategory(int index) {
+        int ordinal = ageCategories[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        return ordinal < 0 ? null : AGE_CATEGORIES[ordinal];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return employment category of person at position
+     */
+    @Override
+    public EmploymentCategory getEmpCat(int index) {
+        int ordinal = empCats[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        return ordinal < 0 ? null : EMPLOYMENT_CATEGORIES[ordinal];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return tax id of person at position
+     */
+    @Override
+    public String getTaxId(int index) {
+        return taxIds.decode(taxIdCodes[index >>> CHUNK_SHIFT][index & CHUNK_MASK]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return if person at position is US citizen
+     */
+    @Override
+    public boolean isUsCitizen(int index) {
+        return usCitizens[index >>> CHUNK_SHIFT][index & CHUNK_MASK] != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return gender of person at position
+     */
+    @Override
+    public Gender getGender(int index) {
+        int ordinal = genders[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        return ordinal < 0 ? null : GENDERS[ordinal];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return generation of person at position
+     */
+    @Override
+    public long getGeneration(int index) {
+        return generations[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Replaces columns with empty ones without chunks
+     */
+    private void allocate() {
+        ids = new int[0][];
+        nameCodes = new int[0][];
+        occupationCodes = new int[0][];
+        taxIdCodes = new int[0][];
+        ageCategories = new byte[0][];
+        empCats = new byte[0][];
+        genders = new byte[0][];
+        generations = new long[0][];
+        usCitizens = new byte[0][];
+    }
+
+    /**
+     * Returns ordinal of enum value as byte
+     *
+     * @param value enum value or null
+     * @return ordinal or -1 for null
+     */
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+
+    /**
+     * Immutable list of people stored in columns at the moment of snapshot.
+     * Later appended people are written after its size, other changes copy the chunk first
+     */
+    private static final class Snapshot extends AbstractList<PersonModel> implements RandomAccess {
+
+        /**
+         * People's ids
+         */
+        private final int[][] ids;
+
+        /**
+         * Codes of people's names
+         */
+        private final int[][] nameCodes;
+
+        /**
+         * Codes of people's occupations
+         */
+        private final int[][] occupationCodes;
+
+        /**
+         * Codes of people's tax ids
+         */
+        private final int[][] taxIdCodes;
+
+        /**
+         * Ordinals of people's age categories (-1 for null)
+         */
+        private final byte[][] ageCategories;
+
+        /**
+         * Ordinals of people's employment categories (-1 for null)
+         */
+        private final byte[][] empCats;
+
+        /**
+         * Ordinals of people's genders (-1 for null)
+         */
+        private final byte[][] genders;
+
+        /**
+         * People's generations
+         */
+        private final long[][] generations;
+
+        /**
+         * People's US citizenship (1 for US citizen)
+         */
+        private final byte[][] usCitizens;
+
+        /**
+         * Dictionary of names
+         */
+        private final StringDictionary names;
+
+        /**
+         * Dictionary of occupations
+         */
+        private final StringDictionary occupations;
+
+        /**
+         * Dictionary of tax ids
+         */
+        private final StringDictionary taxIds;
+
+        /**
+         * Quantity of people
+         */
+        private final int size;
+
+        /**
+         * Constructor.
+         *
+         * @param store store which chunks are shared
+         */
+        private Snapshot(ColumnarPersonStore store) {
+            ids = store.ids.clone();
+            nameCodes = store.nameCodes.clone();
+            occupationCodes = store.occupationCodes.clone();
+            taxIdCodes = store.taxIdCodes.clone();
+            ageCategories = store.ageCategories.clone();
+            empCats = store.empCats.clone();
+            genders = store.genders.clone();
+            generations = store.generations.clone();
+            usCitizens = store.usCitizens.clone();
+            names = store.names.readOnly();
+            occupations = store.occupations.readOnly();
+            taxIds = store.taxIds.readOnly();
+            size = store.size;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param index position
+         * @return new {@link PersonModel} object
+         */
+        @Override
+        public PersonModel get(int index) {
+            Objects.checkIndex(index, size);
+            int chunk = index >>> CHUNK_SHIFT;
+            int offset = index & CHUNK_MASK;
+            int age = ageCategories[chunk][offset];
+            int empCat = empCats[chunk][offset];
+            int gender = genders[chunk][offset];
+
+            PersonModel person = new PersonModel(ids[chunk][offset],
+                    names.decode(nameCodes[chunk][offset]), occupations.decode(occupationCodes[chunk][offset]),
+                    age < 0 ? null : AGE_CATEGORIES[age], empCat < 0 ? null : EMPLOYMENT_CATEGORIES[empCat],
+                    taxIds.decode(taxIdCodes[chunk][offset]), usCitizens[chunk][offset] != 0,
+                    gender < 0 ? null : GENDERS[gender]);
+            person.setGeneration(generations[chunk][offset]);
+            return person;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @return quantity of people
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class provides small pool of JDBC connections.
+ * Connections are validated on borrowing and closed after being idle for too long
+ */
+public class ConnectionPool {
+
+    /**
+     * Seconds to wait for {@link Connection#isValid(int)} answer
+     */
+    private static final int VALIDATION_TIMEOUT = 2;
+
+    /**
+     * Connection's url
+     */
+    private final String url;
+
+    /**
+     * Database user name
+     */
+    private final String user;
+
+    /**
+     * Database user password
+     */
+    private final String password;
+
+    /**
+     * Minimum quantity of connections kept open
+     */
+    private final int minSize;
+
+    /**
+     * Maximum quantity of connections opened at the same time
+     */
+    private final int maxSize;
+
+    /**
+     * Milliseconds to wait for free connection
+     */
+    private final long borrowTimeout;
+
+    /**
+     * Milliseconds after which idle connection above {@link ConnectionPool#minSize} is closed
+     */
+    private final long idleTimeout;
+
+    /**
+     * Permits for opened connections (one permit per connection)
+     */
+    private final Semaphore permits;
+
+    /**
+     * Idle connections, the most recently used first
+     */
+    private final Deque<IdleConnection> idle;
+
+    /**
+     * Thread evicting idle connections
+     */
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Quantity of borrowed connections (metrics)
+     */
+    private final AtomicLong borrowCount = new AtomicLong();
+
+    /**
+     * Total time spent waiting for connections, in nanoseconds (metrics)
+     */
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    /**
+     * The longest time spent waiting for connection, in nanoseconds (metrics)
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * If pool is closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor. Opens {@link ConnectionPool#minSize} connections and starts evicting idle ones
+     *
+     * @param url           connection's url
+     * @param user          user name
+     * @param password      user password
+     * @param minSize       minimum quantity of connections kept open
+     * @param maxSize       maximum quantity of connections
+     * @param borrowTimeout milliseconds to wait for free connection
+     * @param idleTimeout   milliseconds after which idle connection is closed
+     * @throws SQLException if connection can't be opened
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long borrowTimeout, long idleTimeout) throws SQLException {
+
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: " + minSize + ".." + maxSize);
+        }
+
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeout = borrowTimeout;
+        this.idleTimeout = idleTimeout;
+        this.permits = new Semaphore(maxSize, true);
+        this.idle = new ArrayDeque<>();
+
+        try {
+            for (int i = 0; i < minSize; i++) {
+                idle.push(new IdleConnection(open()));
+            }
+        } catch (SQLException e) {
+            for (IdleConnection candidate : idle) {
+                closeQuietly(candidate.connection);
+            }
+            throw e;
+        }
+
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleTimeout / 2, 1000);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens new physical connection
+     *
+     * @return {@link Connection} object
+     * @throws SQLException if connection can't be opened
+     */
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Method takes valid connection from the pool.
+     * Waits if all {@link ConnectionPool#maxSize} connections are in use.
+     * Borrowed connection has to be returned with {@link ConnectionPool#release(Connection)}
+     *
+     * @return {@link Connection} object
+     * @throws SQLException if pool is closed, waiting timed out or connection can't be opened
+     */
+    public Connection borrow() throws SQLException {
+
+        if (closed) throw new SQLException("Connection pool is closed");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database connection");
+        }
+
+        long waited = System.nanoTime() - start;
+        borrowCount.incrementAndGet();
+        waitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        try {
+            IdleConnection candidate;
+            while ((candidate = pollIdle()) != null) {
+                if (isValid(candidate.connection)) return candidate.connection;
+                closeQuietly(candidate.connection);
+            }
+            return open();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Method returns borrowed connection to the pool
+     *
+     * @param conn connection taken with {@link ConnectionPool#borrow()}
+     */
+    public void release(Connection conn) {
+        if (conn == null) return;
+
+        boolean reuse = !closed;
+        if (reuse) {
+            try {
+                // next borrower expects a fresh connection
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                reuse = false;
+            }
+        }
+
+        if (reuse) {
+            synchronized (idle) {
+                idle.push(new IdleConnection(conn));
+            }
+        } else {
+            closeQuietly(conn);
+        }
+        permits.release();
+    }
+
+    /**
+     * Method closes pool and all idle connections.
+     * Borrowed connections are closed when released
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+
+        synchronized (idle) {
+            for (IdleConnection candidate : idle) {
+                closeQuietly(candidate.connection);
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * Method closes connections which are idle longer than {@link ConnectionPool#idleTimeout},
+     * keeping at least {@link ConnectionPool#minSize} of them open
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+
+        synchronized (idle) {
+            // the least recently used ones are at the tail
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minSize) {
+                IdleConnection candidate = it.next();
+                if (now - candidate.since < idleTimeout) break;
+                it.remove();
+                closeQuietly(candidate.connection);
+            }
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection
+     *
+     * @return idle connection or null if there are none
+     */
+    private IdleConnection pollIdle() {
+        synchronized (idle) {
+            return idle.poll();
+        }
+    }
+
+    /**
+     * Checks whether connection is still alive
+     *
+     * @param conn connection to validate
+     * @return true if connection can be used
+     */
+    private static boolean isValid(Connection conn) {
+        try {
+            return conn.isValid(VALIDATION_TIMEOUT);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes connection ignoring errors
+     *
+     * @param conn connection to close
+     */
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.out.println("Can't close connection");
+        }
+    }
+
+    /**
+     * Returns quantity of idle connections
+     *
+     * @return size of idle connections
+     */
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Returns quantity of borrowed connections
+     *
+     * @return borrowed connections quantity
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * Returns how many times connection was borrowed
+     *
+     * @return borrowing quantity
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Returns average time spent waiting for connection
+     *
+     * @return average waiting time in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : waitNanos.get() / 1_000_000.0 / count;
+    }
+
+    /**
+     * Returns the longest time spent waiting for connection
+     *
+     * @return maximum waiting time in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return ConnectionPool string representation with metrics
+     */
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", borrowed=" + getBorrowCount() +
+                ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis()) +
+                ", maxWaitMs=" + String.format("%.3f", getMaxWaitMillis()) +
+                '}';
+    }
+
+    /**
+     * Idle connection with time it was returned to the pool
+     */
+    private static class IdleConnection {
+
+        /**
+         * Pooled connection
+         */
+        private final Connection connection;
+
+        /**
+         * Time when connection became idle, in milliseconds
+         */
+        private final long since;
+
+        /**
+         * Constructor.
+         *
+         * @param connection idle connection
+         */
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.since = System.currentTimeMillis();
+        }
+    }
+}
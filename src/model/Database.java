@@ -3,10 +3,25 @@ package model;
 import model.enums.AgeCategory;
 import model.enums.EmploymentCategory;
 import model.enums.Gender;
+import model.enums.IdConflict;
+import model.io.BlockPersonFile;
+import model.io.PersonDeltaFile;
+import model.io.PersonFileFormat;
+import model.io.PersonFileReader;
+import model.io.PersonFileWriter;
+import model.io.PersonJournal;
+import model.io.PersonTextFormat;
+import model.io.PersonTextReader;
+import model.io.PersonTextWriter;
 
 import java.io.*;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Class responsible to perform operations with database
@@ -14,14 +29,149 @@ import java.util.*;
 public class Database {
 
     /**
-     * List of People
+     * Default quantity of rows sent in one JDBC batch
      */
-    private final List<PersonModel> people;
+    public static final int DEFAULT_BATCH_SIZE = 500;
 
     /**
-     * Connection object
+     * Default quantity of rows fetched from database at once while loading
      */
-    private Connection conn;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Default minimum quantity of pooled connections
+     */
+    public static final int DEFAULT_POOL_MIN_SIZE = 1;
+
+    /**
+     * Default maximum quantity of pooled connections
+     */
+    public static final int DEFAULT_POOL_MAX_SIZE = 4;
+
+    /**
+     * Quantity of people's ids reserved in database at once
+     */
+    private static final int ID_BLOCK_SIZE = 1000;
+
+    /**
+     * Milliseconds to wait for free pooled connection
+     */
+    private static final long POOL_BORROW_TIMEOUT = 30_000;
+
+    /**
+     * Milliseconds after which idle pooled connection is closed
+     */
+    private static final long POOL_IDLE_TIMEOUT = 5 * 60_000;
+
+    /**
+     * Columns of people table in order expected by {@link Database#readPerson(ResultSet)}
+     */
+    private static final String SELECT_COLUMNS =
+            "SELECT id, name, age, employment_status, tax_id, us_citizen, gender, occupation FROM people ";
+
+    /**
+     * Statement for inserting person
+     */
+    private static final String INSERT_SQL = "INSERT INTO people " +
+            "(id, name, age, employment_status, tax_id, us_citizen, gender, occupation) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Statement reserving block of people's ids in sequence table,
+     * the new next id is kept by LAST_INSERT_ID() of the connection
+     */
+    private static final String RESERVE_IDS_SQL = "UPDATE id_sequences " +
+            "SET next_id = LAST_INSERT_ID(GREATEST(next_id, ?) + ?) WHERE name = 'people'";
+
+    /**
+     * Statement for updating person
+     */
+    private static final String UPDATE_SQL = "UPDATE people SET " +
+            "name=?, age=?, employment_status=?, tax_id=?, us_citizen=?, gender=?, occupation=? " +
+            "WHERE id=?";
+
+    /**
+     * List of People (indexed by position and by id)
+     */
+    private AbstractPersonStore people;
+
+    /**
+     * View of people list given to other classes, follows the store when it is switched
+     */
+    private final PeopleView view;
+
+    /**
+     * Immutable snapshot of people list published after each change, read by other threads without locking
+     */
+    private final AtomicReference<List<PersonModel>> published = new AtomicReference<>(Collections.emptyList());
+
+    /**
+     * People added or edited since the last save
+     */
+    private final PersonChangeSet changes;
+
+    /**
+     * Changes being saved (token - changes), tokens identify them in the journal
+     */
+    private final Map<Integer, PersonChangeSet> saving = new LinkedHashMap<>();
+
+    /**
+     * Token of the last taken changes
+     */
+    private int lastToken;
+
+    /**
+     * Journal recording every change of people list (null if it isn't opened)
+     */
+    private PersonJournal journal;
+
+    /**
+     * Generation of the last change of people list. Generations are milliseconds of the change
+     * (or the next number if clock hasn't moved), so watermarks of exports stay valid after restart
+     */
+    private long generation;
+
+    /**
+     * Generations of removing people (person's id - generation), tombstones for delta exports
+     */
+    private final Map<Integer, Long> removedAt = new HashMap<>();
+
+    /**
+     * Generations of people changed before reloading (person's id - generation), given back to reloaded people
+     */
+    private final Map<Integer, Long> reloadedAt = new HashMap<>();
+
+    /**
+     * If people list is loaded from database. Loaded people aren't journaled then,
+     * replaying journal loads them again
+     */
+    private boolean loadedFromDatabase;
+
+    /**
+     * Unsaved changes recovered from journal of people list loaded from database, applied to people
+     * by the next load (null if there are none)
+     */
+    private PersonChangeSet reloadChanges;
+
+    /**
+     * Recovered changes applied to people of the current load (null if there are none)
+     */
+    private PersonChangeSet loadChanges;
+
+    /**
+     * Allocator of new people's ids, reserves blocks of them in database
+     */
+    private final IdAllocator ids = new IdAllocator(this::reserveIdBlock, ID_BLOCK_SIZE);
+
+    /**
+     * Listener notified about changes of people list (may be null)
+     */
+    private PeopleListener peopleListener;
+
+    /**
+     * Pool of database connections (created on connect)
+     */
+    private ConnectionPool pool;
 
     /**
      * Database port
@@ -38,11 +188,33 @@ public class Database {
      */
     private String password;
 
+    /**
+     * Quantity of rows sent in one JDBC batch
+     */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Quantity of rows fetched from database at once while loading (and size of loaded chunks)
+     */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /**
+     * Minimum quantity of pooled connections
+     */
+    private int poolMinSize = DEFAULT_POOL_MIN_SIZE;
+
+    /**
+     * Maximum quantity of pooled connections
+     */
+    private int poolMaxSize = DEFAULT_POOL_MAX_SIZE;
+
     /**
      * Constructor. Initializes people list
      */
     public Database() {
-        this.people = new LinkedList<>();
+        this.people = new PersonStore();
+        this.view = new PeopleView(people);
+        this.changes = new PersonChangeSet();
     }
 
     /**
@@ -59,221 +231,1557 @@ public class Database {
     }
 
     /**
-     * Method used for set initial values for Database connection
+     * Method used for set initial values for Database connection.
+     * If credentials are changed, pool is closed and reopened on the next connect
      *
      * @param port     port value
      * @param user     user name value
      * @param password passwor value
      * @throws SQLException if driver doesn't exists
      */
-    public void configure(int port, String user, String password) throws SQLException {
+    public synchronized void configure(int port, String user, String password) throws SQLException {
+
+        boolean changed = port != this.port || !Objects.equals(user, this.user)
+                || !Objects.equals(password, this.password);
 
         this.port = port;
         this.user = user;
         this.password = password;
 
-        if (conn != null) return;
+        if (pool != null) {
+            if (!changed) return;
+            disconnect();
+        }
 
         driverMySQLClassExists();
     }
 
     /**
-     * Connect to DataBase if not connected earlier
+     * Sets size of connection pool. Is applied on the next connect
+     *
+     * @param minSize minimum quantity of pooled connections
+     * @param maxSize maximum quantity of pooled connections
+     */
+    public synchronized void setPoolSize(int minSize, int maxSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: " + minSize + ".." + maxSize);
+        }
+        this.poolMinSize = minSize;
+        this.poolMaxSize = maxSize;
+    }
+
+    /**
+     * Connect to DataBase (opens connection pool) if not connected earlier.
+     * Ids reserved before connecting are forgotten, new block is reserved in the connected database
+     * on calling thread (if it fails, adding people fails until a block is reserved)
      *
      * @throws Exception if driver not found
      */
     public void connect() throws Exception {
+        // allocator calls back into database while reserving, so it isn't touched under database lock
+        if (openPool()) {
+            ids.reset();
+            ids.fill();
+        }
+    }
+
+    /**
+     * Opens connection pool if it isn't opened
+     *
+     * @return true if pool was opened
+     * @throws Exception if driver not found
+     */
+    private synchronized boolean openPool() throws Exception {
 
-        if (conn != null) return;
+        if (pool != null) return false;
 
         driverMySQLClassExists();
 
         // connecting to db
-        String url = "jdbc:mysql://localhost:" + this.port + "/swingtest?serverTimezone=UTC";
-        conn = DriverManager.getConnection(url, this.user, this.password);
+        String url = "jdbc:mysql://localhost:" + this.port + "/swingtest?serverTimezone=UTC&rewriteBatchedStatements=true&useCursorFetch=true";
+        pool = new ConnectionPool(url, this.user, this.password, poolMinSize, poolMaxSize,
+                POOL_BORROW_TIMEOUT, POOL_IDLE_TIMEOUT);
+        return true;
     }
 
     /**
      * Method disconnects from database
      */
-    public void disconnect() {
-        if (conn != null) {
-            try {
-                conn.close();
-            } catch (SQLException e) {
-                System.out.println("Can't close connection");
+    public synchronized void disconnect() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * Returns connection pool to read its metrics
+     *
+     * @return {@link ConnectionPool} object or null if not connected
+     */
+    public synchronized ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Returns pool of connected database
+     *
+     * @return {@link ConnectionPool} object
+     * @throws SQLException if not connected
+     */
+    private synchronized ConnectionPool requirePool() throws SQLException {
+        if (pool == null) throw new SQLException("Not connected to database");
+        return pool;
+    }
+
+    /**
+     * Returns id for new person. Can be called from any thread.
+     * If executor for reserving ids is set, only ids reserved ahead are handed out and database is never queried,
+     * otherwise database is queried when block of {@link Database#ID_BLOCK_SIZE} ids is used up
+     *
+     * @return unused person's id
+     * @throws IllegalStateException if there are no reserved ids (e.g. reserving failed)
+     */
+    public int nextId() {
+        return ids.next();
+    }
+
+    /**
+     * Sets executor reserving blocks of ids ahead, so {@link Database#nextId()} never waits for database
+     *
+     * @param executor executor for database queries (null - ids are reserved by thread which needs them)
+     */
+    public void setIdExecutor(Executor executor) {
+        ids.setPrefetcher(executor);
+    }
+
+    /**
+     * Reserves ids in database on calling thread, so each imported person can get new id
+     * without waiting when they are merged. Must not be called from the Event Dispatch Thread
+     *
+     * @param imported people which will be merged
+     * @throws SQLException if ids can't be reserved
+     */
+    public void reserveIdsFor(List<PersonModel> imported) throws SQLException {
+        // ids below imported ones are skipped when merging, so they aren't counted
+        idsUsed(imported);
+        ids.reserve(imported.size());
+    }
+
+    /**
+     * Reserves block of ids in id_sequences table of connected database.
+     * If database isn't connected, block is taken above the greatest known id
+     *
+     * @param size  quantity of ids in block
+     * @param above every id of block has to be greater than this one
+     * @return the first id of block
+     * @throws SQLException if block can't be reserved in connected database
+     */
+    private int reserveIdBlock(int size, int above) throws SQLException {
+        ConnectionPool pool = getConnectionPool();
+        if (pool == null) return above + 1;
+
+        Connection conn = pool.borrow();
+        try (PreparedStatement reserveStmt = conn.prepareStatement(RESERVE_IDS_SQL);
+             Statement selectStmt = conn.createStatement()) {
+            reserveStmt.setInt(1, above + 1);
+            reserveStmt.setInt(2, size);
+            if (reserveStmt.executeUpdate() == 0) {
+                throw new SQLException("Sequence 'people' not found, apply mysql_migration_02_id_sequences.sql");
+            }
+
+            try (ResultSet results = selectStmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                results.next();
+                return (int) (results.getLong(1) - size);
             }
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Tells id allocator about ids of people which got them elsewhere, so they aren't allocated again
+     *
+     * @param used loaded or imported people
+     */
+    private void idsUsed(Collection<PersonModel> used) {
+        int highest = 0;
+        for (PersonModel p : used) {
+            highest = Math.max(highest, p.getId());
+        }
+        if (highest > 0) ids.used(highest);
+    }
+
+    /**
+     * Method saves people added, edited or removed since the last save to database.
+     * If saving fails, changes are kept and rewritten on the next save
+     *
+     * @return list of {@link BatchReport}s, one per batch
+     * @throws SQLException if exception occurs while preparing the statement
+     */
+    public List<BatchReport> save() throws SQLException {
+        PersonChangeSet pending = takeChanges();
+        try {
+            List<BatchReport> reports = save(pending, report -> {
+            });
+            changesSaved(pending);
+            return reports;
+        } catch (SQLException e) {
+            restoreChanges(pending);
+            throw e;
         }
     }
 
     /**
-     * Method saves all the people to database (one by one)
+     * Method writes given changes to database.
+     * Removed people are deleted first, then others are sent
+     * in JDBC batches of {@link Database#batchSize} rows,
+     * each batch is committed in its own transaction.
+     * Method doesn't touch people list, so it can be called from background thread
      *
+     * @param pending       changes taken with {@link Database#takeChanges()}
+     * @param batchListener receives {@link BatchReport} after each committed batch
+     * @return list of {@link BatchReport}s, one per batch
      * @throws SQLException if exception occurs while preparing the statement
      */
-    public void save() throws SQLException {
+    public List<BatchReport> save(PersonChangeSet pending, Consumer<BatchReport> batchListener) throws SQLException {
 
-        String checkSQL = "SELECT COUNT(*) AS count FROM people WHERE id=?";
-        PreparedStatement checkStmt = conn.prepareStatement(checkSQL);
+        List<BatchReport> reports = new ArrayList<>();
 
-        String insertSql = "INSERT INTO people " +
-                "(id, name, age, employment_status, tax_id, us_citizen, gender, occupation) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        PreparedStatement insertStmt = conn.prepareStatement(insertSql);
+        if (pending.isEmpty()) return reports;
 
-        String updateSql = "UPDATE people SET " +
-                "name=?, age=?, employment_status=?, tax_id=?, us_citizen=?, gender=?, occupation=? " +
-                "WHERE id=?";
-        PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+        ConnectionPool pool = requirePool();
+        Connection conn = pool.borrow();
 
-        for (PersonModel person : people) {
-            int id = person.getId();
-            String name = person.getName();
-            String occupation = person.getOccupation();
-            AgeCategory age = person.getAgeCategory();
-            EmploymentCategory emp = person.getEmpCat();
-            String tax = person.getTaxId();
-            boolean isUs = person.isUsCitizen();
-            Gender gender = person.getGender();
+        try (PreparedStatement insertStmt = conn.prepareStatement(INSERT_SQL);
+             PreparedStatement updateStmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            checkStmt.setInt(1, id);
-            ResultSet checkResult = checkStmt.executeQuery();
-            checkResult.next();
-            int count = checkResult.getInt(1);
+            conn.setAutoCommit(false);
 
-            int col = 1;
+            List<Integer> removed = pending.getRemoved();
+            for (int from = 0; from < removed.size(); from += batchSize) {
+                List<Integer> ids = removed.subList(from, Math.min(from + batchSize, removed.size()));
+                reports.add(deleteBatch(conn, reports.size() + 1, ids));
+                batchListener.accept(reports.get(reports.size() - 1));
+            }
 
-            if (count == 0) {
-                System.out.println("Inserting person with ID " + id);
+            List<PersonModel> chunk = new ArrayList<>(batchSize);
 
-                insertStmt.setInt(col++, id);
-                insertStmt.setString(col++, name);
-                insertStmt.setString(col++, age.name());
-                insertStmt.setString(col++, emp.name());
-                insertStmt.setString(col++, tax);
-                insertStmt.setBoolean(col++, isUs);
-                insertStmt.setString(col++, gender.name());
-                insertStmt.setString(col, occupation);
+            for (PersonModel person : pending.getChanged()) {
+                chunk.add(person);
+                if (chunk.size() == batchSize) {
+                    reports.add(saveBatch(conn, reports.size() + 1, chunk, insertStmt, updateStmt));
+                    batchListener.accept(reports.get(reports.size() - 1));
+                    chunk.clear();
+                }
+            }
 
-                insertStmt.executeUpdate();
-            } else {
-                System.out.println("Updating person with ID " + id);
-
-                updateStmt.setString(col++, name);
-                updateStmt.setString(col++, age.name());
-                updateStmt.setString(col++, emp.name());
-                updateStmt.setString(col++, tax);
-                updateStmt.setBoolean(col++, isUs);
-                updateStmt.setString(col++, gender.name());
-                updateStmt.setString(col++, occupation);
-                updateStmt.setInt(col, id);
-
-                updateStmt.executeUpdate();
+            if (!chunk.isEmpty()) {
+                reports.add(saveBatch(conn, reports.size() + 1, chunk, insertStmt, updateStmt));
+                batchListener.accept(reports.get(reports.size() - 1));
             }
+        } catch (SQLException e) {
+            // batches committed before the failure stay in the database,
+            // rewriting them on the next save is harmless
+            conn.rollback();
+            throw e;
+        } finally {
+            pool.release(conn);
         }
 
-        insertStmt.close();
-        checkStmt.close();
+        return reports;
     }
 
     /**
-     * Method loads all data from people table
+     * Takes changes recorded since the last save, so they can be written by {@link Database#save(PersonChangeSet, Consumer)}
      *
-     * @throws SQLException if exception occurs while preparing the statement or querying
+     * @return {@link PersonChangeSet} with taken changes
      */
-    public void load() throws SQLException {
-        people.clear();
+    public PersonChangeSet takeChanges() {
+        PersonChangeSet taken = changes.take();
+        int token = ++lastToken;
+        saving.put(token, taken);
 
-        String sql = "SELECT id, name, age, employment_status, tax_id, us_citizen, gender, occupation " +
-                "FROM people " +
-                "ORDER BY name";
-        Statement selectStatement = conn.createStatement();
+        if (journal != null) {
+            journal.changesTaken(token);
+            journaled();
+        }
+        return taken;
+    }
 
-        ResultSet results = selectStatement.executeQuery(sql);
+    /**
+     * Puts back changes which failed to be written
+     *
+     * @param pending changes taken with {@link Database#takeChanges()}
+     */
+    public void restoreChanges(PersonChangeSet pending) {
+        changes.restore(pending);
 
-        while (results.next()) {
-            int id = results.getInt("id");
-            String name = results.getString("name");
-            String age = results.getString("age");
-            String emp = results.getString("employment_status");
-            String taxId = results.getString("tax_id");
-            boolean isUs = results.getBoolean("us_citizen");
-            String gender = results.getString("gender");
-            String occ = results.getString("occupation");
+        int token = savingToken(pending);
+        if (token > 0 && journal != null) {
+            journal.changesRestored(token);
+            journaled();
+        }
+    }
 
-            PersonModel person = new PersonModel(id, name, occ,
-                    AgeCategory.valueOf(age), EmploymentCategory.valueOf(emp),
-                    taxId, isUs, Gender.valueOf(gender));
-            people.add(person);
-            System.out.println(person);
+    /**
+     * Forgets changes which were written
+     *
+     * @param pending changes taken with {@link Database#takeChanges()}
+     */
+    public void changesSaved(PersonChangeSet pending) {
+        int token = savingToken(pending);
+        if (token > 0 && journal != null) {
+            journal.changesSaved(token);
+            journaled();
         }
+    }
 
-        results.close();
-        selectStatement.close();
+    /**
+     * Finds and forgets token of changes being saved
+     *
+     * @param pending changes taken with {@link Database#takeChanges()}
+     * @return token or 0 if changes are unknown
+     */
+    private int savingToken(PersonChangeSet pending) {
+        for (Iterator<Map.Entry<Integer, PersonChangeSet>> it = saving.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, PersonChangeSet> entry = it.next();
+            if (entry.getValue() == pending) {
+                it.remove();
+                return entry.getKey();
+            }
+        }
+        return 0;
     }
 
     /**
-     * Adds person to the list
+     * Method writes one chunk of people in a single transaction.
+     * Rows which already exist are updated, the others are inserted
      *
-     * @param person {@link PersonModel} object to add
+     * @param conn       connection with open transaction
+     * @param number     batch's number
+     * @param chunk      people to write
+     * @param insertStmt prepared {@link Database#INSERT_SQL} statement
+     * @param updateStmt prepared {@link Database#UPDATE_SQL} statement
+     * @return {@link BatchReport} for the chunk
+     * @throws SQLException if exception occurs while querying
      */
-    public void addPerson(PersonModel person) {
-        people.add(person);
+    private BatchReport saveBatch(Connection conn, int number, List<PersonModel> chunk,
+                                  PreparedStatement insertStmt, PreparedStatement updateStmt) throws SQLException {
+
+        Set<Integer> existing = findExistingIds(conn, chunk);
+
+        int inserted = 0;
+        int updated = 0;
+
+        for (PersonModel person : chunk) {
+            int col = 1;
+
+            if (existing.contains(person.getId())) {
+                updateStmt.setString(col++, person.getName());
+                updateStmt.setString(col++, person.getAgeCategory().name());
+                updateStmt.setString(col++, person.getEmpCat().name());
+                updateStmt.setString(col++, person.getTaxId());
+                updateStmt.setBoolean(col++, person.isUsCitizen());
+                updateStmt.setString(col++, person.getGender().name());
+                updateStmt.setString(col++, person.getOccupation());
+                updateStmt.setInt(col, person.getId());
+                updateStmt.addBatch();
+                updated++;
+            } else {
+                insertStmt.setInt(col++, person.getId());
+                insertStmt.setString(col++, person.getName());
+                insertStmt.setString(col++, person.getAgeCategory().name());
+                insertStmt.setString(col++, person.getEmpCat().name());
+                insertStmt.setString(col++, person.getTaxId());
+                insertStmt.setBoolean(col++, person.isUsCitizen());
+                insertStmt.setString(col++, person.getGender().name());
+                insertStmt.setString(col, person.getOccupation());
+                insertStmt.addBatch();
+                inserted++;
+            }
+        }
+
+        // with rewriteBatchedStatements driver reports SUCCESS_NO_INFO, so rows are counted while binding
+        if (inserted > 0) insertStmt.executeBatch();
+        if (updated > 0) updateStmt.executeBatch();
+
+        conn.commit();
+
+        return new BatchReport(number, inserted, updated, 0);
+    }
+
+    /**
+     * Method deletes people with given ids with one statement in a single transaction
+     *
+     * @param conn   connection with open transaction
+     * @param number batch's number
+     * @param ids    ids of removed people
+     * @return {@link BatchReport} for the deletion
+     * @throws SQLException if exception occurs while querying
+     */
+    private BatchReport deleteBatch(Connection conn, int number, List<Integer> ids) throws SQLException {
+
+        int deleted;
+
+        try (PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM people WHERE id IN (" +
+                placeholders(ids.size()) + ")")) {
+            int col = 1;
+            for (int id : ids) {
+                deleteStmt.setInt(col++, id);
+            }
+            deleted = deleteStmt.executeUpdate();
+        }
+
+        conn.commit();
+
+        return new BatchReport(number, 0, 0, deleted);
     }
 
     /**
-     * Removes person from the people list
+     * Method builds comma separated list of JDBC parameter placeholders
      *
-     * @param row index to remove
+     * @param count quantity of placeholders
+     * @return string like "?, ?, ?"
      */
-    public void removePerson(int row) {
-        people.remove(row);
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
     }
 
     /**
-     * Returns list of persons from the table
+     * Method selects ids of given people which are already stored in database
+     * (one query for the whole chunk)
      *
-     * @return List of {@link PersonModel}s objects
+     * @param conn  connection to query with
+     * @param chunk people to check
+     * @return set of existing ids
+     * @throws SQLException if exception occurs while querying
      */
-    public List<PersonModel> getPeople() {
-        // prevent other classes from modifying list they retrieve
-        return Collections.unmodifiableList(people);
+    private Set<Integer> findExistingIds(Connection conn, List<PersonModel> chunk) throws SQLException {
+
+        String sql = "SELECT id FROM people WHERE id IN (" + placeholders(chunk.size()) + ")";
+
+        Set<Integer> existing = new HashSet<>();
+
+        try (PreparedStatement checkStmt = conn.prepareStatement(sql)) {
+            int col = 1;
+            for (PersonModel person : chunk) {
+                checkStmt.setInt(col++, person.getId());
+            }
+
+            try (ResultSet results = checkStmt.executeQuery()) {
+                while (results.next()) {
+                    existing.add(results.getInt(1));
+                }
+            }
+        }
+
+        return existing;
     }
 
     /**
-     * Writes array of {@link PersonModel} to given file
+     * Sets quantity of rows sent in one JDBC batch
      *
-     * @param file {@link File} given file, where info is to be stored
-     * @throws IOException if failed to write the file
+     * @param batchSize rows per batch (must be positive)
      */
-    public void saveToFile(File file) throws IOException {
-        FileOutputStream fos = new FileOutputStream(file);
-        ObjectOutputStream oos = new ObjectOutputStream(fos);
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Method loads all data from people table
+     *
+     * @throws SQLException if exception occurs while preparing the statement or querying
+     */
+    public void load() throws SQLException {
+        beginLoad();
+        load(this::appendLoaded);
+    }
+
+    /**
+     * Method streams all data from people table with a server side cursor.
+     * Rows are passed to consumer in chunks of {@link Database#fetchSize} as they arrive,
+     * people list itself is not touched, so method can be called from background thread.
+     * Loading stops if calling thread is interrupted
+     *
+     * @param chunkConsumer receives loaded chunks of {@link PersonModel}s
+     * @throws SQLException if exception occurs while preparing the statement or querying
+     */
+    public void load(Consumer<List<PersonModel>> chunkConsumer) throws SQLException {
 
-        PersonModel[] persons = people.toArray(new PersonModel[people.size()]);
+        String sql = SELECT_COLUMNS + "ORDER BY name";
+        ConnectionPool pool = requirePool();
+        Connection conn = pool.borrow();
 
-        oos.writeObject(persons);
-        oos.close();
+        try (Statement selectStatement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            selectStatement.setFetchSize(fetchSize);
+
+            try (ResultSet results = selectStatement.executeQuery(sql)) {
+
+                List<PersonModel> chunk = new ArrayList<>(fetchSize);
+
+                while (results.next()) {
+                    chunk.add(readPerson(results));
+
+                    if (chunk.size() == fetchSize) {
+                        if (Thread.currentThread().isInterrupted()) return;
+                        chunkConsumer.accept(chunk);
+                        chunk = new ArrayList<>(fetchSize);
+                    }
+                }
+
+                if (!chunk.isEmpty()) chunkConsumer.accept(chunk);
+            }
+        } finally {
+            pool.release(conn);
+        }
     }
 
     /**
-     * Gets all persons from the given file. Writes it to the table
+     * Method creates person from current row of result set
      *
-     * @param file {@link File} given file, where info is stored
-     * @throws IOException if failed to read the file
+     * @param results result set of query started with {@link Database#SELECT_COLUMNS}
+     * @return {@link PersonModel} object
+     * @throws SQLException if exception occurs while reading the row
      */
-    public void loadFromFile(File file) throws IOException {
-        FileInputStream fis = new FileInputStream(file);
-        ObjectInputStream ois = new ObjectInputStream(fis);
+    private static PersonModel readPerson(ResultSet results) throws SQLException {
+        int id = results.getInt("id");
+        String name = results.getString("name");
+        String age = results.getString("age");
+        String emp = results.getString("employment_status");
+        String taxId = results.getString("tax_id");
+        boolean isUs = results.getBoolean("us_citizen");
+        String gender = results.getString("gender");
+        String occ = results.getString("occupation");
 
-        try {
-            PersonModel[] person = (PersonModel[]) ois.readObject();
-            people.clear();
-            people.addAll(Arrays.asList(person));
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+        return new PersonModel(id, name, occ,
+                AgeCategory.valueOf(age), EmploymentCategory.valueOf(emp),
+                taxId, isUs, Gender.valueOf(gender));
+    }
+
+    /**
+     * Method counts people stored in database which match the query
+     *
+     * @param query conditions people have to match
+     * @return quantity of matching rows in people table
+     * @throws SQLException if exception occurs while querying
+     */
+    public int countPeople(PersonQuery query) throws SQLException {
+        ConnectionPool pool = requirePool();
+        Connection conn = pool.borrow();
+
+        try (PreparedStatement countStmt = conn.prepareStatement("SELECT COUNT(*) FROM people " +
+                where(query.toConditions()))) {
+            query.bind(countStmt, 1);
+
+            try (ResultSet results = countStmt.executeQuery()) {
+                results.next();
+                return results.getInt(1);
+            }
+        } finally {
+            pool.release(conn);
         }
+    }
 
-        ois.close();
+    /**
+     * Method selects people which match the query, sorted and limited as query says.
+     * Doesn't touch people list, so it can be called from background thread
+     *
+     * @param query conditions, sorting and range
+     * @return list of {@link PersonModel}s
+     * @throws SQLException if exception occurs while querying
+     */
+    public List<PersonModel> query(PersonQuery query) throws SQLException {
+        ConnectionPool pool = requirePool();
+        Connection conn = pool.borrow();
+
+        String sql = SELECT_COLUMNS + where(query.toConditions()) + query.toOrderBy() + " " + query.toLimit();
+
+        try (PreparedStatement queryStmt = conn.prepareStatement(sql)) {
+            query.bind(queryStmt, 1);
+            return readPage(queryStmt, fetchSize);
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Method loads page of people matching the query, ordered by (name, id),
+     * which follows given key (keyset pagination).
+     * Doesn't touch people list, so it can be called from background thread
+     *
+     * @param query     conditions people have to match (its sorting and range are ignored)
+     * @param afterName name of the last person of previous page or null for the first page
+     * @param afterId   id of the last person of previous page
+     * @param limit     page size
+     * @return list of {@link PersonModel}s
+     * @throws SQLException if exception occurs while querying
+     */
+    public List<PersonModel> loadPage(PersonQuery query, String afterName, int afterId, int limit) throws SQLException {
+        ConnectionPool pool = requirePool();
+        Connection conn = pool.borrow();
+
+        String conditions = query.toConditions();
+        if (afterName != null) {
+            conditions = (conditions.isEmpty() ? "" : conditions + " AND ") + "(name > ? OR (name = ? AND id > ?))";
+        }
+        String sql = SELECT_COLUMNS + where(conditions) + "ORDER BY name, id LIMIT ?";
+
+        try (PreparedStatement pageStmt = conn.prepareStatement(sql)) {
+            int col = query.bind(pageStmt, 1);
+            if (afterName != null) {
+                pageStmt.setString(col++, afterName);
+                pageStmt.setString(col++, afterName);
+                pageStmt.setInt(col++, afterId);
+            }
+            pageStmt.setInt(col, limit);
+
+            return readPage(pageStmt, limit);
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Method loads page of people matching the query, ordered by (name, id), starting at given position.
+     * Used when previous page's key is unknown (e.g. scrollbar was dragged far away)
+     *
+     * @param query  conditions people have to match (its sorting and range are ignored)
+     * @param offset position of the first person
+     * @param limit  page size
+     * @return list of {@link PersonModel}s
+     * @throws SQLException if exception occurs while querying
+     */
+    public List<PersonModel> loadPageAt(PersonQuery query, int offset, int limit) throws SQLException {
+        ConnectionPool pool = requirePool();
+        Connection conn = pool.borrow();
+
+        String sql = SELECT_COLUMNS + where(query.toConditions()) + "ORDER BY name, id LIMIT ? OFFSET ?";
+
+        try (PreparedStatement pageStmt = conn.prepareStatement(sql)) {
+            int col = query.bind(pageStmt, 1);
+            pageStmt.setInt(col++, limit);
+            pageStmt.setInt(col, offset);
+
+            return readPage(pageStmt, limit);
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Method builds WHERE clause
+     *
+     * @param conditions conditions joined with AND
+     * @return WHERE clause or empty string if there are no conditions
+     */
+    private static String where(String conditions) {
+        return conditions.isEmpty() ? "" : "WHERE " + conditions + " ";
+    }
+
+    /**
+     * Method executes page query
+     *
+     * @param pageStmt prepared page statement
+     * @param limit    expected page size
+     * @return list of {@link PersonModel}s
+     * @throws SQLException if exception occurs while querying
+     */
+    private static List<PersonModel> readPage(PreparedStatement pageStmt, int limit) throws SQLException {
+        List<PersonModel> page = new ArrayList<>(Math.min(limit, DEFAULT_FETCH_SIZE));
+        try (ResultSet results = pageStmt.executeQuery()) {
+            while (results.next()) {
+                page.add(readPerson(results));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Method prepares people list for loading: clears people and their changes
+     */
+    public void beginLoad() {
+        reloadedAt.clear();
+        for (int i = 0; i < people.size(); i++) {
+            long changedAt = people.getGeneration(i);
+            if (changedAt > 0) reloadedAt.put(people.getId(i), changedAt);
+        }
+
+        people.clear();
+        changes.clear();
+        loadedFromDatabase = true;
+
+        loadChanges = reloadChanges;
+        if (loadChanges != null) {
+            // people added in previous session may be missing in database
+            changes.restore(loadChanges);
+            people.addAll(loadChanges.getAdded());
+        }
+
+        if (journal != null) {
+            journal.cleared();
+            journal.loaded();
+            markChanges(changes);
+            journaled();
+        }
+        publish();
+    }
+
+    /**
+     * Appends loaded people to the list. They are not marked as changed
+     *
+     * @param chunk loaded {@link PersonModel}s
+     */
+    public void appendLoaded(List<PersonModel> chunk) {
+        if (loadChanges != null) {
+            reloadChanges = null;
+            chunk = applyLoadChanges(chunk);
+        }
+        if (!reloadedAt.isEmpty() || !removedAt.isEmpty()) {
+            for (PersonModel p : chunk) {
+                Long changedAt = reloadedAt.remove(p.getId());
+                if (changedAt != null) {
+                    p.setGeneration(changedAt);
+                } else if (removedAt.remove(p.getId()) != null) {
+                    // removal wasn't saved, person is back
+                    p.setGeneration(nextGeneration());
+                }
+            }
+        }
+        people.addAll(chunk);
+        idsUsed(chunk);
+
+        // journal has mark of loading, people are loaded again on replay
+        publish();
+    }
+
+    /**
+     * Applies recovered unsaved changes to loaded people
+     *
+     * @param chunk loaded {@link PersonModel}s
+     * @return people to append
+     */
+    private List<PersonModel> applyLoadChanges(List<PersonModel> chunk) {
+        List<PersonModel> applied = new ArrayList<>(chunk.size());
+        for (PersonModel p : chunk) {
+            // added people are in the list already, removed ones aren't loaded
+            if (loadChanges.isRemoved(p.getId()) || people.indexOfId(p.getId()) >= 0) continue;
+            PersonModel edited = loadChanges.getPerson(p.getId());
+            applied.add(edited != null ? edited : p);
+        }
+        return applied;
+    }
+
+    /**
+     * Sets quantity of rows fetched from database at once while loading
+     *
+     * @param fetchSize rows per fetch (must be positive)
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("Fetch size must be positive");
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Adds person to the list
+     *
+     * @param person {@link PersonModel} object to add
+     */
+    public void addPerson(PersonModel person) {
+        person.setGeneration(nextGeneration());
+        removedAt.remove(person.getId());
+        ids.used(person.getId());
+        people.add(person);
+        changes.personAdded(person);
+
+        if (journal != null) {
+            journal.personAdded(person);
+            journaled();
+        }
+        publish();
+    }
+
+    /**
+     * Marks person as edited, so it will be written on the next save.
+     * Person is found by id index, so its position in table doesn't matter
+     *
+     * @param id id of edited person (unknown ids are ignored)
+     */
+    public void personChanged(int id) {
+        int index = people.indexOfId(id);
+        if (index < 0) return;
+
+        // published snapshots may share the person, so generation is set on a copy written back
+        PersonModel person = new PersonModel(people.get(index));
+        person.setGeneration(nextGeneration());
+        people.set(index, person);
+        changes.personUpdated(person);
+
+        if (journal != null) {
+            journal.personUpdated(person);
+            journaled();
+        }
+        publish();
+    }
+
+    /**
+     * Removes person from the people list.
+     * Person will be deleted from database on the next save
+     *
+     * @param id id of person to remove (unknown ids are ignored)
+     */
+    public void removePerson(int id) {
+        int index = people.indexOfId(id);
+        if (index < 0) return;
+
+        PersonModel person = people.remove(index);
+        removedAt.put(person.getId(), nextGeneration());
+        changes.personRemoved(person);
+
+        if (journal != null) {
+            journal.personRemoved(person.getId());
+            journaled();
+        }
+        publish();
+    }
+
+    /**
+     * Edits people with given ids as one change: each person is edited on a copy and marked as changed,
+     * people list is published once, so the table is notified once.
+     * All copies are edited before any person is replaced, so if edit fails nothing is changed
+     *
+     * @param ids  ids of people to edit (unknown ids are ignored)
+     * @param edit changes person's copy, must not change its id
+     * @return quantity of edited people
+     * @throws IllegalArgumentException if edit changed id of any person
+     */
+    public int editPeople(Collection<Integer> ids, Consumer<PersonModel> edit) {
+        List<PersonModel> edited = new ArrayList<>(ids.size());
+        IntIntMap indexes = new IntIntMap(ids.size());
+
+        for (int id : ids) {
+            int index = people.indexOfId(id);
+            if (index < 0 || indexes.get(id, -1) >= 0) continue;
+
+            // published snapshots may share the person, so a copy is edited
+            PersonModel person = new PersonModel(people.get(index));
+            edit.accept(person);
+            if (person.getId() != id) throw new IllegalArgumentException("Person's id can't be changed");
+            indexes.put(id, index);
+            edited.add(person);
+        }
+
+        if (edited.isEmpty()) return 0;
+
+        long generation = nextGeneration();
+        for (PersonModel person : edited) {
+            person.setGeneration(generation);
+            people.set(indexes.get(person.getId(), -1), person);
+            changes.personUpdated(person);
+            if (journal != null) journal.personUpdated(person);
+        }
+
+        if (journal != null) journaled();
+        publish();
+        return edited.size();
+    }
+
+    /**
+     * Removes people with given ids as one change. The store is compacted in one pass
+     * and people list is published once. People will be deleted from database on the next save
+     *
+     * @param ids ids of people to remove (unknown ids are ignored)
+     * @return quantity of removed people
+     */
+    public int removePeople(Collection<Integer> ids) {
+        long removal = nextGeneration();
+        List<PersonModel> removed = people.removeIds(ids);
+        if (removed.isEmpty()) return 0;
+
+        for (PersonModel p : removed) {
+            removedAt.put(p.getId(), removal);
+            changes.personRemoved(p);
+            if (journal != null) journal.personRemoved(p.getId());
+        }
+
+        if (journal != null) journaled();
+        publish();
+        return removed.size();
+    }
+
+    /**
+     * Returns person with given id
+     *
+     * @param id person's id
+     * @return {@link PersonModel} object or null if there is no such person
+     */
+    public PersonModel getPersonById(int id) {
+        return people.getById(id);
+    }
+
+    /**
+     * Returns position of person with given id
+     *
+     * @param id person's id
+     * @return position or -1 if there is no such person
+     */
+    public int indexOfPerson(int id) {
+        return people.indexOfId(id);
+    }
+
+    /**
+     * Returns list of persons from the table
+     *
+     * @return List of {@link PersonModel}s objects
+     */
+    public List<PersonModel> getPeople() {
+        // prevent other classes from adding or removing people, edited people are written back by set
+        return view;
+    }
+
+    /**
+     * Sets object notified about changed people and published snapshots.
+     * People list has to be changed only on the listener's thread (the Event Dispatch Thread for the GUI)
+     *
+     * @param peopleListener {@link PeopleListener} object or null
+     */
+    public void setPeopleListener(PeopleListener peopleListener) {
+        this.peopleListener = peopleListener;
+        people.setListener(peopleListener);
+    }
+
+    /**
+     * Returns immutable snapshot of people list published after the last change.
+     * It can be read from any thread without locking while the list is changed
+     *
+     * @return list of people in their order
+     */
+    public List<PersonModel> snapshotPeople() {
+        return published.get();
+    }
+
+    /**
+     * Selects positions of people in people list (not in database) which match the query.
+     * Categories are answered by bitmap index, so it doesn't read people unless query has prefixes
+     *
+     * @param query conditions people have to match (its sorting and range are ignored)
+     * @return {@link Bitmap} with bits of matching positions set
+     */
+    public Bitmap selectLoaded(PersonQuery query) {
+        return people.select(query);
+    }
+
+    /**
+     * Returns state of names and occupations index of people list.
+     * It can be searched from background thread while people list is changed
+     *
+     * @return {@link PersonPrefixIndex.Snapshot} object
+     */
+    public PersonPrefixIndex.Snapshot searchSnapshot() {
+        return people.searchSnapshot();
+    }
+
+    /**
+     * Returns current positions of people with given ids in people list
+     *
+     * @param ids people's ids (ids which aren't present are ignored)
+     * @return {@link Bitmap} with bits of people's positions set
+     */
+    public Bitmap rowsOf(int[] ids) {
+        return people.rowsOf(ids);
+    }
+
+    /**
+     * Counts people in people list (not in database) which match the query
+     *
+     * @param query conditions people have to match (its sorting and range are ignored)
+     * @return quantity of matching people
+     */
+    public int countLoaded(PersonQuery query) {
+        return people.count(query);
+    }
+
+    /**
+     * Switches storage of people list. Columnar store keeps fields in primitive arrays and
+     * dictionaries instead of {@link PersonModel} objects, so it needs much less memory for big lists
+     *
+     * @param columnar true to store people in columns, false to store {@link PersonModel} objects
+     */
+    public void setColumnar(boolean columnar) {
+        if (columnar == isColumnar()) return;
+        people = columnar ? new ColumnarPersonStore(people) : new PersonStore(people);
+        people.setListener(peopleListener);
+        view.setStore(people);
+    }
+
+    /**
+     * Returns if people list is stored in columns
+     *
+     * @return true if people are kept in {@link ColumnarPersonStore}
+     */
+    public boolean isColumnar() {
+        return people instanceof ColumnarPersonStore;
+    }
+
+    /**
+     * Writes people to given file in binary person format
+     *
+     * @param file {@link File} given file, where info is to be stored
+     * @throws IOException if failed to write the file
+     */
+    public void saveToFile(File file) throws IOException {
+        writeToFile(file, snapshotPeople());
+    }
+
+    /**
+     * Writes given people to file. Doesn't touch people list, so it can be called from background thread
+     *
+     * @param file    {@link File} given file, where info is to be stored
+     * @param persons people to write
+     * @throws IOException if failed to write the file
+     */
+    public static void writeToFile(File file, List<PersonModel> persons) throws IOException {
+        writeToFile(file, persons, false);
+    }
+
+    /**
+     * Writes given people to file, optionally split into compressed blocks.
+     * Doesn't touch people list, so it can be called from background thread
+     *
+     * @param file       {@link File} given file, where info is to be stored
+     * @param persons    people to write
+     * @param compressed if file is compressed
+     * @throws IOException if failed to write the file
+     */
+    public static void writeToFile(File file, List<PersonModel> persons, boolean compressed) throws IOException {
+        try (PersonFileWriter writer = new PersonFileWriter(file, compressed)) {
+            writer.writeAll(persons);
+        }
+    }
+
+    /**
+     * Gets all persons from the given file. Writes it to the table
+     *
+     * @param file {@link File} given file, where info is stored
+     * @throws IOException if failed to read the file
+     */
+    public void loadFromFile(File file) throws IOException {
+        replacePeople(readFromFile(file));
+    }
+
+    /**
+     * Reads all persons from the given file. Doesn't touch people list, so it can be called from background thread.
+     * Binary, compressed (blocks are decompressed in parallel) and legacy (serialized array) files are supported
+     *
+     * @param file {@link File} given file, where info is stored
+     * @return list of read {@link PersonModel}s
+     * @throws IOException if failed to read the file
+     */
+    public static List<PersonModel> readFromFile(File file) throws IOException {
+        switch (PersonFileFormat.detect(file)) {
+            case binary:
+                try (PersonFileReader reader = new PersonFileReader(file)) {
+                    return reader.readAll();
+                }
+            case compressed:
+                try (BlockPersonFile reader = new BlockPersonFile(file)) {
+                    return reader.readAll();
+                }
+            case legacy:
+                return readLegacyFile(file);
+            case delta:
+                throw new IOException("Delta file has to be imported on top of people list");
+            default:
+                throw new IOException("Unknown file content");
+        }
+    }
+
+    /**
+     * Writes given people to CSV or JSON lines file.
+     * Doesn't touch people list, so it can be called from background thread
+     *
+     * @param file    {@link File} given file, where info is to be stored
+     * @param persons people to write
+     * @param format  format of the file
+     * @throws IOException if failed to write the file
+     */
+    public static void writeToTextFile(File file, List<PersonModel> persons, PersonTextFormat format)
+            throws IOException {
+        try (PersonTextWriter writer = new PersonTextWriter(file, format)) {
+            writer.writeAll(persons);
+        }
+    }
+
+    /**
+     * Reads all persons from CSV or JSON lines file.
+     * Doesn't touch people list, so it can be called from background thread
+     *
+     * @param file   {@link File} given file, where info is stored
+     * @param format format of the file
+     * @return list of read {@link PersonModel}s
+     * @throws IOException if failed to read the file or it has malformed record
+     */
+    public static List<PersonModel> readFromTextFile(File file, PersonTextFormat format) throws IOException {
+        try (PersonTextReader reader = new PersonTextReader(file, format)) {
+            return reader.readAll();
+        }
+    }
+
+    /**
+     * Reads given files in parallel on the common {@link ForkJoinPool}.
+     * Doesn't touch people list, so it can be called from background thread.
+     * File which can't be read doesn't stop reading of the others, its error is kept in its {@link FileImport}
+     *
+     * @param files files to read
+     * @return {@link FileImport} of each file in the order of files
+     */
+    public static List<FileImport> readFromFiles(List<File> files) {
+        FileImport[] imports = new FileImport[files.size()];
+        ForkJoinPool.commonPool().invoke(new ReadFilesTask(files, imports, 0, imports.length));
+        return Arrays.asList(imports);
+    }
+
+    /**
+     * Adds imported people to the list. All of them have to be saved.
+     * New ids have to be reserved before (see {@link Database#reserveIdsFor(List)}), nothing is added if there are
+     * fewer ids than conflicting people
+     *
+     * @param imported imported {@link PersonModel}s
+     * @param conflict what to do with imported person which id is already used
+     * @return quantity of people which ids were already used
+     * @throws IllegalStateException if new ids are assigned and there are too few reserved ids
+     */
+    public int mergePeople(List<PersonModel> imported, IdConflict conflict) {
+        // new ids are allocated above ids of all imported people
+        idsUsed(imported);
+        if (conflict == IdConflict.assignNewId) ids.require(countConflicts(imported));
+
+        int conflicts = 0;
+        long merged = nextGeneration();
+        people.ensureCapacity(people.size() + imported.size());
+
+        for (PersonModel p : imported) {
+            int index = people.indexOfId(p.getId());
+            if (index < 0) {
+                p.setGeneration(merged);
+                removedAt.remove(p.getId());
+                people.add(p);
+                changes.personAdded(p);
+                if (journal != null) journal.personAdded(p);
+                continue;
+            }
+
+            conflicts++;
+            switch (conflict) {
+                case replaceExisting:
+                    p.setGeneration(merged);
+                    people.set(index, p);
+                    changes.personUpdated(p);
+                    if (journal != null) journal.personUpdated(p);
+                    break;
+                case assignNewId:
+                    PersonModel copy = new PersonModel(nextId(), p.getName(), p.getOccupation(), p.getAgeCategory(),
+                            p.getEmpCat(), p.getTaxId(), p.isUsCitizen(), p.getGender());
+                    copy.setGeneration(merged);
+                    removedAt.remove(copy.getId());
+                    people.add(copy);
+                    changes.personAdded(copy);
+                    if (journal != null) journal.personAdded(copy);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (journal != null) journaled();
+        publish();
+        return conflicts;
+    }
+
+    /**
+     * Counts imported people which ids are used by people in the list or by imported people before them
+     *
+     * @param imported imported {@link PersonModel}s
+     * @return quantity of people which get new ids when merged
+     */
+    private int countConflicts(List<PersonModel> imported) {
+        IntIntMap seen = new IntIntMap(imported.size());
+        int conflicts = 0;
+        for (PersonModel p : imported) {
+            if (seen.get(p.getId(), -1) >= 0 || people.indexOfId(p.getId()) >= 0) {
+                conflicts++;
+            } else {
+                seen.put(p.getId(), 0);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Reads persons from file written by Java serialization of PersonModel[]
+     *
+     * @param file {@link File} given file, where info is stored
+     * @return list of read {@link PersonModel}s
+     * @throws IOException if failed to read the file
+     */
+    private static List<PersonModel> readLegacyFile(File file) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            return Arrays.asList((PersonModel[]) ois.readObject());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown file content", e);
+        }
+    }
+
+    /**
+     * Replaces people with imported ones. All of them have to be saved.
+     * People deleted before and not imported again are still deleted on the next save
+     *
+     * @param imported imported {@link PersonModel}s
+     */
+    public void replacePeople(List<PersonModel> imported) {
+        long replaced = nextGeneration();
+        List<Integer> previous = new ArrayList<>(people.size());
+        for (int i = 0; i < people.size(); i++) {
+            previous.add(people.getId(i));
+        }
+
+        // deletes which aren't saved yet are kept, adding person with the same id drops its delete
+        List<Integer> removed = changes.getRemoved();
+        changes.clear();
+        for (int id : removed) {
+            changes.personRemoved(id);
+        }
+        loadedFromDatabase = false;
+        reloadChanges = null;
+        for (PersonModel p : imported) {
+            p.setGeneration(replaced);
+            removedAt.remove(p.getId());
+            changes.personAdded(p);
+        }
+
+        people.clear();
+        people.addAll(imported);
+        idsUsed(imported);
+
+        // people which weren't imported are removed for delta exports
+        for (int id : previous) {
+            if (people.indexOfId(id) < 0) removedAt.put(id, replaced);
+        }
+
+        if (journal != null) {
+            journal.cleared();
+            for (PersonModel p : imported) {
+                journal.personAdded(p);
+            }
+            for (int id : changes.getRemoved()) {
+                journal.markedRemoved(id);
+            }
+            journaled();
+        }
+        publish();
+    }
+
+    /**
+     * Returns generation of the last change of people list, watermark of delta exported now
+     *
+     * @return {@link Database#generation}
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Collects people created, edited or removed after given watermark
+     *
+     * @param watermark watermark of the previous export (0 for all changes of the session)
+     * @return {@link PersonDelta} with changes up to current generation
+     */
+    public PersonDelta getDelta(long watermark) {
+        List<PersonModel> changed = new ArrayList<>();
+        for (int i = 0; i < people.size(); i++) {
+            if (people.getGeneration(i) > watermark) changed.add(people.get(i));
+        }
+
+        List<Integer> removed = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : removedAt.entrySet()) {
+            if (entry.getValue() > watermark) removed.add(entry.getKey());
+        }
+
+        return new PersonDelta(watermark, generation, changed, removed);
+    }
+
+    /**
+     * Applies delta on top of people list: changed people replace people with the same id or are added,
+     * removed people are removed. All of them have to be saved
+     *
+     * @param delta {@link PersonDelta} to apply
+     */
+    public void applyDelta(PersonDelta delta) {
+        long applied = nextGeneration();
+        people.ensureCapacity(people.size() + delta.getChanged().size());
+        idsUsed(delta.getChanged());
+
+        for (PersonModel p : delta.getChanged()) {
+            p.setGeneration(applied);
+            removedAt.remove(p.getId());
+
+            int index = people.indexOfId(p.getId());
+            if (index < 0) {
+                people.add(p);
+                changes.personAdded(p);
+                if (journal != null) journal.personAdded(p);
+            } else {
+                people.set(index, p);
+                changes.personUpdated(p);
+                if (journal != null) journal.personUpdated(p);
+            }
+        }
+
+        for (PersonModel p : people.removeIds(delta.getRemoved())) {
+            removedAt.put(p.getId(), applied);
+            changes.personRemoved(p);
+            if (journal != null) journal.personRemoved(p.getId());
+        }
+
+        if (journal != null) journaled();
+        publish();
+    }
+
+    /**
+     * Writes delta to file. Doesn't touch people list, so it can be called from background thread
+     *
+     * @param file  {@link File} given file, where delta is to be stored
+     * @param delta {@link PersonDelta} to write
+     * @throws IOException if failed to write the file
+     */
+    public static void writeDelta(File file, PersonDelta delta) throws IOException {
+        PersonDeltaFile.write(file, delta);
+    }
+
+    /**
+     * Reads delta from file. Doesn't touch people list, so it can be called from background thread
+     *
+     * @param file {@link File} given file, where delta is stored
+     * @return read {@link PersonDelta}
+     * @throws IOException if failed to read the file
+     */
+    public static PersonDelta readDelta(File file) throws IOException {
+        return PersonDeltaFile.read(file);
+    }
+
+    /**
+     * Returns generation for the next change of people list
+     *
+     * @return generation greater than all previous ones
+     */
+    private long nextGeneration() {
+        generation = Math.max(generation + 1, System.currentTimeMillis());
+        return generation;
+    }
+
+    /**
+     * Opens journal and replays it. Doesn't touch people list, so it can be called from background thread
+     *
+     * @param dir journal directory
+     * @return {@link JournalRecovery} with opened journal, people and their unsaved changes
+     * @throws IOException if journal can't be opened or read
+     */
+    public static JournalRecovery recoverJournal(File dir) throws IOException {
+        JournalRecovery recovery = new JournalRecovery();
+        recovery.setJournal(PersonJournal.open(dir, recovery));
+        recovery.finish();
+        return recovery;
+    }
+
+    /**
+     * Starts recording changes to the recovered journal.
+     * If there were unsaved changes, recovered people replace people list
+     *
+     * @param recovery result of {@link Database#recoverJournal(File)}
+     * @return true if recovered people replaced people list
+     */
+    public boolean attachJournal(JournalRecovery recovery) {
+        closeJournal();
+
+        boolean restored = recovery.hasChanges();
+        if (restored) {
+            people.clear();
+            changes.clear();
+            changes.restore(recovery.getChanges());
+
+            loadedFromDatabase = recovery.isLoadedFromDatabase();
+            if (loadedFromDatabase) {
+                // people loaded from database weren't journaled, the next load applies changes to them
+                reloadChanges = recovery.getChanges();
+                idsUsed(changes.getAdded());
+            } else {
+                people.addAll(recovery.getPeople());
+                idsUsed(recovery.getPeople());
+            }
+
+            // generations aren't journaled, unsaved changes are exported with the next delta
+            long recovered = nextGeneration();
+            for (PersonModel p : changes.getChanged()) {
+                p.setGeneration(recovered);
+                int index = people.indexOfId(p.getId());
+                if (index >= 0) people.set(index, p);
+            }
+            for (int id : changes.getRemoved()) {
+                removedAt.put(id, recovered);
+            }
+        }
+
+        journal = recovery.getJournal();
+        // journal starts from current people list
+        compactJournal();
+        publish();
+        return restored;
+    }
+
+    /**
+     * Returns if unsaved changes recovered from journal wait for people list to be loaded from database
+     *
+     * @return true if people list has to be loaded
+     */
+    public boolean isReloadNeeded() {
+        return reloadChanges != null;
+    }
+
+    /**
+     * Writes and closes the journal
+     */
+    public void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Unable to close journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+
+    /**
+     * Publishes snapshot of people list for other threads, called at the end of each change.
+     * Taking it is cheap, the store copies its storage only if shared people are changed later
+     */
+    private void publish() {
+        List<PersonModel> snapshot = people.snapshot();
+        published.set(snapshot);
+        if (peopleListener != null) peopleListener.peoplePublished(snapshot);
+    }
+
+    /**
+     * Compacts journal if it has grown too much
+     */
+    private void journaled() {
+        if (journal.needsCompaction()) compactJournal();
+    }
+
+    /**
+     * Starts new journal from snapshot of people list and marks of unsaved changes.
+     * Journal is closed if new one can't be started
+     */
+    private void compactJournal() {
+        // people loaded from database are loaded again on replay, their unsaved changes are marked
+        List<PersonModel> snapshot = loadedFromDatabase ? Collections.emptyList() : people.snapshot();
+        try {
+            journal.compact(snapshot, () -> {
+                if (loadedFromDatabase) journal.loaded();
+                for (Map.Entry<Integer, PersonChangeSet> entry : saving.entrySet()) {
+                    markChanges(entry.getValue());
+                    journal.changesTaken(entry.getKey());
+                }
+                markChanges(changes);
+            });
+        } catch (IOException e) {
+            System.err.println("Unable to compact journal: " + e.getMessage());
+            closeJournal();
+        }
+    }
+
+    /**
+     * Writes marks of changes to journal
+     *
+     * @param changeSet changes to mark
+     */
+    private void markChanges(PersonChangeSet changeSet) {
+        for (PersonModel p : changeSet.getAdded()) {
+            journal.markedAdded(p);
+        }
+        for (PersonModel p : changeSet.getUpdated()) {
+            journal.markedUpdated(p);
+        }
+        for (int id : changeSet.getRemoved()) {
+            journal.markedRemoved(id);
+        }
+    }
+
+    /**
+     * Fork/join task reading range of files. Range is split in halves until it has one file
+     */
+    private static class ReadFilesTask extends RecursiveAction {
+
+        /**
+         * Files to read
+         */
+        private final List<File> files;
+
+        /**
+         * Results of reading, filled at files' positions
+         */
+        private final FileImport[] imports;
+
+        /**
+         * First file of the range
+         */
+        private final int from;
+
+        /**
+         * File following the last file of the range
+         */
+        private final int to;
+
+        /**
+         * Constructor.
+         *
+         * @param files   files to read
+         * @param imports results of reading
+         * @param from    first file of the range
+         * @param to      file following the last file of the range
+         */
+        private ReadFilesTask(List<File> files, FileImport[] imports, int from, int to) {
+            this.files = files;
+            this.imports = imports;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Reads the file or splits the range
+         */
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ReadFilesTask(files, imports, from, middle),
+                        new ReadFilesTask(files, imports, middle, to));
+                return;
+            }
+            if (to == from) return;
+
+            File file = files.get(from);
+            long start = System.nanoTime();
+            try {
+                List<PersonModel> people = readFromFile(file);
+                imports[from] = new FileImport(file, people, file.length(), System.nanoTime() - start, null);
+            } catch (IOException | RuntimeException e) {
+                imports[from] = new FileImport(file, null, file.length(), System.nanoTime() - start, e);
+            }
+        }
     }
 }
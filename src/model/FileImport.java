@@ -0,0 +1,141 @@
+package model;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class provides people read from one file by {@link Database#readFromFiles(List)} and summary of reading
+ */
+public class FileImport {
+
+    /**
+     * read file
+     */
+    private final File file;
+
+    /**
+     * people read from the file (empty if reading failed)
+     */
+    private final List<PersonModel> people;
+
+    /**
+     * size of the file in bytes
+     */
+    private final long bytes;
+
+    /**
+     * time of reading in nanoseconds
+     */
+    private final long nanos;
+
+    /**
+     * exception which stopped reading (null if file was read)
+     */
+    private final Exception error;
+
+    /**
+     * Constructor.
+     *
+     * @param file   represents {@link FileImport#file}
+     * @param people represents {@link FileImport#people}
+     * @param bytes  represents {@link FileImport#bytes}
+     * @param nanos  represents {@link FileImport#nanos}
+     * @param error  represents {@link FileImport#error}
+     */
+    public FileImport(File file, List<PersonModel> people, long bytes, long nanos, Exception error) {
+        this.file = file;
+        this.people = people == null ? Collections.emptyList() : people;
+        this.bytes = bytes;
+        this.nanos = nanos;
+        this.error = error;
+    }
+
+    /**
+     * Getter, returns read file
+     *
+     * @return {@link FileImport#file}
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Getter, returns read people
+     *
+     * @return {@link FileImport#people}
+     */
+    public List<PersonModel> getPeople() {
+        return people;
+    }
+
+    /**
+     * Getter, returns size of the file
+     *
+     * @return {@link FileImport#bytes}
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Getter, returns time of reading
+     *
+     * @return {@link FileImport#nanos}
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Getter, returns exception which stopped reading
+     *
+     * @return {@link FileImport#error}
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * Returns if file was read
+     *
+     * @return true if there was no error
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * Returns reading speed
+     *
+     * @return people read per second
+     */
+    public double getPeoplePerSecond() {
+        return nanos == 0 ? 0 : people.size() * 1e9 / nanos;
+    }
+
+    /**
+     * Returns reading speed
+     *
+     * @return megabytes read per second
+     */
+    public double getMegabytesPerSecond() {
+        return nanos == 0 ? 0 : bytes * 1e9 / nanos / (1024 * 1024);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return FileImport string representation
+     */
+    @Override
+    public String toString() {
+        return "FileImport{" +
+                "file=" + file.getName() +
+                ", people=" + people.size() +
+                ", ms=" + nanos / 1_000_000 +
+                String.format(", people/s=%.0f, MB/s=%.1f", getPeoplePerSecond(), getMegabytesPerSecond()) +
+                (error == null ? "" : ", error=" + error.getMessage()) +
+                '}';
+    }
+}
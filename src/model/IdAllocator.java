@@ -0,0 +1,379 @@
+package model;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hi/lo allocator of people's ids.
+ * Blocks of ids are reserved from {@link BlockSource} (usually a sequence table in database),
+ * ids of the current block are handed out with one atomic increment, so any thread can take ids
+ * without locking and without a database round trip per id. Only switching to the next block and marking ids
+ * used elsewhere are synchronized.
+ * If prefetch executor is set, the next block is reserved on it when half of the current block is used,
+ * so {@link IdAllocator#next()} never waits for the source (e.g. on the Event Dispatch Thread)
+ */
+public class IdAllocator {
+
+    /**
+     * Source of id blocks
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+
+        /**
+         * Reserves block of ids which are never reserved again
+         *
+         * @param size  quantity of ids in block
+         * @param above every id of block has to be greater than this one
+         * @return the first id of block
+         * @throws SQLException if block can't be reserved
+         */
+        int reserve(int size, int above) throws SQLException;
+    }
+
+    /**
+     * Source of id blocks
+     */
+    private final BlockSource source;
+
+    /**
+     * Quantity of ids reserved at once
+     */
+    private final int blockSize;
+
+    /**
+     * Block ids are taken from
+     */
+    private volatile Block block = new Block(0, 0);
+
+    /**
+     * Blocks reserved ahead, used after the current one
+     */
+    private final Deque<Block> reserved = new ArrayDeque<>();
+
+    /**
+     * Lock held while block is reserved, so blocks are reserved one after another
+     */
+    private final Object reserveLock = new Object();
+
+    /**
+     * The greatest id known to be used
+     */
+    private int highestUsed;
+
+    /**
+     * The greatest id of reserved blocks
+     */
+    private int highestReserved;
+
+    /**
+     * Number of source, blocks reserved before {@link IdAllocator#reset()} are dropped
+     */
+    private int generation;
+
+    /**
+     * Executor reserving blocks ahead (null - blocks are reserved by thread which needs them)
+     */
+    private Executor prefetcher;
+
+    /**
+     * If block is being reserved on prefetch executor
+     */
+    private boolean prefetching;
+
+    /**
+     * Why the last reserving failed (null if it didn't)
+     */
+    private SQLException failure;
+
+    /**
+     * Constructor.
+     *
+     * @param source    {@link BlockSource} reserving blocks
+     * @param blockSize quantity of ids reserved at once
+     */
+    public IdAllocator(BlockSource source, int blockSize) {
+        if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive");
+        this.source = source;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Sets executor reserving blocks ahead and reserves the next block on it
+     *
+     * @param prefetcher executor for reserving blocks (null - blocks are reserved by thread which needs them)
+     */
+    public synchronized void setPrefetcher(Executor prefetcher) {
+        this.prefetcher = prefetcher;
+        prefetch();
+    }
+
+    /**
+     * Returns unused id. Can be called from any thread.
+     * If prefetch executor is set, only ids reserved ahead are handed out
+     *
+     * @return new id
+     * @throws IllegalStateException if prefetch executor is set and no ids are reserved (e.g. reserving failed)
+     */
+    public int next() {
+        while (true) {
+            Block current = block;
+            int id = current.next.getAndIncrement();
+            if (id < current.end) {
+                if (id == current.half) prefetchAhead();
+                return id;
+            }
+            advance(current);
+        }
+    }
+
+    /**
+     * Returns quantity of ids which can be handed out without reserving
+     *
+     * @return quantity of reserved unused ids
+     */
+    public synchronized int available() {
+        long count = block.available();
+        for (Block b : reserved) {
+            count += b.available();
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks that given quantity of ids can be handed out without waiting for the source
+     *
+     * @param count quantity of needed ids
+     * @throws IllegalStateException if prefetch executor is set and fewer ids are reserved
+     */
+    public void require(int count) {
+        synchronized (this) {
+            if (prefetcher == null || available() >= count) return;
+        }
+        unavailable();
+    }
+
+    /**
+     * Reserves ids on calling thread, so at least given quantity of them can be handed out.
+     * Meant for background threads which will need many ids
+     *
+     * @param count quantity of needed ids
+     * @throws SQLException if block can't be reserved
+     */
+    public void reserve(int count) throws SQLException {
+        synchronized (reserveLock) {
+            int missing = count - available();
+            if (missing > 0) reserveBlock(Math.max(missing, blockSize));
+        }
+    }
+
+    /**
+     * Marks ids up to given one as used by people which got them elsewhere (loaded or imported),
+     * so they are never handed out and next blocks are reserved above them
+     *
+     * @param id the greatest used id
+     */
+    public synchronized void used(int id) {
+        highestUsed = Math.max(highestUsed, id);
+        block.skipTo(id + 1);
+        for (Block b : reserved) {
+            b.skipTo(id + 1);
+        }
+        reserved.removeIf(b -> b.available() == 0);
+        if (available() == 0) prefetch();
+    }
+
+    /**
+     * Forgets the current block and blocks reserved ahead, next ids are taken from new blocks
+     * (e.g. when source is switched to other database). Blocks being reserved meanwhile are dropped
+     */
+    public synchronized void reset() {
+        block = new Block(0, 0);
+        reserved.clear();
+        highestReserved = 0;
+        generation++;
+        failure = null;
+    }
+
+    /**
+     * Reserves the next block on calling thread if there is no block reserved ahead.
+     * Failure is kept and reported by {@link IdAllocator#next()} when ids run out
+     */
+    public void fill() {
+        synchronized (reserveLock) {
+            synchronized (this) {
+                if (!reserved.isEmpty()) return;
+            }
+            try {
+                reserveBlock(blockSize);
+            } catch (SQLException e) {
+                System.err.println("Unable to reserve ids: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Switches to the next block unless other thread already did it.
+     * Without prefetch executor the block is reserved on calling thread
+     *
+     * @param exhausted block which has no more ids
+     */
+    private void advance(Block exhausted) {
+        synchronized (this) {
+            if (block != exhausted && block.available() > 0) return;
+
+            while (!reserved.isEmpty()) {
+                block = reserved.poll();
+                if (block.available() > 0) {
+                    if (reserved.isEmpty()) prefetch();
+                    return;
+                }
+            }
+            if (prefetcher != null) {
+                // never waits for the source, the block is reserved in background
+                prefetch();
+                unavailable();
+            }
+        }
+
+        fill();
+        synchronized (this) {
+            if (reserved.isEmpty()) unavailable();
+        }
+    }
+
+    /**
+     * Reserves the next block on prefetch executor when half of the current block is used
+     */
+    private synchronized void prefetchAhead() {
+        if (reserved.isEmpty()) prefetch();
+    }
+
+    /**
+     * Starts reserving block on prefetch executor unless it is already being reserved
+     */
+    private synchronized void prefetch() {
+        if (prefetcher == null || prefetching) return;
+
+        prefetching = true;
+        try {
+            prefetcher.execute(() -> {
+                try {
+                    fill();
+                } finally {
+                    synchronized (this) {
+                        prefetching = false;
+                        // block requested while this one was being reserved
+                        if (failure == null && reserved.isEmpty() && block.next.get() > block.half) prefetch();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // executor is shut down, nothing will be reserved
+            prefetching = false;
+        }
+    }
+
+    /**
+     * Reserves block from source and adds it after blocks reserved ahead. Caller holds reserve lock
+     *
+     * @param size quantity of ids in block
+     * @throws SQLException if block can't be reserved
+     */
+    private void reserveBlock(int size) throws SQLException {
+        int above;
+        int reservedGeneration;
+        synchronized (this) {
+            above = Math.max(highestUsed, highestReserved);
+            reservedGeneration = generation;
+        }
+
+        // source isn't called under allocator lock, so ids are handed out meanwhile
+        int first;
+        try {
+            first = source.reserve(size, above);
+        } catch (SQLException e) {
+            synchronized (this) {
+                if (reservedGeneration == generation) failure = e;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            if (reservedGeneration != generation) return;
+
+            Block reservedBlock = new Block(first, first + size);
+            reservedBlock.skipTo(highestUsed + 1);
+            reserved.add(reservedBlock);
+            highestReserved = Math.max(highestReserved, first + size - 1);
+            failure = null;
+        }
+    }
+
+    /**
+     * Throws exception telling why there are no ids
+     *
+     * @throws IllegalStateException always
+     */
+    private synchronized void unavailable() {
+        if (failure != null) {
+            throw new IllegalStateException("Unable to reserve ids: " + failure.getMessage(), failure);
+        }
+        throw new IllegalStateException("Ids are being reserved, try again");
+    }
+
+    /**
+     * Range of reserved ids
+     */
+    private static final class Block {
+
+        /**
+         * The next id to hand out (may grow past the end)
+         */
+        private final AtomicInteger next;
+
+        /**
+         * Id after the last id of block
+         */
+        private final int end;
+
+        /**
+         * Id in the middle of block, the next block is reserved when it is handed out
+         */
+        private final int half;
+
+        /**
+         * Constructor.
+         *
+         * @param first the first id of block
+         * @param end   id after the last id of block
+         */
+        private Block(int first, int end) {
+            this.next = new AtomicInteger(first);
+            this.end = end;
+            this.half = first + (end - first) / 2;
+        }
+
+        /**
+         * Returns quantity of ids not handed out yet
+         *
+         * @return quantity of ids
+         */
+        private int available() {
+            return Math.max(0, end - next.get());
+        }
+
+        /**
+         * Skips ids below given one
+         *
+         * @param id the lowest id which can be handed out
+         */
+        private void skipTo(int id) {
+            next.accumulateAndGet(Math.min(id, end), Math::max);
+        }
+    }
+}
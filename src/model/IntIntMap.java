@@ -0,0 +1,186 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int keys to int values without boxing.
+ * Uses open addressing with linear probing
+ */
+public class IntIntMap {
+
+    /**
+     * Marks free cell of {@link IntIntMap#keys}
+     */
+    private static final int FREE = Integer.MIN_VALUE;
+
+    /**
+     * Keys (cell is free if it contains {@link IntIntMap#FREE})
+     */
+    private int[] keys;
+
+    /**
+     * Values for keys in the same cells
+     */
+    private int[] values;
+
+    /**
+     * Quantity of stored keys
+     */
+    private int size;
+
+    /**
+     * Value stored for {@link IntIntMap#FREE} key
+     */
+    private int freeKeyValue;
+
+    /**
+     * If {@link IntIntMap#FREE} key is stored
+     */
+    private boolean hasFreeKey;
+
+    /**
+     * Constructor.
+     *
+     * @param expectedSize expected quantity of keys
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Returns value for key
+     *
+     * @param key          key to look up
+     * @param defaultValue value returned if key isn't stored
+     * @return stored value or defaultValue
+     */
+    public int get(int key, int defaultValue) {
+        if (key == FREE) return hasFreeKey ? freeKeyValue : defaultValue;
+
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) return values[i];
+            if (k == FREE) return defaultValue;
+        }
+    }
+
+    /**
+     * Stores value for key
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void put(int key, int value) {
+        if (key == FREE) {
+            if (!hasFreeKey) size++;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) rehash(keys.length * 2);
+    }
+
+    /**
+     * Removes key
+     *
+     * @param key key to remove
+     */
+    public void remove(int key) {
+        if (key == FREE) {
+            if (hasFreeKey) size--;
+            hasFreeKey = false;
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == FREE) return;
+            i = (i + 1) & mask;
+        }
+
+        // shift following keys of the same probe chain back (no tombstones needed)
+        int free = i;
+        for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            boolean movable = free <= j ? (home <= free || home > j) : (home <= free && home > j);
+            if (movable) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        keys[free] = FREE;
+        size--;
+    }
+
+    /**
+     * Removes all keys
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    /**
+     * Returns quantity of stored keys
+     *
+     * @return size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves keys to tables of new capacity
+     *
+     * @param capacity new capacity (power of two)
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int key = oldKeys[j];
+            if (key == FREE) continue;
+            int i = mix(key) & mask;
+            while (keys[i] != FREE) i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+
+    /**
+     * Spreads bits of key, so sequential ids don't form long probe chains
+     *
+     * @param key key
+     * @return hash of key
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,235 @@
+package model;
+
+import model.io.JournalVisitor;
+import model.io.PersonJournal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * People list and its unsaved changes rebuilt by replaying {@link PersonJournal}.
+ * Entries are applied the same way {@link Database} applied them when they were recorded
+ */
+public class JournalRecovery implements JournalVisitor {
+
+    /**
+     * Rebuilt people list
+     */
+    private final PersonStore people = new PersonStore();
+
+    /**
+     * Rebuilt unsaved changes
+     */
+    private final PersonChangeSet changes = new PersonChangeSet();
+
+    /**
+     * Changes which were being saved (token - changes)
+     */
+    private final TreeMap<Integer, PersonChangeSet> taken = new TreeMap<>();
+
+    /**
+     * If people list is loaded from database (rebuilt people list has only people added after loading)
+     */
+    private boolean loadedFromDatabase;
+
+    /**
+     * Opened journal
+     */
+    private PersonJournal journal;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param snapshot people list at the moment of snapshot
+     */
+    @Override
+    public void snapshot(List<PersonModel> snapshot) {
+        people.addAll(snapshot);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param person added {@link PersonModel}
+     */
+    @Override
+    public void added(PersonModel person) {
+        people.add(person);
+        changes.personAdded(person);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param person edited {@link PersonModel}
+     */
+    @Override
+    public void updated(PersonModel person) {
+        int index = people.indexOfId(person.getId());
+        if (index >= 0) people.set(index, person);
+        changes.personUpdated(person);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param id person's id
+     */
+    @Override
+    public void removed(int id) {
+        int index = people.indexOfId(id);
+        if (index >= 0) people.remove(index);
+        changes.personRemoved(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleared() {
+        people.clear();
+        changes.clear();
+        loadedFromDatabase = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loaded() {
+        loadedFromDatabase = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Person of people list with the same id is marked, if there is one
+     *
+     * @param person {@link PersonModel} as it was when it was marked
+     */
+    @Override
+    public void markedAdded(PersonModel person) {
+        PersonModel present = people.getById(person.getId());
+        changes.personAdded(present != null ? present : person);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Person of people list with the same id is marked, if there is one
+     *
+     * @param person {@link PersonModel} as it was when it was marked
+     */
+    @Override
+    public void markedUpdated(PersonModel person) {
+        PersonModel present = people.getById(person.getId());
+        changes.personUpdated(present != null ? present : person);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param id person's id
+     */
+    @Override
+    public void markedRemoved(int id) {
+        changes.personRemoved(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param token number identifying taken changes
+     */
+    @Override
+    public void taken(int token) {
+        taken.put(token, changes.take());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param token number identifying taken changes
+     */
+    @Override
+    public void saved(int token) {
+        taken.remove(token);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param token number identifying taken changes
+     */
+    @Override
+    public void restored(int token) {
+        PersonChangeSet restored = taken.remove(token);
+        if (restored != null) changes.restore(restored);
+    }
+
+    /**
+     * Puts back changes which were being saved when application stopped.
+     * It is unknown whether they were written, so they are saved again
+     */
+    void finish() {
+        // the newest changes have priority, so they are put back first
+        for (Map.Entry<Integer, PersonChangeSet> entry : taken.descendingMap().entrySet()) {
+            changes.restore(entry.getValue());
+        }
+        taken.clear();
+    }
+
+    /**
+     * Returns if there are changes which weren't saved
+     *
+     * @return true if rebuilt changes aren't empty
+     */
+    public boolean hasChanges() {
+        return !changes.isEmpty();
+    }
+
+    /**
+     * Returns if people list was loaded from database, so rebuilt changes have to be applied
+     * to people loaded again instead of rebuilt people list
+     *
+     * @return true if people list was loaded from database
+     */
+    public boolean isLoadedFromDatabase() {
+        return loadedFromDatabase;
+    }
+
+    /**
+     * Returns rebuilt people list
+     *
+     * @return {@link PersonStore} object
+     */
+    PersonStore getPeople() {
+        return people;
+    }
+
+    /**
+     * Returns rebuilt unsaved changes
+     *
+     * @return {@link PersonChangeSet} object
+     */
+    PersonChangeSet getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns journal opened by replaying
+     *
+     * @return {@link PersonJournal} object
+     */
+    PersonJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets journal opened by replaying
+     *
+     * @param journal {@link PersonJournal} object
+     */
+    void setJournal(PersonJournal journal) {
+        this.journal = journal;
+    }
+}
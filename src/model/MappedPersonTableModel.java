@@ -0,0 +1,100 @@
+package model;
+
+import model.io.MappedPersonFile;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read only table model showing people of memory mapped person file.
+ * People are decoded only when their rows are shown, the most recently shown ones are cached
+ */
+public class MappedPersonTableModel extends PersonTableModel {
+
+    /**
+     * Quantity of decoded people kept in cache
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    /**
+     * Shown file
+     */
+    private final MappedPersonFile file;
+
+    /**
+     * Decoded people (row - person), the least recently used are evicted first.
+     * Is accessed only from the Event Dispatch Thread
+     */
+    private final Map<Integer, PersonModel> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param file opened {@link MappedPersonFile}, is closed together with the model
+     */
+    public MappedPersonTableModel(MappedPersonFile file) {
+        this.file = file;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, PersonModel> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * Decodes person from file if it isn't cached
+     *
+     * @param row row index
+     * @return {@link PersonModel} object or null if it can't be read
+     */
+    @Override
+    protected PersonModel getPerson(int row) {
+        PersonModel person = cache.get(row);
+        if (person != null) return person;
+
+        try {
+            person = file.get(row);
+        } catch (IOException e) {
+            System.err.println("Unable to read person " + row + ": " + e.getMessage());
+            return null;
+        }
+
+        cache.put(row, person);
+        return person;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return quantity of people in file
+     */
+    @Override
+    public int getRowCount() {
+        return file.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return always true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Closes the file
+     */
+    public void close() {
+        cache.clear();
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.err.println("Unable to close file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package model;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read only table model which fetches people from database page by page, as the table is scrolled.
+ * Only people matching {@link PagedPersonTableModel#query} are fetched.
+ * Pages are ordered by (name, id) and fetched with keyset pagination,
+ * only the most recently used pages are kept in memory
+ */
+public class PagedPersonTableModel extends PersonTableModel {
+
+    /**
+     * Database to fetch pages from
+     */
+    private final Database db;
+
+    /**
+     * Quantity of people in one page
+     */
+    private final int pageSize;
+
+    /**
+     * Cached pages (page's number - people), the least recently used are evicted first.
+     * Is accessed only from the Event Dispatch Thread
+     */
+    private final Map<Integer, List<PersonModel>> pages;
+
+    /**
+     * Key of the last person of each fetched page (page's number - key).
+     * Kept after page eviction, so next page can always be found by keyset
+     */
+    private final Map<Integer, PageKey> boundaries;
+
+    /**
+     * Numbers of pages being fetched. Is accessed only from the Event Dispatch Thread
+     */
+    private final Set<Integer> pending;
+
+    /**
+     * Thread fetching pages
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Conditions people have to match
+     */
+    private volatile PersonQuery query = PersonQuery.ALL;
+
+    /**
+     * Quantity of people matching the query
+     */
+    private int rowCount;
+
+    /**
+     * Is increased on reload, so pages fetched before are ignored
+     */
+    private volatile int generation;
+
+    /**
+     * Constructor.
+     *
+     * @param db       database to fetch pages from
+     * @param pageSize quantity of people in one page
+     * @param maxPages quantity of pages kept in memory
+     */
+    public PagedPersonTableModel(Database db, int pageSize, int maxPages) {
+        this.db = db;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<PersonModel>> eldest) {
+                return size() > maxPages;
+            }
+        };
+        this.boundaries = new ConcurrentHashMap<>();
+        this.pending = new HashSet<>();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "person-page-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets conditions people have to match and reloads the table.
+     * Must be called from the Event Dispatch Thread
+     *
+     * @param query {@link PersonQuery} object (its sorting and range are ignored)
+     */
+    public void setQuery(PersonQuery query) {
+        this.query = query;
+        reload();
+    }
+
+    /**
+     * Method forgets cached pages and counts people again.
+     * Must be called from the Event Dispatch Thread
+     */
+    public void reload() {
+        int gen = ++generation;
+        PersonQuery counted = query;
+        pages.clear();
+        pending.clear();
+        boundaries.clear();
+
+        executor.execute(() -> {
+            try {
+                db.connect();
+                int count = db.countPeople(counted);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen != generation) return;
+                    rowCount = count;
+                    fireTableDataChanged();
+                });
+            } catch (Exception e) {
+                System.err.println("Unable to count people: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stops fetching pages
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Starts fetching page if it isn't cached and prefetches the next one
+     * when row is close to the end of its page
+     *
+     * @param row row index
+     * @return {@link PersonModel} object or null while its page is being fetched
+     */
+    @Override
+    protected PersonModel getPerson(int row) {
+        int page = row / pageSize;
+        int index = row % pageSize;
+
+        if (index >= pageSize * 3 / 4 && (page + 1) * pageSize < rowCount) {
+            request(page + 1);
+        }
+
+        List<PersonModel> people = pages.get(page);
+        if (people == null) {
+            request(page);
+            return null;
+        }
+
+        return index < people.size() ? people.get(index) : null;
+    }
+
+    /**
+     * Starts fetching page in background if it isn't cached or being fetched
+     *
+     * @param page page's number
+     */
+    private void request(int page) {
+        if (pages.containsKey(page) || !pending.add(page)) return;
+
+        int gen = generation;
+        executor.execute(() -> {
+            if (gen != generation) return;
+
+            List<PersonModel> people;
+            try {
+                people = fetch(page);
+            } catch (Exception e) {
+                System.err.println("Unable to load page " + page + ": " + e.getMessage());
+                SwingUtilities.invokeLater(() -> pending.remove(page));
+                return;
+            }
+
+            if (gen == generation && !people.isEmpty()) {
+                PersonModel last = people.get(people.size() - 1);
+                boundaries.put(page, new PageKey(last.getName(), last.getId()));
+            }
+
+            SwingUtilities.invokeLater(() -> pageLoaded(gen, page, people));
+        });
+    }
+
+    /**
+     * Fetches page from database. Uses key of previous page if it is known
+     *
+     * @param page page's number
+     * @return list of {@link PersonModel}s
+     * @throws Exception if page can't be fetched
+     */
+    private List<PersonModel> fetch(int page) throws Exception {
+        if (page == 0) {
+            return db.loadPage(query, null, 0, pageSize);
+        }
+
+        PageKey previous = boundaries.get(page - 1);
+        if (previous != null) {
+            return db.loadPage(query, previous.name, previous.id, pageSize);
+        }
+
+        return db.loadPageAt(query, page * pageSize, pageSize);
+    }
+
+    /**
+     * Puts fetched page to cache and repaints its rows
+     *
+     * @param gen    generation page was requested in
+     * @param page   page's number
+     * @param people fetched people
+     */
+    private void pageLoaded(int gen, int page, List<PersonModel> people) {
+        if (gen != generation) return;
+
+        pending.remove(page);
+        pages.put(page, people);
+
+        int firstRow = page * pageSize;
+        int lastRow = Math.min(firstRow + pageSize, rowCount) - 1;
+        if (firstRow <= lastRow) {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return quantity of people matching the query
+     */
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return always true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Sort key (name, id) of a person
+     */
+    private static class PageKey {
+
+        /**
+         * person's name
+         */
+        private final String name;
+
+        /**
+         * person's id
+         */
+        private final int id;
+
+        /**
+         * Constructor.
+         *
+         * @param name person's name
+         * @param id   person's id
+         */
+        private PageKey(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+}
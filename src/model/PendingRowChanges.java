@@ -0,0 +1,190 @@
+package model;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Changes of table rows made since the table was notified last time, merged into as few events as possible.
+ * Adjacent inserted or deleted rows become one range, updated rows are kept as one range covering all of them.
+ * Changes which can't be merged (e.g. rows inserted at two distant positions) change the whole table
+ */
+class PendingRowChanges {
+
+    /**
+     * No rows were inserted or deleted
+     */
+    private static final int NONE = 0;
+
+    /**
+     * Rows {@link PendingRowChanges#first} - {@link PendingRowChanges#last} of the new rows were inserted
+     */
+    private static final int INSERTED = 1;
+
+    /**
+     * Rows {@link PendingRowChanges#first} - {@link PendingRowChanges#last} of the old rows were deleted
+     */
+    private static final int DELETED = 2;
+
+    /**
+     * How rows were inserted or deleted
+     */
+    private int kind = NONE;
+
+    /**
+     * The first inserted or deleted row
+     */
+    private int first;
+
+    /**
+     * The last inserted or deleted row
+     */
+    private int last;
+
+    /**
+     * The first updated row of the new rows (-1 if no row was updated)
+     */
+    private int updatedFirst = -1;
+
+    /**
+     * The last updated row of the new rows
+     */
+    private int updatedLast;
+
+    /**
+     * Changes can't be merged, the whole table has changed
+     */
+    private boolean all;
+
+    /**
+     * Returns if there are no changes
+     *
+     * @return true if nothing has changed
+     */
+    boolean isEmpty() {
+        return !all && kind == NONE && updatedFirst < 0;
+    }
+
+    /**
+     * Forgets changes
+     */
+    void clear() {
+        kind = NONE;
+        updatedFirst = -1;
+        all = false;
+    }
+
+    /**
+     * Adds inserted rows
+     *
+     * @param from the first inserted row
+     * @param to   the last inserted row
+     */
+    void inserted(int from, int to) {
+        if (all) return;
+        int count = to - from + 1;
+
+        if (updatedFirst >= 0) {
+            if (from <= updatedFirst) updatedFirst += count;
+            if (from <= updatedLast) updatedLast += count;
+        }
+
+        if (kind == NONE) {
+            kind = INSERTED;
+            first = from;
+            last = to;
+        } else if (kind == INSERTED && from >= first && from <= last + 1) {
+            last += count;
+        } else {
+            all = true;
+        }
+    }
+
+    /**
+     * Adds deleted rows
+     *
+     * @param from the first deleted row
+     * @param to   the last deleted row
+     */
+    void deleted(int from, int to) {
+        if (all) return;
+        int count = to - from + 1;
+
+        if (updatedFirst >= 0 && to < updatedFirst) {
+            updatedFirst -= count;
+            updatedLast -= count;
+        } else if (updatedFirst >= 0 && from <= updatedLast) {
+            // updated rows left are the ones before deleted rows and the ones shifted to their position
+            int newFirst = Math.min(updatedFirst, from);
+            int newLast = updatedLast > to ? updatedLast - count : from - 1;
+            if (newFirst <= newLast) {
+                updatedFirst = newFirst;
+                updatedLast = newLast;
+            } else {
+                updatedFirst = -1;
+            }
+        }
+
+        if (kind == NONE) {
+            kind = DELETED;
+            first = from;
+            last = to;
+        } else if (kind == DELETED && from == first) {
+            // rows after the deleted ones have moved to their position
+            last += count;
+        } else if (kind == DELETED && to == first - 1) {
+            first = from;
+        } else if (kind == INSERTED && from >= first && to <= last) {
+            last -= count;
+            if (last < first) kind = NONE;
+        } else {
+            all = true;
+        }
+    }
+
+    /**
+     * Adds updated rows
+     *
+     * @param from the first updated row
+     * @param to   the last updated row
+     */
+    void updated(int from, int to) {
+        if (all) return;
+        if (kind == INSERTED && from >= first && to <= last) return;
+
+        if (updatedFirst < 0) {
+            updatedFirst = from;
+            updatedLast = to;
+        } else {
+            updatedFirst = Math.min(updatedFirst, from);
+            updatedLast = Math.max(updatedLast, to);
+        }
+    }
+
+    /**
+     * Notifies listeners of the model about changes and forgets them.
+     * Model has to show the new rows already
+     *
+     * @param model   {@link AbstractTableModel} showing the rows
+     * @param oldSize quantity of rows before changes
+     * @param newSize quantity of rows after changes
+     */
+    void fire(AbstractTableModel model, int oldSize, int newSize) {
+        int inserted = kind == INSERTED ? last - first + 1 : kind == DELETED ? first - last - 1 : 0;
+
+        // changes reported by store don't match the rows (e.g. list was changed without notification)
+        if (all || oldSize + inserted != newSize) {
+            clear();
+            model.fireTableDataChanged();
+            return;
+        }
+
+        if (kind == INSERTED) {
+            model.fireTableRowsInserted(first, last);
+        } else if (kind == DELETED) {
+            model.fireTableRowsDeleted(first, last);
+        }
+        if (updatedFirst >= 0 && updatedFirst < newSize) {
+            model.fireTableRowsUpdated(updatedFirst, Math.min(updatedLast, newSize - 1));
+        }
+        clear();
+    }
+}
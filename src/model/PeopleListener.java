@@ -0,0 +1,42 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Interface for object, that is notified about changes of people list.
+ * Rows are reported by the store right when they change, positions are the ones
+ * of the list at that moment. Snapshot is published by {@link Database} after each whole change
+ */
+public interface PeopleListener {
+
+    /**
+     * Method is called after people were inserted
+     *
+     * @param firstRow position of the first inserted person
+     * @param lastRow  position of the last inserted person
+     */
+    void peopleInserted(int firstRow, int lastRow);
+
+    /**
+     * Method is called after people were replaced or edited
+     *
+     * @param firstRow position of the first updated person
+     * @param lastRow  position of the last updated person
+     */
+    void peopleUpdated(int firstRow, int lastRow);
+
+    /**
+     * Method is called after people were removed
+     *
+     * @param firstRow former position of the first removed person
+     * @param lastRow  former position of the last removed person
+     */
+    void peopleDeleted(int firstRow, int lastRow);
+
+    /**
+     * Method is called at the end of each change of people list
+     *
+     * @param snapshot immutable list of people after the change
+     */
+    void peoplePublished(List<PersonModel> snapshot);
+}
@@ -0,0 +1,190 @@
+package model;
+
+import javax.swing.*;
+import java.util.List;
+
+/**
+ * Table model showing people list of {@link Database}.
+ * Table shows the snapshot published by the last notification, so rows don't change under the table
+ * between notifications. Changed rows reported by the store are merged into {@link PendingRowChanges}
+ * and the table is notified at most once per frame with precise inserted, deleted and updated ranges,
+ * so adding one person costs the same for any size of the list
+ */
+public class PeopleTableModel extends PersonTableModel implements PeopleListener {
+
+    /**
+     * Milliseconds changes are collected before the table is notified (about one frame)
+     */
+    private static final int FRAME_DELAY = 16;
+
+    /**
+     * People list edited people are written to
+     */
+    private PeopleView people;
+
+    /**
+     * Snapshot shown in the table
+     */
+    private List<PersonModel> shown = List.of();
+
+    /**
+     * The latest published snapshot
+     */
+    private List<PersonModel> published = shown;
+
+    /**
+     * Changes between shown and published snapshot
+     */
+    private final PendingRowChanges changes = new PendingRowChanges();
+
+    /**
+     * Notifies table about collected changes
+     */
+    private final Timer timer;
+
+    /**
+     * Row of the last read person (cells of a row are read one after another while painting)
+     */
+    private int cachedRow = -1;
+
+    /**
+     * The last read person
+     */
+    private PersonModel cachedPerson;
+
+    /**
+     * Constructor.
+     */
+    public PeopleTableModel() {
+        timer = new Timer(FRAME_DELAY, e -> flush());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Sets people list and shows its current people. Changes of the list have to be reported to this model
+     *
+     * @param rows people list of {@link Database#getPeople()}
+     */
+    @Override
+    public void setData(List<PersonModel> rows) {
+        timer.stop();
+        people = (PeopleView) rows;
+        shown = List.copyOf(rows);
+        published = shown;
+        changes.clear();
+        cachedRow = -1;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Shows the latest published snapshot and notifies table about changes collected since previous notification.
+     * Called by timer, and before rows found in people list are shown
+     */
+    public void flush() {
+        timer.stop();
+        if (changes.isEmpty() && shown == published) return;
+
+        int oldSize = shown.size();
+        shown = published;
+        cachedRow = -1;
+        changes.fire(this, oldSize, shown.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param aValue value to be set
+     * @param row    row index
+     * @param col    column index
+     */
+    @Override
+    public void setValueAt(Object aValue, int row, int col) {
+        super.setValueAt(aValue, row, col);
+
+        // edit was published by listeners of cell update, so table shows it immediately
+        flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param row row index
+     * @return {@link PersonModel} object of shown snapshot
+     */
+    @Override
+    protected PersonModel getPerson(int row) {
+        if (row != cachedRow) {
+            cachedPerson = shown.get(row);
+            cachedRow = row;
+        }
+        return cachedPerson;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param row    row index
+     * @param person edited {@link PersonModel} object
+     */
+    @Override
+    protected void writePerson(int row, PersonModel person) {
+        // people list may have changed since the row was shown, so person is found by id
+        int index = people.indexOfId(person.getId());
+        if (index >= 0) people.set(index, person);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return quantity of shown people
+     */
+    @Override
+    public int getRowCount() {
+        return shown.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param firstRow position of the first inserted person
+     * @param lastRow  position of the last inserted person
+     */
+    @Override
+    public void peopleInserted(int firstRow, int lastRow) {
+        changes.inserted(firstRow, lastRow);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param firstRow position of the first updated person
+     * @param lastRow  position of the last updated person
+     */
+    @Override
+    public void peopleUpdated(int firstRow, int lastRow) {
+        changes.updated(firstRow, lastRow);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param firstRow former position of the first removed person
+     * @param lastRow  former position of the last removed person
+     */
+    @Override
+    public void peopleDeleted(int firstRow, int lastRow) {
+        changes.deleted(firstRow, lastRow);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Table is notified when the current frame ends
+     *
+     * @param snapshot immutable list of people after the change
+     */
+    @Override
+    public void peoplePublished(List<PersonModel> snapshot) {
+        published = snapshot;
+        if (!timer.isRunning()) timer.start();
+    }
+}
@@ -0,0 +1,81 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * People list given to other classes by {@link Database#getPeople()}.
+ * Follows the store when {@link Database} switches it, so the table keeps the same list.
+ * Only replacing people is allowed, it writes edited person back to the store
+ */
+class PeopleView extends AbstractList<PersonModel> implements RandomAccess {
+
+    /**
+     * Store people are read from
+     */
+    private AbstractPersonStore store;
+
+    /**
+     * Constructor.
+     *
+     * @param store {@link AbstractPersonStore} to show
+     */
+    PeopleView(AbstractPersonStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns position of person with given id, see {@link AbstractPersonStore#indexOfId(int)}
+     *
+     * @param id person's id
+     * @return position or -1 if there is no such person
+     */
+    int indexOfId(int id) {
+        return store.indexOfId(id);
+    }
+
+    /**
+     * Sets shown store
+     *
+     * @param store {@link AbstractPersonStore} to show
+     */
+    void setStore(AbstractPersonStore store) {
+        this.store = store;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position
+     * @return {@link PersonModel} object
+     */
+    @Override
+    public PersonModel get(int index) {
+        return store.get(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return quantity of people
+     */
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Writes edited person back to the store. Person's id must not be changed
+     *
+     * @param index  position
+     * @param person edited {@link PersonModel} object
+     * @return replaced person
+     */
+    @Override
+    public PersonModel set(int index, PersonModel person) {
+        if (store.getId(index) != person.getId()) {
+            throw new IllegalArgumentException("Person's id can't be changed");
+        }
+        return store.set(index, person);
+    }
+}
@@ -0,0 +1,220 @@
+package model;
+
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+
+import java.util.Set;
+
+/**
+ * Secondary index of people's categories: one {@link Bitmap} per value of
+ * {@link AgeCategory}, {@link EmploymentCategory} and {@link Gender} plus one for US citizens.
+ * Bit of a row is set in bitmap of person's value (null value sets no bit).
+ * Conditions of {@link PersonQuery} are answered by combining bitmaps with word-wise AND/OR
+ */
+public class PersonBitmapIndex {
+
+    /**
+     * Bitmaps of age categories by ordinal
+     */
+    private final Bitmap[] ageCategories;
+
+    /**
+     * Bitmaps of employment categories by ordinal
+     */
+    private final Bitmap[] empCats;
+
+    /**
+     * Bitmaps of genders by ordinal
+     */
+    private final Bitmap[] genders;
+
+    /**
+     * Bitmap of US citizens
+     */
+    private final Bitmap usCitizens;
+
+    /**
+     * Constructor. Creates empty index
+     */
+    public PersonBitmapIndex() {
+        ageCategories = create(AgeCategory.values().length);
+        empCats = create(EmploymentCategory.values().length);
+        genders = create(Gender.values().length);
+        usCitizens = new Bitmap(64);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other index to copy
+     */
+    public PersonBitmapIndex(PersonBitmapIndex other) {
+        ageCategories = copy(other.ageCategories);
+        empCats = copy(other.empCats);
+        genders = copy(other.genders);
+        usCitizens = new Bitmap(other.usCitizens);
+    }
+
+    /**
+     * Indexes person's categories at row, replacing categories indexed there before
+     *
+     * @param row    row of person
+     * @param person {@link PersonModel} object
+     */
+    public void put(int row, PersonModel person) {
+        put(ageCategories, row, person.getAgeCategory());
+        put(empCats, row, person.getEmpCat());
+        put(genders, row, person.getGender());
+        usCitizens.set(row, person.isUsCitizen());
+    }
+
+    /**
+     * Returns if person at row is US citizen
+     *
+     * @param row row of person
+     * @return true if bit of row is set in US citizens bitmap
+     */
+    public boolean isUsCitizen(int row) {
+        return usCitizens.get(row);
+    }
+
+    /**
+     * Copies categories of rows to other rows like {@link System#arraycopy}, ranges may overlap
+     *
+     * @param from   the first copied row
+     * @param to     row the first row is copied to
+     * @param length quantity of copied rows
+     */
+    public void move(int from, int to, int length) {
+        for (Bitmap bitmap : ageCategories) bitmap.move(from, to, length);
+        for (Bitmap bitmap : empCats) bitmap.move(from, to, length);
+        for (Bitmap bitmap : genders) bitmap.move(from, to, length);
+        usCitizens.move(from, to, length);
+    }
+
+    /**
+     * Forgets categories of rows
+     *
+     * @param from the first row
+     * @param to   row after the last row
+     */
+    public void clear(int from, int to) {
+        for (Bitmap bitmap : ageCategories) bitmap.clear(from, to);
+        for (Bitmap bitmap : empCats) bitmap.clear(from, to);
+        for (Bitmap bitmap : genders) bitmap.clear(from, to);
+        usCitizens.clear(from, to);
+    }
+
+    /**
+     * Returns rows matching category conditions of query (name and occupation prefixes are ignored).
+     * Conditions are joined with AND, allowed values of the same category with OR
+     *
+     * @param query {@link PersonQuery} with conditions
+     * @param size  quantity of rows
+     * @return {@link Bitmap} with bits of matching rows set
+     */
+    public Bitmap select(PersonQuery query, int size) {
+        Bitmap rows = new Bitmap(size);
+        rows.set(0, size);
+
+        and(rows, ageCategories, query.getAgeCategories(), size);
+        and(rows, empCats, query.getEmpCats(), size);
+        if (query.getGender() != null) rows.and(genders[query.getGender().ordinal()]);
+        if (query.getUsCitizen() != null) {
+            if (query.getUsCitizen()) {
+                rows.and(usCitizens);
+            } else {
+                rows.andNot(usCitizens);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Counts rows matching category conditions of query (name and occupation prefixes are ignored)
+     *
+     * @param query {@link PersonQuery} with conditions
+     * @param size  quantity of rows
+     * @return quantity of matching rows
+     */
+    public int count(PersonQuery query, int size) {
+        return select(query, size).cardinality();
+    }
+
+    /**
+     * Returns size of bitmaps in bytes
+     *
+     * @return bytes used by index
+     */
+    public long getByteSize() {
+        long bytes = usCitizens.getByteSize();
+        for (Bitmap bitmap : ageCategories) bytes += bitmap.getByteSize();
+        for (Bitmap bitmap : empCats) bytes += bitmap.getByteSize();
+        for (Bitmap bitmap : genders) bytes += bitmap.getByteSize();
+        return bytes;
+    }
+
+    /**
+     * Keeps only rows having any of allowed values of category
+     *
+     * @param rows    rows to filter
+     * @param bitmaps bitmaps of category by ordinal
+     * @param allowed allowed values (empty - any)
+     * @param size    quantity of rows
+     */
+    private static void and(Bitmap rows, Bitmap[] bitmaps, Set<? extends Enum<?>> allowed, int size) {
+        if (allowed.isEmpty()) return;
+        if (allowed.size() == 1) {
+            rows.and(bitmaps[allowed.iterator().next().ordinal()]);
+            return;
+        }
+
+        Bitmap any = new Bitmap(size);
+        for (Enum<?> value : allowed) {
+            any.or(bitmaps[value.ordinal()]);
+        }
+        rows.and(any);
+    }
+
+    /**
+     * Sets bit of row in bitmap of value and clears it in others
+     *
+     * @param bitmaps bitmaps of category by ordinal
+     * @param row     row of person
+     * @param value   person's value or null
+     */
+    private static void put(Bitmap[] bitmaps, int row, Enum<?> value) {
+        for (int ordinal = 0; ordinal < bitmaps.length; ordinal++) {
+            bitmaps[ordinal].set(row, value != null && value.ordinal() == ordinal);
+        }
+    }
+
+    /**
+     * Creates empty bitmaps
+     *
+     * @param count quantity of bitmaps
+     * @return array of bitmaps
+     */
+    private static Bitmap[] create(int count) {
+        Bitmap[] bitmaps = new Bitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new Bitmap(64);
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Copies bitmaps
+     *
+     * @param bitmaps bitmaps to copy
+     * @return array of copies
+     */
+    private static Bitmap[] copy(Bitmap[] bitmaps) {
+        Bitmap[] copies = new Bitmap[bitmaps.length];
+        for (int i = 0; i < bitmaps.length; i++) {
+            copies[i] = new Bitmap(bitmaps[i]);
+        }
+        return copies;
+    }
+}
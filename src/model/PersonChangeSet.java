@@ -0,0 +1,224 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Class tracks people added, edited or removed since the last save,
+ * so {@link Database#save()} writes only them
+ */
+public class PersonChangeSet {
+
+    /**
+     * People added since the last save (person's id - person)
+     */
+    private final Map<Integer, PersonModel> added;
+
+    /**
+     * People edited since the last save (person's id - person)
+     */
+    private final Map<Integer, PersonModel> updated;
+
+    /**
+     * Ids of people removed since the last save (tombstones)
+     */
+    private final Set<Integer> removed;
+
+    /**
+     * Constructor. Initializes change maps
+     */
+    public PersonChangeSet() {
+        added = new LinkedHashMap<>();
+        updated = new LinkedHashMap<>();
+        removed = new LinkedHashSet<>();
+    }
+
+    /**
+     * Records added person
+     *
+     * @param person added {@link PersonModel}
+     */
+    public void personAdded(PersonModel person) {
+        updated.remove(person.getId());
+        removed.remove(person.getId());
+        added.put(person.getId(), person);
+    }
+
+    /**
+     * Records edited person. Person which is not saved yet stays in added ones
+     *
+     * @param person edited {@link PersonModel}
+     */
+    public void personUpdated(PersonModel person) {
+        if (added.containsKey(person.getId())) {
+            added.put(person.getId(), person);
+        } else {
+            updated.put(person.getId(), person);
+        }
+    }
+
+    /**
+     * Records removed person. Tombstone with its id is always left, because added person
+     * may be stored already (e.g. imported one with id existing in database)
+     *
+     * @param person removed {@link PersonModel}
+     */
+    public void personRemoved(PersonModel person) {
+        personRemoved(person.getId());
+    }
+
+    /**
+     * Records removed person by its id
+     *
+     * @param id id of removed person
+     */
+    public void personRemoved(int id) {
+        updated.remove(id);
+        // deleting id which was never inserted does nothing
+        added.remove(id);
+        removed.add(id);
+    }
+
+    /**
+     * Returns people which have to be written (added ones first)
+     *
+     * @return list of changed {@link PersonModel}s
+     */
+    public List<PersonModel> getChanged() {
+        List<PersonModel> changed = new ArrayList<>(added.size() + updated.size());
+        changed.addAll(added.values());
+        changed.addAll(updated.values());
+        return changed;
+    }
+
+    /**
+     * Returns people which have to be inserted
+     *
+     * @return list of added {@link PersonModel}s
+     */
+    public List<PersonModel> getAdded() {
+        return new ArrayList<>(added.values());
+    }
+
+    /**
+     * Returns edited people which have to be updated
+     *
+     * @return list of edited {@link PersonModel}s
+     */
+    public List<PersonModel> getUpdated() {
+        return new ArrayList<>(updated.values());
+    }
+
+    /**
+     * Returns ids of people which have to be deleted
+     *
+     * @return list of removed ids
+     */
+    public List<Integer> getRemoved() {
+        return new ArrayList<>(removed);
+    }
+
+    /**
+     * Returns added or edited person with given id
+     *
+     * @param id person's id
+     * @return changed {@link PersonModel} or null if person wasn't added or edited
+     */
+    public PersonModel getPerson(int id) {
+        PersonModel person = added.get(id);
+        return person != null ? person : updated.get(id);
+    }
+
+    /**
+     * Returns whether person with given id was removed
+     *
+     * @param id person's id
+     * @return true if there is tombstone with the id
+     */
+    public boolean isRemoved(int id) {
+        return removed.contains(id);
+    }
+
+    /**
+     * Returns quantity of added people
+     *
+     * @return size of {@link PersonChangeSet#added}
+     */
+    public int getAddedCount() {
+        return added.size();
+    }
+
+    /**
+     * Returns quantity of edited people
+     *
+     * @return size of {@link PersonChangeSet#updated}
+     */
+    public int getUpdatedCount() {
+        return updated.size();
+    }
+
+    /**
+     * Returns quantity of removed people
+     *
+     * @return size of {@link PersonChangeSet#removed}
+     */
+    public int getRemovedCount() {
+        return removed.size();
+    }
+
+    /**
+     * Returns whether there is nothing to save
+     *
+     * @return true if no changes were recorded
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * Moves all recorded changes to a new change set, this one becomes empty.
+     * Used to write changes while new ones keep being recorded
+     *
+     * @return {@link PersonChangeSet} with taken changes
+     */
+    public PersonChangeSet take() {
+        PersonChangeSet taken = new PersonChangeSet();
+        taken.added.putAll(added);
+        taken.updated.putAll(updated);
+        taken.removed.addAll(removed);
+        clear();
+        return taken;
+    }
+
+    /**
+     * Puts back changes which failed to be written.
+     * Changes recorded after they were taken have priority
+     *
+     * @param older changes taken with {@link PersonChangeSet#take()}
+     */
+    public void restore(PersonChangeSet older) {
+        for (Integer id : older.removed) {
+            if (!added.containsKey(id)) removed.add(id);
+        }
+        for (PersonModel person : older.added.values()) {
+            int id = person.getId();
+            if (removed.contains(id) || added.containsKey(id)) continue;
+            // person is still not saved, so its later edits become part of adding
+            PersonModel edited = updated.remove(id);
+            added.put(id, edited != null ? edited : person);
+        }
+        for (PersonModel person : older.updated.values()) {
+            int id = person.getId();
+            if (removed.contains(id) || added.containsKey(id) || updated.containsKey(id)) continue;
+            updated.put(id, person);
+        }
+    }
+
+    /**
+     * Forgets all recorded changes
+     */
+    public void clear() {
+        added.clear();
+        updated.clear();
+        removed.clear();
+    }
+}
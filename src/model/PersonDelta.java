@@ -0,0 +1,106 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class provides people changed between two export watermarks, see {@link Database#getDelta(long)}.
+ * Applied by {@link Database#applyDelta(PersonDelta)} on top of people list exported at base watermark
+ */
+public class PersonDelta {
+
+    /**
+     * watermark of the previous export (changes after it are included)
+     */
+    private final long baseWatermark;
+
+    /**
+     * watermark of this export (changes up to it are included)
+     */
+    private final long watermark;
+
+    /**
+     * people created or edited since base watermark (as they are at watermark)
+     */
+    private final List<PersonModel> changed;
+
+    /**
+     * ids of people removed since base watermark
+     */
+    private final List<Integer> removed;
+
+    /**
+     * Constructor.
+     *
+     * @param baseWatermark represents {@link PersonDelta#baseWatermark}
+     * @param watermark     represents {@link PersonDelta#watermark}
+     * @param changed       represents {@link PersonDelta#changed}
+     * @param removed       represents {@link PersonDelta#removed}
+     */
+    public PersonDelta(long baseWatermark, long watermark, List<PersonModel> changed, List<Integer> removed) {
+        this.baseWatermark = baseWatermark;
+        this.watermark = watermark;
+        this.changed = Collections.unmodifiableList(changed);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Getter, returns watermark of the previous export
+     *
+     * @return {@link PersonDelta#baseWatermark}
+     */
+    public long getBaseWatermark() {
+        return baseWatermark;
+    }
+
+    /**
+     * Getter, returns watermark of this export
+     *
+     * @return {@link PersonDelta#watermark}
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Getter, returns created or edited people
+     *
+     * @return {@link PersonDelta#changed}
+     */
+    public List<PersonModel> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Getter, returns ids of removed people
+     *
+     * @return {@link PersonDelta#removed}
+     */
+    public List<Integer> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns if there are no changes
+     *
+     * @return true if nothing was changed or removed
+     */
+    public boolean isEmpty() {
+        return changed.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return PersonDelta string representation
+     */
+    @Override
+    public String toString() {
+        return "PersonDelta{" +
+                "baseWatermark=" + baseWatermark +
+                ", watermark=" + watermark +
+                ", changed=" + changed.size() +
+                ", removed=" + removed.size() +
+                '}';
+    }
+}
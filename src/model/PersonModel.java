@@ -12,7 +12,6 @@ import java.io.Serializable;
 public class PersonModel implements Serializable {
 
     private static final long serialVersionUID = -8219218627533074108L;
-    private static int count = 1;
 
     /**
      * person's id
@@ -55,8 +54,14 @@ public class PersonModel implements Serializable {
     private Gender gender;
 
     /**
-     * Constructor.
+     * generation of the last change of person, set by {@link Database} (0 if person wasn't changed)
+     */
+    private transient long generation;
+
+    /**
+     * Constructor
      *
+     * @param id          represents {@link PersonModel#id}
      * @param name        represents {@link PersonModel#name}
      * @param occupation  represents {@link PersonModel#occupation}
      * @param ageCategory represents {@link PersonModel#ageCategory}
@@ -65,9 +70,10 @@ public class PersonModel implements Serializable {
      * @param usCitizen   represents {@link PersonModel#usCitizen}
      * @param gender      represents {@link PersonModel#gender}
      */
-    public PersonModel(String name, String occupation, AgeCategory ageCategory,
+    public PersonModel(int id, String name, String occupation, AgeCategory ageCategory,
                        EmploymentCategory empCat, String taxId,
                        boolean usCitizen, Gender gender) {
+        this.id = id;
         this.name = name;
         this.occupation = occupation;
         this.ageCategory = ageCategory;
@@ -75,27 +81,17 @@ public class PersonModel implements Serializable {
         this.taxId = taxId;
         this.usCitizen = usCitizen;
         this.gender = gender;
-
-        this.id = count++;
     }
 
     /**
-     * Constructor
+     * Copy constructor.
      *
-     * @param id          represents {@link PersonModel#id}
-     * @param name        represents {@link PersonModel#name}
-     * @param occupation  represents {@link PersonModel#occupation}
-     * @param ageCategory represents {@link PersonModel#ageCategory}
-     * @param empCat      represents {@link PersonModel#empCat}
-     * @param taxId       represents {@link PersonModel#taxId}
-     * @param usCitizen   represents {@link PersonModel#usCitizen}
-     * @param gender      represents {@link PersonModel#gender}
+     * @param other person to copy
      */
-    public PersonModel(int id, String name, String occupation, AgeCategory ageCategory,
-                       EmploymentCategory empCat, String taxId,
-                       boolean usCitizen, Gender gender) {
-        this(name, occupation, ageCategory, empCat, taxId, usCitizen, gender);
-        this.id = id;
+    public PersonModel(PersonModel other) {
+        this(other.id, other.name, other.occupation, other.ageCategory, other.empCat,
+                other.taxId, other.usCitizen, other.gender);
+        this.generation = other.generation;
     }
 
     /**
@@ -112,6 +108,11 @@ public class PersonModel implements Serializable {
      */
     public static class PersonBuilder {
 
+        /**
+         * represents {@link PersonModel#id}
+         */
+        private int id;
+
         /**
          * represents {@link PersonModel#name}
          */
@@ -147,6 +148,17 @@ public class PersonModel implements Serializable {
          */
         private Gender gender;
 
+        /**
+         * Set buffer person's id to {@link PersonBuilder#id}
+         *
+         * @param id person's id, see {@link Database#nextId()}
+         * @return {@link PersonBuilder} instance
+         */
+        public PersonBuilder withId(int id) {
+            this.id = id;
+            return this;
+        }
+
         /**
          * Set buffer person's name to {@link PersonBuilder#name}
          *
@@ -259,7 +271,7 @@ public class PersonModel implements Serializable {
          * @return {@link PersonModel} object
          */
         public PersonModel build() {
-            return new PersonModel(this.name, this.occupation, this.ageCategory, this.empCat,
+            return new PersonModel(this.id, this.name, this.occupation, this.ageCategory, this.empCat,
                     this.taxId, this.usCitizen, this.gender);
         }
     }
@@ -336,6 +348,24 @@ public class PersonModel implements Serializable {
         return gender;
     }
 
+    /**
+     * Getter, returns generation of person's last change
+     *
+     * @return {@link PersonModel#generation}
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Setter. Set's Person's {@link PersonModel#generation} to given value
+     *
+     * @param generation generation of {@link Database}
+     */
+    void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
     /**
      * Setter. Set's Person's {@link PersonModel#name} to given value
      *
@@ -0,0 +1,605 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Index of people's names and occupations for case insensitive prefix search.
+ * Keys are kept lower cased as UTF-8 bytes in sorted runs, so people matching a prefix are one range of each run.
+ * Changes are appended to a short log, full log becomes a new run and runs of similar size are merged,
+ * so each key is copied only a few times however many people are indexed.
+ * Runs and written log entries are never changed, so {@link PersonPrefixIndex#snapshot()}
+ * is cheap and its {@link Snapshot} can be searched from background thread while the index is changed
+ */
+public class PersonPrefixIndex {
+
+    /**
+     * Quantity of log entries which become a run
+     */
+    private static final int LOG_LIMIT = 4096;
+
+    /**
+     * Log entry of person which id wasn't indexed
+     */
+    private static final byte ADDED = 0;
+
+    /**
+     * Log entry of person which keys replace indexed ones
+     */
+    private static final byte REPLACED = 1;
+
+    /**
+     * Log entry of removed person
+     */
+    private static final byte REMOVED = 2;
+
+    /**
+     * Sorted runs from the oldest one, each is at most half of the previous one.
+     * The array is replaced on change, snapshots keep the old one
+     */
+    private Run[] runs = new Run[0];
+
+    /**
+     * Ids of logged people
+     */
+    private int[] logIds;
+
+    /**
+     * Lower cased names of logged people
+     */
+    private String[] logNames;
+
+    /**
+     * Lower cased occupations of logged people
+     */
+    private String[] logOccupations;
+
+    /**
+     * Kinds of log entries ({@link PersonPrefixIndex#ADDED}, {@link PersonPrefixIndex#REPLACED}
+     * or {@link PersonPrefixIndex#REMOVED})
+     */
+    private byte[] logKinds;
+
+    /**
+     * Quantity of log entries
+     */
+    private int logSize;
+
+    /**
+     * Constructor. Creates empty index
+     */
+    public PersonPrefixIndex() {
+        allocateLog();
+    }
+
+    /**
+     * Copy constructor. Runs are shared, they are never changed
+     *
+     * @param other index to copy
+     */
+    public PersonPrefixIndex(PersonPrefixIndex other) {
+        runs = other.runs;
+        logIds = other.logIds.clone();
+        logNames = other.logNames.clone();
+        logOccupations = other.logOccupations.clone();
+        logKinds = other.logKinds.clone();
+        logSize = other.logSize;
+    }
+
+    /**
+     * Indexes name and occupation of person which id isn't indexed
+     *
+     * @param id         person's id
+     * @param name       person's name or null
+     * @param occupation person's occupation or null
+     */
+    public void add(int id, String name, String occupation) {
+        append(id, lowerCase(name), lowerCase(occupation), ADDED);
+    }
+
+    /**
+     * Indexes person's name and occupation, replacing ones indexed for the id before
+     *
+     * @param id         person's id
+     * @param name       person's name or null
+     * @param occupation person's occupation or null
+     */
+    public void put(int id, String name, String occupation) {
+        append(id, lowerCase(name), lowerCase(occupation), REPLACED);
+    }
+
+    /**
+     * Forgets person
+     *
+     * @param id person's id
+     */
+    public void remove(int id) {
+        append(id, null, null, REMOVED);
+    }
+
+    /**
+     * Forgets all people
+     */
+    public void clear() {
+        runs = new Run[0];
+        allocateLog();
+    }
+
+    /**
+     * Returns state of index which can be searched from other thread
+     *
+     * @return {@link Snapshot} object
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Appends entry to the log, merges log into the runs if it is full
+     *
+     * @param id         person's id
+     * @param name       lower cased name or null
+     * @param occupation lower cased occupation or null
+     * @param kind       kind of entry
+     */
+    private void append(int id, String name, String occupation, byte kind) {
+        logIds[logSize] = id;
+        logNames[logSize] = name;
+        logOccupations[logSize] = occupation;
+        logKinds[logSize] = kind;
+        logSize++;
+
+        if (logSize == LOG_LIMIT) merge();
+    }
+
+    /**
+     * Turns the latest log entries of people into a new run, starts new log.
+     * The newest runs are merged while the newer one isn't less than half of the older one
+     */
+    private void merge() {
+        int[] changed = new int[logSize];
+        int changedCount = 0;
+        for (int i = 0; i < logSize; i++) {
+            if (logKinds[i] != ADDED) changed[changedCount++] = logIds[i];
+        }
+
+        // people logged more than once were replaced or removed, only their latest entry is kept
+        IntIntMap latest = null;
+        if (changedCount > 0) {
+            latest = new IntIntMap(logSize);
+            for (int i = 0; i < logSize; i++) {
+                latest.put(logIds[i], i);
+            }
+        }
+
+        byte[][] keys = new byte[logSize * 2][];
+        int[] ids = new int[logSize * 2];
+        int count = 0;
+        for (int i = 0; i < logSize; i++) {
+            if (logKinds[i] == REMOVED || latest != null && latest.get(logIds[i], -1) != i) continue;
+            if (logNames[i] != null) {
+                keys[count] = logNames[i].getBytes(StandardCharsets.UTF_8);
+                ids[count++] = logIds[i];
+            }
+            if (logOccupations[i] != null) {
+                keys[count] = logOccupations[i].getBytes(StandardCharsets.UTF_8);
+                ids[count++] = logIds[i];
+            }
+        }
+
+        // added people have no keys in older runs, only replaced or removed ones outdate them
+        int[] replaced = union(new int[0], Arrays.copyOf(changed, changedCount));
+        Run[] merged = Arrays.copyOf(runs, runs.length + 1);
+        merged[runs.length] = Run.of(keys, ids, count, replaced);
+
+        int used = merged.length;
+        while (used > 1 && merged[used - 1].weight() * 2 > merged[used - 2].weight()) {
+            merged[used - 2] = Run.merge(merged[used - 2], merged[used - 1]);
+            used--;
+        }
+        if (merged[0].replaced.length > 0) merged[0] = merged[0].withoutReplaced();
+        runs = Arrays.copyOf(merged, used);
+        allocateLog();
+    }
+
+    /**
+     * Creates new empty log, old log arrays may be read by snapshots
+     */
+    private void allocateLog() {
+        logIds = new int[LOG_LIMIT];
+        logNames = new String[LOG_LIMIT];
+        logOccupations = new String[LOG_LIMIT];
+        logKinds = new byte[LOG_LIMIT];
+        logSize = 0;
+    }
+
+    /**
+     * Returns sorted ids of both arrays
+     *
+     * @param sorted sorted ids without repeats
+     * @param added  ids to add, in any order
+     * @return sorted ids without repeats
+     */
+    private static int[] union(int[] sorted, int[] added) {
+        Arrays.sort(added);
+        int[] result = new int[sorted.length + added.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < sorted.length || j < added.length) {
+            int id = j == added.length || i < sorted.length && sorted[i] <= added[j] ? sorted[i++] : added[j++];
+            if (count == 0 || result[count - 1] != id) result[count++] = id;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns lower cased key
+     *
+     * @param value indexed value or null
+     * @return lower cased value or null
+     */
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * State of index at some moment, searched from any thread
+     */
+    public static final class Snapshot {
+
+        /**
+         * Sorted runs from the oldest one
+         */
+        private final Run[] runs;
+
+        /**
+         * Ids of logged people
+         */
+        private final int[] logIds;
+
+        /**
+         * Lower cased names of logged people
+         */
+        private final String[] logNames;
+
+        /**
+         * Lower cased occupations of logged people
+         */
+        private final String[] logOccupations;
+
+        /**
+         * Kinds of log entries
+         */
+        private final byte[] logKinds;
+
+        /**
+         * Quantity of log entries
+         */
+        private final int logSize;
+
+        /**
+         * Constructor.
+         *
+         * @param index index which state is taken
+         */
+        private Snapshot(PersonPrefixIndex index) {
+            runs = index.runs;
+            logIds = index.logIds;
+            logNames = index.logNames;
+            logOccupations = index.logOccupations;
+            logKinds = index.logKinds;
+            logSize = index.logSize;
+        }
+
+        /**
+         * Checks if index hasn't changed since earlier snapshot was taken
+         *
+         * @param earlier snapshot of the same index
+         * @return true if both snapshots find the same people
+         */
+        public boolean isUnchangedSince(Snapshot earlier) {
+            return runs == earlier.runs && logIds == earlier.logIds && logSize == earlier.logSize;
+        }
+
+        /**
+         * Finds people whose name or occupation starts with prefix (case insensitive)
+         *
+         * @param prefix searched prefix
+         * @return ids of matching people, id may be repeated if both name and occupation match
+         */
+        public int[] find(String prefix) {
+            String lower = prefix.toLowerCase(Locale.ROOT);
+            int[] found = new int[16];
+            int count = 0;
+
+            // the latest log entry of person wins, people in the runs are replaced by it
+            IntIntMap logged = new IntIntMap(logSize);
+            for (int i = logSize - 1; i >= 0; i--) {
+                int id = logIds[i];
+                if (logged.get(id, -1) >= 0) continue;
+                logged.put(id, i);
+
+                if (logKinds[i] == REMOVED) continue;
+                if (startsWith(logNames[i], lower) || startsWith(logOccupations[i], lower)) {
+                    if (count == found.length) found = Arrays.copyOf(found, count * 2);
+                    found[count++] = id;
+                }
+            }
+
+            // keys of run are outdated by newer runs which replaced their people
+            byte[] key = lower.getBytes(StandardCharsets.UTF_8);
+            int[][] newer = new int[runs.length][];
+            int newerCount = 0;
+            for (int r = runs.length - 1; r >= 0; r--) {
+                Run run = runs[r];
+                for (int i = run.lowerBound(key); i < run.count && run.startsWith(i, key); i++) {
+                    int id = run.ids[i];
+                    if (logSize > 0 && logged.get(id, -1) >= 0 || contains(newer, newerCount, id)) continue;
+                    if (count == found.length) found = Arrays.copyOf(found, count * 2);
+                    found[count++] = id;
+                }
+                if (run.replaced.length > 0) newer[newerCount++] = run.replaced;
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        /**
+         * Checks if id is in any of sorted arrays
+         *
+         * @param sorted sorted arrays of ids
+         * @param count  quantity of used arrays
+         * @param id     searched id
+         * @return true if id is found
+         */
+        private static boolean contains(int[][] sorted, int count, int id) {
+            for (int i = 0; i < count; i++) {
+                if (Arrays.binarySearch(sorted[i], id) >= 0) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks lower cased key
+         *
+         * @param key    lower cased key or null
+         * @param prefix lower cased prefix
+         * @return true if key starts with prefix
+         */
+        private static boolean startsWith(String key, String prefix) {
+            return key != null && key.startsWith(prefix);
+        }
+    }
+
+    /**
+     * Immutable sorted keys with ids of their people. Keys are ordered as unsigned UTF-8 bytes, then by ids
+     */
+    private static final class Run {
+
+        /**
+         * Bytes of all keys one after another
+         */
+        private final byte[] keys;
+
+        /**
+         * Start of key in {@link Run#keys}, the next start is end of key
+         */
+        private final int[] starts;
+
+        /**
+         * Ids of people of keys
+         */
+        private final int[] ids;
+
+        /**
+         * Quantity of keys
+         */
+        private final int count;
+
+        /**
+         * Sorted ids of people which keys in older runs are outdated
+         */
+        private final int[] replaced;
+
+        /**
+         * Constructor.
+         *
+         * @param keys     bytes of all keys
+         * @param starts   starts of keys
+         * @param ids      ids of people of keys
+         * @param count    quantity of keys
+         * @param replaced sorted ids of people which keys in older runs are outdated
+         */
+        private Run(byte[] keys, int[] starts, int[] ids, int count, int[] replaced) {
+            this.keys = keys;
+            this.starts = starts;
+            this.ids = ids;
+            this.count = count;
+            this.replaced = replaced;
+        }
+
+        /**
+         * Creates run of keys in any order. Keys are sorted by their first 4 bytes packed with their positions
+         * into longs, only keys with the same first bytes are compared in full
+         *
+         * @param keys     UTF-8 bytes of keys
+         * @param ids      ids of people of keys
+         * @param count    quantity of keys
+         * @param replaced sorted ids of people which keys in older runs are outdated
+         * @return {@link Run} with sorted keys
+         */
+        private static Run of(byte[][] keys, int[] ids, int count, int[] replaced) {
+            // flipped sign bit makes signed order of longs unsigned order of bytes
+            long[] packed = new long[count];
+            int bytes = 0;
+            for (int i = 0; i < count; i++) {
+                packed[i] = ((long) head(keys[i]) << 32 | i) ^ Long.MIN_VALUE;
+                bytes += keys[i].length;
+            }
+            Arrays.sort(packed);
+
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = (int) packed[i];
+            }
+            Comparator<Integer> comparator = (a, b) -> {
+                int result = Arrays.compareUnsigned(keys[a], keys[b]);
+                return result != 0 ? result : Integer.compare(ids[a], ids[b]);
+            };
+            for (int start = 0, end; start < count; start = end) {
+                end = start + 1;
+                while (end < count && packed[end] >>> 32 == packed[start] >>> 32) end++;
+                if (end - start > 1) Arrays.sort(order, start, end, comparator);
+            }
+
+            byte[] sortedKeys = new byte[bytes];
+            int[] starts = new int[count + 1];
+            int[] sortedIds = new int[count];
+            int used = 0;
+            for (int i = 0; i < count; i++) {
+                byte[] key = keys[order[i]];
+                System.arraycopy(key, 0, sortedKeys, used, key.length);
+                used += key.length;
+                starts[i + 1] = used;
+                sortedIds[i] = ids[order[i]];
+            }
+            return new Run(sortedKeys, starts, sortedIds, count, replaced);
+        }
+
+        /**
+         * Returns the first 4 bytes of key, missing bytes are zeros
+         *
+         * @param key UTF-8 bytes of key
+         * @return bytes packed into int, the first byte is the highest
+         */
+        private static int head(byte[] key) {
+            int head = 0;
+            for (int i = 0; i < 4; i++) {
+                head = head << 8 | (i < key.length ? key[i] & 0xff : 0);
+            }
+            return head;
+        }
+
+        /**
+         * Creates run with keys of both runs, keys of older run outdated by newer one are dropped
+         *
+         * @param older older run
+         * @param newer newer run
+         * @return merged {@link Run}
+         */
+        private static Run merge(Run older, Run newer) {
+            IntIntMap dropped = null;
+            if (newer.replaced.length > 0) {
+                dropped = new IntIntMap(newer.replaced.length);
+                for (int id : newer.replaced) {
+                    dropped.put(id, 0);
+                }
+            }
+
+            byte[] keys = new byte[older.keys.length + newer.keys.length];
+            int[] starts = new int[older.count + newer.count + 1];
+            int[] ids = new int[older.count + newer.count];
+            int merged = 0;
+            int used = 0;
+
+            int i = 0;
+            int j = 0;
+            while (i < older.count || j < newer.count) {
+                if (i < older.count && dropped != null && dropped.get(older.ids[i], -1) >= 0) {
+                    i++;
+                    continue;
+                }
+
+                Run from;
+                int index;
+                if (j == newer.count || i < older.count && older.compare(i, newer, j) <= 0) {
+                    from = older;
+                    index = i++;
+                } else {
+                    from = newer;
+                    index = j++;
+                }
+                int start = from.starts[index];
+                int length = from.starts[index + 1] - start;
+                System.arraycopy(from.keys, start, keys, used, length);
+                used += length;
+                ids[merged] = from.ids[index];
+                starts[++merged] = used;
+            }
+
+            int[] replaced = union(older.replaced, newer.replaced.clone());
+            if (merged < older.count + newer.count) {
+                return new Run(Arrays.copyOf(keys, used), Arrays.copyOf(starts, merged + 1),
+                        Arrays.copyOf(ids, merged), merged, replaced);
+            }
+            return new Run(keys, starts, ids, merged, replaced);
+        }
+
+        /**
+         * Returns run with the same keys, used for the oldest run which outdates nothing
+         *
+         * @return {@link Run} without replaced people
+         */
+        private Run withoutReplaced() {
+            return new Run(keys, starts, ids, count, new int[0]);
+        }
+
+        /**
+         * Returns weight of run used to decide when runs are merged
+         *
+         * @return quantity of keys and replaced people
+         */
+        private int weight() {
+            return count + replaced.length;
+        }
+
+        /**
+         * Returns position of the first key which isn't less than given one
+         *
+         * @param key searched key
+         * @return position of key (count if all keys are less)
+         */
+        private int lowerBound(byte[] key) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (Arrays.compareUnsigned(keys, starts[middle], starts[middle + 1], key, 0, key.length) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Checks if key at position starts with prefix
+         *
+         * @param index  position of key
+         * @param prefix prefix bytes
+         * @return true if key starts with prefix
+         */
+        private boolean startsWith(int index, byte[] prefix) {
+            int start = starts[index];
+            return starts[index + 1] - start >= prefix.length
+                    && Arrays.equals(keys, start, start + prefix.length, prefix, 0, prefix.length);
+        }
+
+        /**
+         * Compares key of this run with key of other run, then their ids
+         *
+         * @param index position of key of this run
+         * @param other other run
+         * @param at    position of key of other run
+         * @return negative, zero or positive like {@link Comparable#compareTo(Object)}
+         */
+        private int compare(int index, Run other, int at) {
+            int result = Arrays.compareUnsigned(keys, starts[index], starts[index + 1],
+                    other.keys, other.starts[at], other.starts[at + 1]);
+            return result != 0 ? result : Integer.compare(ids[index], other.ids[at]);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package model;
+
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+import model.enums.SortColumn;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class describes which people to select and how to sort them.
+ * Is turned into parameterized SQL by {@link Database}
+ */
+public class PersonQuery {
+
+    /**
+     * Query without any conditions, sorted by name
+     */
+    public static final PersonQuery ALL = getBuilder().build();
+
+    /**
+     * Name has to start with it (null - any)
+     */
+    private final String namePrefix;
+
+    /**
+     * Occupation has to start with it (null - any)
+     */
+    private final String occupationPrefix;
+
+    /**
+     * Allowed age categories (empty - any)
+     */
+    private final Set<AgeCategory> ageCategories;
+
+    /**
+     * Allowed employment categories (empty - any)
+     */
+    private final Set<EmploymentCategory> empCats;
+
+    /**
+     * Allowed gender (null - any)
+     */
+    private final Gender gender;
+
+    /**
+     * Required US citizenship (null - any)
+     */
+    private final Boolean usCitizen;
+
+    /**
+     * Column to sort by
+     */
+    private final SortColumn sortColumn;
+
+    /**
+     * If sorting is descending
+     */
+    private final boolean descending;
+
+    /**
+     * Maximum quantity of people (0 - unlimited)
+     */
+    private final int limit;
+
+    /**
+     * Quantity of people to skip
+     */
+    private final int offset;
+
+    /**
+     * Constructor. Is used by {@link QueryBuilder}
+     *
+     * @param builder builder with buffered values
+     */
+    private PersonQuery(QueryBuilder builder) {
+        this.namePrefix = builder.namePrefix;
+        this.occupationPrefix = builder.occupationPrefix;
+        this.ageCategories = Collections.unmodifiableSet(EnumSet.copyOf(builder.ageCategories));
+        this.empCats = Collections.unmodifiableSet(EnumSet.copyOf(builder.empCats));
+        this.gender = builder.gender;
+        this.usCitizen = builder.usCitizen;
+        this.sortColumn = builder.sortColumn;
+        this.descending = builder.descending;
+        this.limit = builder.limit;
+        this.offset = builder.offset;
+    }
+
+    /**
+     * Method returns builder object
+     *
+     * @return {@link QueryBuilder} object
+     */
+    public static QueryBuilder getBuilder() {
+        return new QueryBuilder();
+    }
+
+    /**
+     * Builder, to provide build steps for the {@link PersonQuery} object
+     */
+    public static class QueryBuilder {
+
+        /**
+         * represents {@link PersonQuery#namePrefix}
+         */
+        private String namePrefix;
+
+        /**
+         * represents {@link PersonQuery#occupationPrefix}
+         */
+        private String occupationPrefix;
+
+        /**
+         * represents {@link PersonQuery#ageCategories}
+         */
+        private final Set<AgeCategory> ageCategories = EnumSet.noneOf(AgeCategory.class);
+
+        /**
+         * represents {@link PersonQuery#empCats}
+         */
+        private final Set<EmploymentCategory> empCats = EnumSet.noneOf(EmploymentCategory.class);
+
+        /**
+         * represents {@link PersonQuery#gender}
+         */
+        private Gender gender;
+
+        /**
+         * represents {@link PersonQuery#usCitizen}
+         */
+        private Boolean usCitizen;
+
+        /**
+         * represents {@link PersonQuery#sortColumn}
+         */
+        private SortColumn sortColumn = SortColumn.name;
+
+        /**
+         * represents {@link PersonQuery#descending}
+         */
+        private boolean descending;
+
+        /**
+         * represents {@link PersonQuery#limit}
+         */
+        private int limit;
+
+        /**
+         * represents {@link PersonQuery#offset}
+         */
+        private int offset;
+
+        /**
+         * Selects people whose name starts with given prefix
+         *
+         * @param namePrefix name's prefix (null or empty - any)
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder withNamePrefix(String namePrefix) {
+            this.namePrefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+            return this;
+        }
+
+        /**
+         * Selects people whose occupation starts with given prefix
+         *
+         * @param occupationPrefix occupation's prefix (null or empty - any)
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder withOccupationPrefix(String occupationPrefix) {
+            this.occupationPrefix = occupationPrefix == null || occupationPrefix.isEmpty() ? null : occupationPrefix;
+            return this;
+        }
+
+        /**
+         * Selects people of given age categories
+         *
+         * @param ageCategories allowed {@link AgeCategory}s
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder withAgeCategory(AgeCategory... ageCategories) {
+            Collections.addAll(this.ageCategories, ageCategories);
+            return this;
+        }
+
+        /**
+         * Selects people of given employment categories
+         *
+         * @param empCats allowed {@link EmploymentCategory}s
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder withEmployment(EmploymentCategory... empCats) {
+            Collections.addAll(this.empCats, empCats);
+            return this;
+        }
+
+        /**
+         * Selects people of given gender
+         *
+         * @param gender allowed {@link Gender} (null - any)
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder withGender(Gender gender) {
+            this.gender = gender;
+            return this;
+        }
+
+        /**
+         * Selects US citizens or non citizens
+         *
+         * @param usCitizen required citizenship (null - any)
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder withUSCitizen(Boolean usCitizen) {
+            this.usCitizen = usCitizen;
+            return this;
+        }
+
+        /**
+         * Sets sorting
+         *
+         * @param sortColumn column to sort by
+         * @param descending if sorting is descending
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder sortedBy(SortColumn sortColumn, boolean descending) {
+            this.sortColumn = sortColumn;
+            this.descending = descending;
+            return this;
+        }
+
+        /**
+         * Sets which part of result is selected
+         *
+         * @param offset quantity of people to skip
+         * @param limit  maximum quantity of people (0 - unlimited)
+         * @return {@link QueryBuilder} instance
+         */
+        public QueryBuilder withRange(int offset, int limit) {
+            if (offset < 0 || limit < 0) throw new IllegalArgumentException("Invalid range: " + offset + ", " + limit);
+            this.offset = offset;
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Builds query object with buffered values
+         *
+         * @return {@link PersonQuery} object
+         */
+        public PersonQuery build() {
+            return new PersonQuery(this);
+        }
+    }
+
+    /**
+     * Returns whether query has no conditions
+     *
+     * @return true if all people match
+     */
+    public boolean isUnfiltered() {
+        return namePrefix == null && occupationPrefix == null && ageCategories.isEmpty()
+                && empCats.isEmpty() && gender == null && usCitizen == null;
+    }
+
+    /**
+     * Builds SQL conditions joined with AND, without "WHERE" keyword.
+     * Values are left as placeholders and are set by {@link PersonQuery#bind(PreparedStatement, int)}
+     *
+     * @return conditions or empty string if query has none
+     */
+    String toConditions() {
+        List<String> conditions = new ArrayList<>();
+
+        if (namePrefix != null) conditions.add("name LIKE ? ESCAPE '!'");
+        if (occupationPrefix != null) conditions.add("occupation LIKE ? ESCAPE '!'");
+        if (!ageCategories.isEmpty()) conditions.add("age IN (" + placeholders(ageCategories.size()) + ")");
+        if (!empCats.isEmpty()) conditions.add("employment_status IN (" + placeholders(empCats.size()) + ")");
+        if (gender != null) conditions.add("gender = ?");
+        if (usCitizen != null) conditions.add("us_citizen = ?");
+
+        return String.join(" AND ", conditions);
+    }
+
+    /**
+     * Builds ORDER BY clause. Id is always the last key, so order is stable
+     *
+     * @return ORDER BY clause
+     */
+    String toOrderBy() {
+        String direction = descending ? " DESC" : "";
+        if (sortColumn == SortColumn.id) return "ORDER BY id" + direction;
+        return "ORDER BY " + sortColumn.getColumn() + direction + ", id" + direction;
+    }
+
+    /**
+     * Builds LIMIT/OFFSET clause
+     *
+     * @return LIMIT clause or empty string if result isn't limited
+     */
+    String toLimit() {
+        if (limit == 0) return offset == 0 ? "" : "LIMIT " + Integer.MAX_VALUE + " OFFSET " + offset;
+        return "LIMIT " + limit + (offset == 0 ? "" : " OFFSET " + offset);
+    }
+
+    /**
+     * Sets values of placeholders created by {@link PersonQuery#toConditions()}
+     *
+     * @param stmt statement to set values to
+     * @param col  index of the first placeholder
+     * @return index of the next placeholder
+     * @throws SQLException if value can't be set
+     */
+    int bind(PreparedStatement stmt, int col) throws SQLException {
+        if (namePrefix != null) stmt.setString(col++, likePrefix(namePrefix));
+        if (occupationPrefix != null) stmt.setString(col++, likePrefix(occupationPrefix));
+        for (AgeCategory age : ageCategories) stmt.setString(col++, age.name());
+        for (EmploymentCategory emp : empCats) stmt.setString(col++, emp.name());
+        if (gender != null) stmt.setString(col++, gender.name());
+        if (usCitizen != null) stmt.setBoolean(col++, usCitizen);
+        return col;
+    }
+
+    /**
+     * Checks whether person matches query's conditions
+     *
+     * @param person {@link PersonModel} object
+     * @return true if person matches
+     */
+    public boolean matches(PersonModel person) {
+        if (!matchesPrefixes(person.getName(), person.getOccupation())) return false;
+        if (!ageCategories.isEmpty() && !ageCategories.contains(person.getAgeCategory())) return false;
+        if (!empCats.isEmpty() && !empCats.contains(person.getEmpCat())) return false;
+        if (gender != null && gender != person.getGender()) return false;
+        return usCitizen == null || usCitizen == person.isUsCitizen();
+    }
+
+    /**
+     * Checks whether name and occupation start with query's prefixes
+     *
+     * @param name       person's name
+     * @param occupation person's occupation
+     * @return true if both match
+     */
+    boolean matchesPrefixes(String name, String occupation) {
+        if (namePrefix != null && !startsWith(name, namePrefix)) return false;
+        return occupationPrefix == null || startsWith(occupation, occupationPrefix);
+    }
+
+    /**
+     * Case insensitive prefix check (like MySQL's default collation)
+     *
+     * @param value  checked value
+     * @param prefix required prefix
+     * @return true if value starts with prefix
+     */
+    private static boolean startsWith(String value, String prefix) {
+        return value != null && value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /**
+     * Escapes LIKE wildcards in prefix and appends '%'
+     *
+     * @param prefix prefix to search
+     * @return LIKE pattern
+     */
+    private static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    /**
+     * Method builds comma separated list of JDBC parameter placeholders
+     *
+     * @param count quantity of placeholders
+     * @return string like "?, ?, ?"
+     */
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Returns name's prefix
+     *
+     * @return {@link PersonQuery#namePrefix}
+     */
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    /**
+     * Returns occupation's prefix
+     *
+     * @return {@link PersonQuery#occupationPrefix}
+     */
+    public String getOccupationPrefix() {
+        return occupationPrefix;
+    }
+
+    /**
+     * Returns allowed age categories
+     *
+     * @return {@link PersonQuery#ageCategories}
+     */
+    public Set<AgeCategory> getAgeCategories() {
+        return ageCategories;
+    }
+
+    /**
+     * Returns allowed employment categories
+     *
+     * @return {@link PersonQuery#empCats}
+     */
+    public Set<EmploymentCategory> getEmpCats() {
+        return empCats;
+    }
+
+    /**
+     * Returns allowed gender
+     *
+     * @return {@link PersonQuery#gender}
+     */
+    public Gender getGender() {
+        return gender;
+    }
+
+    /**
+     * Returns required US citizenship
+     *
+     * @return {@link PersonQuery#usCitizen}
+     */
+    public Boolean getUsCitizen() {
+        return usCitizen;
+    }
+
+    /**
+     * Returns column to sort by
+     *
+     * @return {@link PersonQuery#sortColumn}
+     */
+    public SortColumn getSortColumn() {
+        return sortColumn;
+    }
+
+    /**
+     * Returns if sorting is descending
+     *
+     * @return {@link PersonQuery#descending}
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+}
@@ -0,0 +1,272 @@
+package model;
+
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+
+import java.util.*;
+
+/**
+ * Person store keeping {@link PersonModel} objects in chunks of array
+ */
+public class PersonStore extends AbstractPersonStore {
+
+    /**
+     * Chunks of people in their order
+     */
+    private PersonModel[][] elements;
+
+    /**
+     * Constructor. Creates empty store
+     */
+    public PersonStore() {
+        elements = new PersonModel[0][];
+    }
+
+    /**
+     * Constructor. Creates store with given people
+     *
+     * @param people people in their order
+     */
+    public PersonStore(Collection<? extends PersonModel> people) {
+        this();
+        addAll(people);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return {@link PersonModel} object
+     */
+    @Override
+    protected PersonModel read(int index) {
+        return elements[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index  position (less than capacity)
+     * @param person {@link PersonModel} object
+     */
+    @Override
+    protected void write(int index, PersonModel person) {
+        elements[index >>> CHUNK_SHIFT][index & CHUNK_MASK] = person;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param from   position of the first copied person
+     * @param to     position the first person is copied to
+     * @param length quantity of copied people
+     */
+    @Override
+    protected void move(int from, int to, int length) {
+        moveChunked(elements, from, to, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param from position of the first person
+     * @param to   position after the last person
+     */
+    @Override
+    protected void release(int from, int to) {
+        while (from < to) {
+            int end = Math.min(to, (from | CHUNK_MASK) + 1);
+            Arrays.fill(elements[from >>> CHUNK_SHIFT], from & CHUNK_MASK, ((end - 1) & CHUNK_MASK) + 1, null);
+            from = end;
+        }
+    }
+
+    /**
+     * Adds chunks if they can't store given quantity of people
+     *
+     * @param capacity required capacity
+     */
+    @Override
+    public void ensureCapacity(int capacity) {
+        elements = growChunks(elements, capacity, () -> new PersonModel[CHUNK_SIZE]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * People objects are shared with the store, they have to be replaced instead of being changed
+     *
+     * @return list reading current chunks
+     */
+    @Override
+    protected List<PersonModel> share() {
+        return new Snapshot(elements.clone(), size);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param chunk number of chunk
+     */
+    @Override
+    protected void copyChunk(int chunk) {
+        elements[chunk] = elements[chunk].clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void discard() {
+        elements = new PersonModel[0][];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return id of person at position
+     */
+    @Override
+    public int getId(int index) {
+        return read(index).getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return name of person at position
+     */
+    @Override
+    public String getName(int index) {
+        return read(index).getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return occupation of person at position
+     */
+    @Override
+    public String getOccupation(int index) {
+        return read(index).getOccupation();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return age category of person at position
+     */
+    @Override
+    public AgeCategory getAgeCategory(int index) {
+        return read(index).getAgeCategory();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return employment category of person at position
+     */
+    @Override
+    public EmploymentCategory getEmpCat(int index) {
+        return read(index).getEmpCat();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return tax id of person at position
+     */
+    @Override
+    public String getTaxId(int index) {
+        return read(index).getTaxId();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return if person at position is US citizen
+     */
+    @Override
+    public boolean isUsCitizen(int index) {
+        return read(index).isUsCitizen();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return gender of person at position
+     */
+    @Override
+    public Gender getGender(int index) {
+        return read(index).getGender();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index position (less than size)
+     * @return generation of person at position
+     */
+    @Override
+    public long getGeneration(int index) {
+        return read(index).getGeneration();
+    }
+
+    /**
+     * Immutable list of people stored in chunks at the moment of snapshot.
+     * Later appended people are written after its size, other changes copy the chunk first
+     */
+    private static final class Snapshot extends AbstractList<PersonModel> implements RandomAccess {
+
+        /**
+         * Chunks shared with the store
+         */
+        private final PersonModel[][] elements;
+
+        /**
+         * Quantity of people
+         */
+        private final int size;
+
+        /**
+         * Constructor.
+         *
+         * @param elements chunks of the store
+         * @param size     quantity of people
+         */
+        private Snapshot(PersonModel[][] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param index position
+         * @return {@link PersonModel} object
+         */
+        @Override
+        public PersonModel get(int index) {
+            Objects.checkIndex(index, size);
+            return elements[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @return quantity of people
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -42,22 +42,41 @@ public class PersonTableModel extends AbstractTableModel {
     @Override
     public void setValueAt(Object aValue, int row, int col) {
 
-        if (rows == null) return;
+        PersonModel person = getPerson(row);
 
-        PersonModel person = rows.get(row);
+        if (person == null) return;
 
+        // snapshots of people list may share the person, so a copy is edited and written back
+        person = new PersonModel(person);
+
+        if (!setPersonValue(person, aValue, col)) return;
+
+        writePerson(row, person);
+
+        fireTableCellUpdated(row, col);
+    }
+
+    /**
+     * Sets value of editable column to person (e.g. to all selected people at once)
+     *
+     * @param person {@link PersonModel} object to change
+     * @param aValue value to be set
+     * @param col    column index
+     * @return false if column isn't editable
+     */
+    public boolean setPersonValue(PersonModel person, Object aValue, int col) {
         switch (col) {
             case 1:
                 person.setName((String) aValue);
-                break;
+                return true;
             case 4:
                 person.setEmpCat((EmploymentCategory) aValue);
-                break;
+                return true;
             case 5:
                 person.setUsCitizen((Boolean) aValue);
-                break;
+                return true;
             default:
-                break;
+                return false;
         }
     }
 
@@ -71,6 +90,8 @@ public class PersonTableModel extends AbstractTableModel {
     @Override
     public boolean isCellEditable(int row, int col) {
 
+        if (isReadOnly()) return false;
+
         switch (col) {
             case 1:
             case 4:
@@ -90,6 +111,47 @@ public class PersonTableModel extends AbstractTableModel {
         this.rows = rows;
     }
 
+    /**
+     * Returns person shown in given row
+     *
+     * @param row row index
+     * @return {@link PersonModel} object or null if row's data isn't available
+     */
+    protected PersonModel getPerson(int row) {
+        if (rows == null) return null;
+        return rows.get(row);
+    }
+
+    /**
+     * Returns id of person shown in given row
+     *
+     * @param row row index
+     * @return person's id or -1 if row's data isn't available
+     */
+    public int getPersonId(int row) {
+        PersonModel person = getPerson(row);
+        return person == null ? -1 : person.getId();
+    }
+
+    /**
+     * Stores edited person of given row
+     *
+     * @param row    row index
+     * @param person edited {@link PersonModel} object
+     */
+    protected void writePerson(int row, PersonModel person) {
+        if (rows != null) rows.set(row, person);
+    }
+
+    /**
+     * Returns whether rows of the table can be edited or deleted
+     *
+     * @return true if table is read only
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
     /**
      * Returns number of columns
      *
@@ -107,7 +169,7 @@ public class PersonTableModel extends AbstractTableModel {
      */
     @Override
     public int getRowCount() {
-        return rows.size();
+        return rows == null ? 0 : rows.size();
     }
 
     /**
@@ -119,7 +181,9 @@ public class PersonTableModel extends AbstractTableModel {
      */
     @Override
     public Object getValueAt(int row, int col) {
-        PersonModel person = rows.get(row);
+        PersonModel person = getPerson(row);
+
+        if (person == null) return null;
 
         switch (col) {
             case 0:
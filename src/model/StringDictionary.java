@@ -0,0 +1,199 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary giving int codes to distinct strings, used by {@link ColumnarPersonStore} string columns.
+ * Strings are kept as UTF-8 bytes in one array, equal strings get the same code.
+ * Entries are never removed, so replaced values stay until the dictionary is cleared
+ */
+class StringDictionary {
+
+    /**
+     * UTF-8 bytes of all entries one after another
+     */
+    private byte[] bytes;
+
+    /**
+     * Quantity of used bytes
+     */
+    private int used;
+
+    /**
+     * Start of entry in {@link StringDictionary#bytes} by code, the next start is end of entry
+     */
+    private int[] offsets;
+
+    /**
+     * Quantity of entries
+     */
+    private int count;
+
+    /**
+     * Hash table of codes + 1 (0 is free cell), open addressing with linear probing
+     */
+    private int[] table;
+
+    /**
+     * Constructor. Creates empty dictionary
+     */
+    StringDictionary() {
+        clear();
+    }
+
+    /**
+     * Constructor. Creates read only dictionary decoding entries of given arrays
+     *
+     * @param bytes   UTF-8 bytes of entries
+     * @param offsets starts of entries
+     * @param count   quantity of entries
+     */
+    private StringDictionary(byte[] bytes, int[] offsets, int count) {
+        this.bytes = bytes;
+        this.used = offsets[count];
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    /**
+     * Returns code of string, adding it if it isn't in dictionary
+     *
+     * @param s string or null
+     * @return code or -1 for null
+     */
+    int encode(String s) {
+        if (s == null) return -1;
+
+        byte[] encoded = s.getBytes(StandardCharsets.UTF_8);
+        int mask = table.length - 1;
+        for (int i = hash(encoded) & mask; ; i = (i + 1) & mask) {
+            int code = table[i] - 1;
+            if (code < 0) {
+                table[i] = add(encoded) + 1;
+                // load factor 3/4
+                if (count * 4 > table.length * 3) rehash();
+                return count - 1;
+            }
+            if (Arrays.equals(bytes, offsets[code], offsets[code + 1], encoded, 0, encoded.length)) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * Returns string of code
+     *
+     * @param code code returned by {@link StringDictionary#encode(String)}
+     * @return string or null for -1
+     */
+    String decode(int code) {
+        if (code < 0) return null;
+        int start = offsets[code];
+        return new String(bytes, start, offsets[code + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns dictionary which decodes entries added so far, it can't encode strings.
+     * Arrays are shared, it is safe because entries are only appended after them
+     * and clearing allocates new arrays
+     *
+     * @return read only {@link StringDictionary}
+     */
+    StringDictionary readOnly() {
+        return new StringDictionary(bytes, offsets, count);
+    }
+
+    /**
+     * Returns quantity of entries
+     *
+     * @return {@link StringDictionary#count}
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Removes all entries
+     */
+    void clear() {
+        bytes = new byte[1024];
+        used = 0;
+        offsets = new int[64];
+        count = 0;
+        table = new int[64];
+    }
+
+    /**
+     * Returns size of dictionary arrays in bytes
+     *
+     * @return bytes used by dictionary
+     */
+    long getByteSize() {
+        return bytes.length + (long) (offsets.length + table.length) * Integer.BYTES;
+    }
+
+    /**
+     * Appends entry
+     *
+     * @param encoded UTF-8 bytes of string
+     * @return code of the entry
+     */
+    private int add(byte[] encoded) {
+        if (used + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(used + encoded.length, bytes.length + (bytes.length >> 1)));
+        }
+        if (count + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+        }
+
+        System.arraycopy(encoded, 0, bytes, used, encoded.length);
+        used += encoded.length;
+        offsets[++count] = used;
+        return count - 1;
+    }
+
+    /**
+     * Doubles hash table and puts codes again
+     */
+    private void rehash() {
+        int[] newTable = new int[table.length * 2];
+        int mask = newTable.length - 1;
+        for (int code = 0; code < count; code++) {
+            int start = offsets[code];
+            int i = hash(bytes, start, offsets[code + 1]) & mask;
+            while (newTable[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newTable[i] = code + 1;
+        }
+        table = newTable;
+    }
+
+    /**
+     * Returns hash of string bytes
+     *
+     * @param encoded UTF-8 bytes
+     * @return hash
+     */
+    private static int hash(byte[] encoded) {
+        return hash(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Returns hash of range of bytes, mixed so similar strings spread over table
+     *
+     * @param data  bytes
+     * @param start start of range
+     * @param end   end of range
+     * @return hash
+     */
+    private static int hash(byte[] data, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + data[i];
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,10 @@
+package model.enums;
+
+/**
+ * Enum to represent ways to resolve imported person having id of already present one
+ */
+public enum IdConflict {
+    keepExisting,
+    replaceExisting,
+    assignNewId
+}
@@ -0,0 +1,32 @@
+package model.enums;
+
+/**
+ * Enum to represent columns people can be sorted by
+ */
+public enum SortColumn {
+    id("id"),
+    name("name"),
+    occupation("occupation"),
+    ageCategory("age"),
+    employment("employment_status"),
+    usCitizen("us_citizen"),
+    gender("gender");
+
+    /**
+     * Field represents column's name in people table
+     */
+    private final String column;
+
+    SortColumn(String column) {
+        this.column = column;
+    }
+
+    /**
+     * Returns column's name in people table
+     *
+     * @return column's name
+     */
+    public String getColumn() {
+        return column;
+    }
+}
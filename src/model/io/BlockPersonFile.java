@@ -0,0 +1,289 @@
+package model.io;
+
+import model.PersonModel;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader of person file split into compressed blocks (see {@link PersonFileWriter}).
+ * <p>
+ * Block index is read from the end of file when it is opened, so any block can be read separately.
+ * Every block is checked by its CRC32C before decompression, damaged block is reported
+ * by {@link CorruptedBlockException}. Blocks are read with positional reads, so they can be read concurrently
+ */
+public class BlockPersonFile implements Closeable {
+
+    /**
+     * Channel of read file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Quantity of people written in header
+     */
+    private final long count;
+
+    /**
+     * Offsets of blocks in file
+     */
+    private final long[] offsets;
+
+    /**
+     * Compressed sizes of blocks
+     */
+    private final int[] compressedSizes;
+
+    /**
+     * Uncompressed sizes of blocks
+     */
+    private final int[] sizes;
+
+    /**
+     * Quantities of people in blocks
+     */
+    private final int[] counts;
+
+    /**
+     * CRC32C of compressed bytes of blocks
+     */
+    private final int[] checksums;
+
+    /**
+     * Constructor. Opens file, reads its header and block index
+     *
+     * @param file {@link File} to read
+     * @throws IOException if file can't be read or isn't compressed person file
+     */
+    public BlockPersonFile(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            long fileSize = channel.size();
+            if (fileSize < PersonFileFormat.HEADER_SIZE + PersonFileFormat.FOOTER_SIZE) {
+                throw new IOException("Not a compressed person file: " + file);
+            }
+
+            ByteBuffer header = read(0, PersonFileFormat.HEADER_SIZE);
+            if (header.getInt() != PersonFileFormat.MAGIC) {
+                throw new IOException("Not a person file: " + file);
+            }
+            short version = header.getShort();
+            if (version != PersonFileFormat.VERSION) {
+                throw new IOException("Unsupported person file version: " + version);
+            }
+            short flags = header.getShort();
+            if ((flags & PersonFileFormat.FLAG_COMPRESSED) == 0 || (flags & PersonFileFormat.FLAG_DELTA) != 0) {
+                throw new IOException("Not a compressed person file: " + file);
+            }
+            count = header.getLong();
+
+            ByteBuffer footer = read(fileSize - PersonFileFormat.FOOTER_SIZE, PersonFileFormat.FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int blocks = footer.getInt();
+            int indexChecksum = footer.getInt();
+            if (footer.getInt() != PersonFileFormat.FOOTER_MAGIC) {
+                throw new IOException("Compressed person file is truncated: " + file);
+            }
+
+            long indexSize = (long) blocks * PersonFileFormat.INDEX_ENTRY_SIZE;
+            if (blocks < 0 || indexOffset < PersonFileFormat.HEADER_SIZE
+                    || indexOffset + indexSize != fileSize - PersonFileFormat.FOOTER_SIZE) {
+                throw new IOException("Block index of person file is corrupted: " + file);
+            }
+
+            ByteBuffer index = read(indexOffset, (int) indexSize);
+            CRC32C crc = new CRC32C();
+            crc.update(index.duplicate());
+            if ((int) crc.getValue() != indexChecksum) {
+                throw new IOException("Block index of person file is corrupted: " + file);
+            }
+
+            offsets = new long[blocks];
+            compressedSizes = new int[blocks];
+            sizes = new int[blocks];
+            counts = new int[blocks];
+            checksums = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                offsets[i] = index.getLong();
+                compressedSizes[i] = index.getInt();
+                sizes[i] = index.getInt();
+                counts[i] = index.getInt();
+                checksums[i] = index.getInt();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns quantity of people written in header
+     *
+     * @return people count or -1 if it is unknown
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns quantity of blocks
+     *
+     * @return quantity of blocks
+     */
+    public int getBlockCount() {
+        return offsets.length;
+    }
+
+    /**
+     * Returns quantity of people in block
+     *
+     * @param block number of block
+     * @return quantity of people
+     */
+    public int getBlockSize(int block) {
+        return counts[block];
+    }
+
+    /**
+     * Reads, checks and decodes block. Can be called concurrently
+     *
+     * @param block number of block
+     * @return list of {@link PersonModel}s in block
+     * @throws IOException if file can't be read or block is damaged
+     */
+    public List<PersonModel> readBlock(int block) throws IOException {
+        ByteBuffer compressed = read(offsets[block], compressedSizes[block]);
+
+        CRC32C crc = new CRC32C();
+        crc.update(compressed.duplicate());
+        if ((int) crc.getValue() != checksums[block]) {
+            throw new CorruptedBlockException(block, "checksum mismatch");
+        }
+
+        byte[] raw = new byte[sizes[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array(), 0, compressed.remaining());
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == raw.length) {
+                    // only the end of stream may be left
+                    if (inflater.inflate(new byte[1]) > 0) throw new CorruptedBlockException(block, "unexpected size");
+                } else {
+                    length += inflater.inflate(raw, length, raw.length - length);
+                }
+                if (!inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new CorruptedBlockException(block, "truncated data");
+                }
+            }
+            if (length != raw.length) {
+                throw new CorruptedBlockException(block, "unexpected size");
+            }
+        } catch (DataFormatException e) {
+            throw new CorruptedBlockException(block, "can't decompress", e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(raw);
+        List<PersonModel> people = new ArrayList<>(counts[block]);
+        try {
+            while (buf.hasRemaining()) {
+                int bodySize = PersonRecordCodec.readVarint(buf);
+                if (bodySize < 0 || bodySize > buf.remaining()) {
+                    throw new CorruptedBlockException(block, "truncated record");
+                }
+                int end = buf.position() + bodySize;
+                people.add(PersonRecordCodec.readBody(buf));
+                if (buf.position() != end) throw new CorruptedBlockException(block, "malformed record");
+            }
+        } catch (RuntimeException e) {
+            throw new CorruptedBlockException(block, "malformed record", e);
+        }
+
+        if (people.size() != counts[block]) {
+            throw new CorruptedBlockException(block, "unexpected people count");
+        }
+        return people;
+    }
+
+    /**
+     * Reads all blocks in parallel (in common {@link ForkJoinPool}) and returns people in their order
+     *
+     * @return list of {@link PersonModel}s
+     * @throws IOException if file can't be read or any block is damaged
+     */
+    public List<PersonModel> readAll() throws IOException {
+        List<Future<List<PersonModel>>> futures = new ArrayList<>(offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            int block = i;
+            futures.add(ForkJoinPool.commonPool().submit(() -> readBlock(block)));
+        }
+
+        long total = 0;
+        for (int count : counts) total += count;
+        List<PersonModel> people = new ArrayList<>((int) Math.min(total, Integer.MAX_VALUE - 8));
+
+        try {
+            for (Future<List<PersonModel>> future : futures) {
+                people.addAll(future.get());
+            }
+        } catch (ExecutionException e) {
+            // fork/join wraps checked exceptions of tasks
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) throw (IOException) cause;
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reading was interrupted", e);
+        } finally {
+            for (Future<List<PersonModel>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return people;
+    }
+
+    /**
+     * Reads bytes at given position
+     *
+     * @param position position in file
+     * @param length   quantity of bytes
+     * @return heap buffer with read bytes
+     * @throws IOException if file ends earlier
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new EOFException("Person file is truncated");
+            }
+        }
+        return buf.flip();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IOException if file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
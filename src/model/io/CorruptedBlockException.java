@@ -0,0 +1,46 @@
+package model.io;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when block of compressed person file is damaged
+ */
+public class CorruptedBlockException extends IOException {
+
+    /**
+     * Number of damaged block
+     */
+    private final int block;
+
+    /**
+     * Constructor.
+     *
+     * @param block   number of damaged block
+     * @param message description of damage
+     */
+    public CorruptedBlockException(int block, String message) {
+        super("Block " + block + " is corrupted: " + message);
+        this.block = block;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param block   number of damaged block
+     * @param message description of damage
+     * @param cause   exception caused by damage
+     */
+    public CorruptedBlockException(int block, String message, Throwable cause) {
+        super("Block " + block + " is corrupted: " + message, cause);
+        this.block = block;
+    }
+
+    /**
+     * Returns number of damaged block
+     *
+     * @return {@link CorruptedBlockException#block}
+     */
+    public int getBlock() {
+        return block;
+    }
+}
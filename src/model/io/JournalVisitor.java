@@ -0,0 +1,92 @@
+package model.io;
+
+import model.PersonModel;
+
+import java.util.List;
+
+/**
+ * Receives snapshot and entries of {@link PersonJournal} in the order they were written, while journal is replayed
+ */
+public interface JournalVisitor {
+
+    /**
+     * People of the snapshot, called before any entry
+     *
+     * @param people people list at the moment of snapshot
+     */
+    void snapshot(List<PersonModel> people);
+
+    /**
+     * Person was appended to people list and marked as added
+     *
+     * @param person added {@link PersonModel}
+     */
+    void added(PersonModel person);
+
+    /**
+     * Person with the same id was edited (or replaced) and marked as edited
+     *
+     * @param person edited {@link PersonModel}
+     */
+    void updated(PersonModel person);
+
+    /**
+     * Person was removed from people list and marked as removed
+     *
+     * @param id person's id
+     */
+    void removed(int id);
+
+    /**
+     * People list and its changes were cleared
+     */
+    void cleared();
+
+    /**
+     * People list is loaded from database. Loaded people aren't journaled,
+     * so people list has to be loaded again and changes applied to it
+     */
+    void loaded();
+
+    /**
+     * Person is marked as added without changing people list (written when journal is compacted)
+     *
+     * @param person {@link PersonModel} as it was when it was marked
+     */
+    void markedAdded(PersonModel person);
+
+    /**
+     * Person is marked as edited without changing people list (written when journal is compacted)
+     *
+     * @param person {@link PersonModel} as it was when it was marked
+     */
+    void markedUpdated(PersonModel person);
+
+    /**
+     * Person is marked as removed (written when journal is compacted)
+     *
+     * @param id person's id
+     */
+    void markedRemoved(int id);
+
+    /**
+     * Changes were taken to be saved to database
+     *
+     * @param token number identifying taken changes
+     */
+    void taken(int token);
+
+    /**
+     * Taken changes were saved to database
+     *
+     * @param token number identifying taken changes
+     */
+    void saved(int token);
+
+    /**
+     * Taken changes failed to be saved and were put back
+     *
+     * @param token number identifying taken changes
+     */
+    void restored(int token);
+}
@@ -0,0 +1,308 @@
+package model.io;
+
+import model.PersonModel;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read only random access to people of binary person file (see {@link PersonFileWriter}).
+ * <p>
+ * File is memory mapped in segments, so it may be larger than the heap, and people are decoded
+ * only when they are requested. Offset of every {@link MappedPersonFile#STRIDE}-th record is kept
+ * in a sparse index, which is built lazily up to the requested row: opening a file with known
+ * people count doesn't read its records at all. Sequential access continues from the last read record
+ */
+public class MappedPersonFile implements Closeable {
+
+    /**
+     * Quantity of records between indexed offsets
+     */
+    private static final int STRIDE = 64;
+
+    /**
+     * Maximum size of mapped segment
+     */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Channel of mapped file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Size of file in bytes
+     */
+    private final long fileSize;
+
+    /**
+     * Quantity of people in file
+     */
+    private final int size;
+
+    /**
+     * Mapped segments. Each segment starts at a record and contains only whole records
+     */
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /**
+     * Offsets in file where segments start
+     */
+    private long[] segmentStarts = new long[4];
+
+    /**
+     * Offset of every {@link MappedPersonFile#STRIDE}-th record
+     */
+    private long[] checkpoints = new long[64];
+
+    /**
+     * Quantity of records which offsets are known
+     */
+    private int indexedRows;
+
+    /**
+     * Offset of record number {@link MappedPersonFile#indexedRows}
+     */
+    private long scanOffset = PersonFileFormat.HEADER_SIZE;
+
+    /**
+     * Row following the last read one
+     */
+    private int cursorRow = -1;
+
+    /**
+     * Offset of {@link MappedPersonFile#cursorRow} record
+     */
+    private long cursorOffset;
+
+    /**
+     * If file is closed
+     */
+    private boolean closed;
+
+    /**
+     * Constructor. Opens file and reads its header.
+     * If header has no people count (file wasn't closed properly), the whole file is indexed
+     *
+     * @param file {@link File} to open
+     * @throws IOException if file can't be read or isn't binary person file
+     */
+    public MappedPersonFile(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            fileSize = channel.size();
+
+            ByteBuffer header = ByteBuffer.allocate(PersonFileFormat.HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) break;
+            }
+            header.flip();
+
+            if (header.remaining() < PersonFileFormat.HEADER_SIZE || header.getInt() != PersonFileFormat.MAGIC) {
+                throw new IOException("Not a person file: " + file);
+            }
+            short version = header.getShort();
+            if (version != PersonFileFormat.VERSION) {
+                throw new IOException("Unsupported person file version: " + version);
+            }
+            short flags = header.getShort();
+            if ((flags & PersonFileFormat.FLAG_COMPRESSED) != 0) {
+                throw new IOException("Compressed person file has to be read by BlockPersonFile: " + file);
+            }
+            if ((flags & PersonFileFormat.FLAG_DELTA) != 0) {
+                throw new IOException("Delta person file has to be read by PersonDeltaFile: " + file);
+            }
+            long count = header.getLong();
+
+            if (count < 0) {
+                indexTo(Integer.MAX_VALUE - 1);
+                size = indexedRows;
+            } else if (count >= Integer.MAX_VALUE) {
+                throw new IOException("Too many people in file: " + count);
+            } else {
+                size = (int) count;
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns quantity of people in file
+     *
+     * @return quantity of people
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes person at given position
+     *
+     * @param row position of person in file
+     * @return {@link PersonModel} object
+     * @throws IOException if file is closed, truncated or corrupted
+     */
+    public synchronized PersonModel get(int row) throws IOException {
+        Objects.checkIndex(row, size);
+        if (closed) throw new IOException("File is closed");
+
+        indexTo(row);
+        if (row >= indexedRows) throw new EOFException("File has fewer people than its header says");
+
+        int row0;
+        long offset;
+        if (cursorRow >= 0 && cursorRow <= row && row - cursorRow < STRIDE) {
+            row0 = cursorRow;
+            offset = cursorOffset;
+        } else {
+            row0 = row / STRIDE * STRIDE;
+            offset = checkpoints[row / STRIDE];
+        }
+
+        for (; row0 < row; row0++) {
+            offset = skip(offset);
+        }
+
+        int index = segmentIndex(offset);
+        ByteBuffer segment = segments.get(index);
+        segment.position((int) (offset - segmentStarts[index]));
+
+        int bodySize = PersonRecordCodec.readVarint(segment);
+        int end = segment.position() + bodySize;
+        PersonModel person = PersonRecordCodec.readBody(segment);
+        if (segment.position() != end) throw new IOException("Corrupted person record at offset " + offset);
+
+        cursorRow = row + 1;
+        cursorOffset = segmentStarts[index] + end;
+        return person;
+    }
+
+    /**
+     * Indexes records up to given row (or up to the end of file)
+     *
+     * @param row row which offset has to be known
+     * @throws IOException if file is corrupted
+     */
+    private void indexTo(int row) throws IOException {
+        while (indexedRows <= row && scanOffset < fileSize) {
+            if (indexedRows % STRIDE == 0) {
+                int checkpoint = indexedRows / STRIDE;
+                if (checkpoint == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+                }
+                checkpoints[checkpoint] = scanOffset;
+            }
+            scanOffset = scan(scanOffset);
+            indexedRows++;
+        }
+    }
+
+    /**
+     * Checks record which isn't indexed yet. Maps new segment if record doesn't fit mapped ones
+     *
+     * @param offset offset of record
+     * @return offset of the next record
+     * @throws IOException if record is truncated or too large
+     */
+    private long scan(long offset) throws IOException {
+        if (!segments.isEmpty()) {
+            int last = segments.size() - 1;
+            long end = recordEnd(segments.get(last), segmentStarts[last], offset);
+            if (end > 0) return end;
+        }
+
+        MappedByteBuffer segment = map(offset);
+        long end = recordEnd(segment, offset, offset);
+        if (end > 0) return end;
+
+        if (offset + segment.limit() == fileSize) throw new EOFException("Truncated person record at offset " + offset);
+        throw new IOException("Person record at offset " + offset + " is too large");
+    }
+
+    /**
+     * Returns end of record if segment contains the whole record
+     *
+     * @param segment mapped segment
+     * @param start   offset of segment in file
+     * @param offset  offset of record
+     * @return offset of the next record or -1 if record doesn't fit the segment
+     */
+    private static long recordEnd(ByteBuffer segment, long start, long offset) {
+        if (offset - start >= segment.limit()) return -1;
+
+        segment.position((int) (offset - start));
+        int bodySize = PersonRecordCodec.readVarint(segment);
+        if (bodySize < 0 || bodySize > segment.remaining()) return -1;
+        return start + segment.position() + bodySize;
+    }
+
+    /**
+     * Maps new segment starting at given offset
+     *
+     * @param offset offset of record starting the segment
+     * @return mapped segment
+     * @throws IOException if file can't be mapped
+     */
+    private MappedByteBuffer map(long offset) throws IOException {
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                Math.min(SEGMENT_SIZE, fileSize - offset));
+
+        if (segments.size() == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, segmentStarts.length * 2);
+        }
+        segmentStarts[segments.size()] = offset;
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Skips indexed record
+     *
+     * @param offset offset of record
+     * @return offset of the next record
+     */
+    private long skip(long offset) {
+        int index = segmentIndex(offset);
+        ByteBuffer segment = segments.get(index);
+        segment.position((int) (offset - segmentStarts[index]));
+
+        int bodySize = PersonRecordCodec.readVarint(segment);
+        return segmentStarts[index] + segment.position() + bodySize;
+    }
+
+    /**
+     * Finds segment containing indexed record
+     *
+     * @param offset offset of record
+     * @return index of segment
+     */
+    private int segmentIndex(long offset) {
+        int index = Arrays.binarySearch(segmentStarts, 0, segments.size(), offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Closes file. Mapped memory is released by garbage collector
+     *
+     * @throws IOException if file can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        segments.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,169 @@
+package model.io;
+
+import model.PersonDelta;
+import model.PersonModel;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Class writes and reads delta person files.
+ * <p>
+ * File is: header (magic "PER2", version, {@link PersonFileFormat#FLAG_DELTA} flag, changed people count),
+ * base watermark and watermark (8 bytes each), records of changed people encoded by {@link PersonRecordCodec},
+ * removed people count (4 bytes) and their ids (4 bytes each), then CRC32C of all preceding bytes
+ */
+public class PersonDeltaFile {
+
+    /**
+     * Size of write buffer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of watermarks following the header
+     */
+    private static final int WATERMARKS_SIZE = 16;
+
+    /**
+     * Utility class
+     */
+    private PersonDeltaFile() {
+    }
+
+    /**
+     * Writes delta to file
+     *
+     * @param file  {@link File} to write to
+     * @param delta {@link PersonDelta} to write
+     * @throws IOException if file can't be written
+     */
+    public static void write(File file, PersonDelta delta) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C crc = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+            buffer.putInt(PersonFileFormat.MAGIC);
+            buffer.putShort(PersonFileFormat.VERSION);
+            buffer.putShort(PersonFileFormat.FLAG_DELTA);
+            buffer.putLong(delta.getChanged().size());
+            buffer.putLong(delta.getBaseWatermark());
+            buffer.putLong(delta.getWatermark());
+
+            for (PersonModel person : delta.getChanged()) {
+                int bodySize = PersonRecordCodec.bodySize(person);
+                int recordSize = PersonRecordCodec.MAX_VARINT_SIZE + bodySize;
+                if (buffer.remaining() < recordSize) {
+                    buffer = flush(channel, buffer, crc, recordSize);
+                }
+                PersonRecordCodec.write(person, bodySize, buffer);
+            }
+
+            if (buffer.remaining() < Integer.BYTES) buffer = flush(channel, buffer, crc, 0);
+            buffer.putInt(delta.getRemoved().size());
+            for (int id : delta.getRemoved()) {
+                if (buffer.remaining() < Integer.BYTES) buffer = flush(channel, buffer, crc, 0);
+                buffer.putInt(id);
+            }
+
+            buffer = flush(channel, buffer, crc, 0);
+            buffer.putInt((int) crc.getValue());
+            flush(channel, buffer, null, 0);
+        }
+    }
+
+    /**
+     * Reads delta from file
+     *
+     * @param file {@link File} to read
+     * @return read {@link PersonDelta}
+     * @throws IOException if file can't be read, isn't delta person file or is corrupted
+     */
+    public static PersonDelta read(File file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Delta person file is too big: " + file);
+
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new EOFException("Truncated delta person file");
+            }
+            buffer.flip();
+        }
+
+        int minSize = PersonFileFormat.HEADER_SIZE + WATERMARKS_SIZE + 2 * Integer.BYTES;
+        if (buffer.remaining() < minSize || buffer.getInt() != PersonFileFormat.MAGIC) {
+            throw new IOException("Not a person file: " + file);
+        }
+        short version = buffer.getShort();
+        if (version != PersonFileFormat.VERSION) {
+            throw new IOException("Unsupported person file version: " + version);
+        }
+        if ((buffer.getShort() & PersonFileFormat.FLAG_DELTA) == 0) {
+            throw new IOException("Not a delta person file: " + file);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.limit() - Integer.BYTES);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+            throw new IOException("Delta person file is corrupted: " + file);
+        }
+
+        long count = buffer.getLong();
+        long baseWatermark = buffer.getLong();
+        long watermark = buffer.getLong();
+
+        try {
+            List<PersonModel> changed = new ArrayList<>((int) Math.min(count, buffer.remaining()));
+            for (long i = 0; i < count; i++) {
+                int bodySize = PersonRecordCodec.readVarint(buffer);
+                int end = buffer.position() + bodySize;
+                if (bodySize < 0 || end > buffer.limit()) throw new EOFException("Truncated person record");
+
+                changed.add(PersonRecordCodec.readBody(buffer));
+                if (buffer.position() != end) throw new IOException("Corrupted person record");
+            }
+
+            int removedCount = buffer.getInt();
+            List<Integer> removed = new ArrayList<>(Math.min(removedCount, buffer.remaining() / Integer.BYTES));
+            for (int i = 0; i < removedCount; i++) {
+                removed.add(buffer.getInt());
+            }
+
+            return new PersonDelta(baseWatermark, watermark, changed, removed);
+        } catch (RuntimeException e) {
+            // sizes are checked by CRC, so broken record means file wasn't written by this class
+            throw new IOException("Corrupted delta person file: " + file, e);
+        }
+    }
+
+    /**
+     * Writes buffered bytes to file, adding them to CRC
+     *
+     * @param channel  channel of written file
+     * @param buffer   buffer to write
+     * @param crc      CRC of written bytes (null if bytes aren't added)
+     * @param required quantity of bytes which have to fit into returned buffer
+     * @return empty buffer (the given one if it is big enough)
+     * @throws IOException if file can't be written
+     */
+    private static ByteBuffer flush(FileChannel channel, ByteBuffer buffer, CRC32C crc, int required)
+            throws IOException {
+        buffer.flip();
+        if (crc != null) crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return buffer.capacity() < required ? ByteBuffer.allocate(required) : buffer;
+    }
+}
@@ -0,0 +1,108 @@
+package model.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Enum to represent formats of person files.
+ * Format is detected by the first bytes of the file
+ */
+public enum PersonFileFormat {
+    /**
+     * Java serialization of PersonModel[] (written by the first versions of the application)
+     */
+    legacy,
+    /**
+     * Binary format version 2, see {@link PersonFileWriter}
+     */
+    binary,
+    /**
+     * Binary format version 2 split into compressed blocks, see {@link BlockPersonFile}
+     */
+    compressed,
+    /**
+     * Binary format version 2 with changes since export watermark, see {@link PersonDeltaFile}
+     */
+    delta,
+    /**
+     * Unknown content
+     */
+    unknown;
+
+    /**
+     * Magic number "PER2" starting binary files
+     */
+    static final int MAGIC = 0x50455232;
+
+    /**
+     * Version of binary format
+     */
+    static final short VERSION = 2;
+
+    /**
+     * Size of binary header: magic (4), version (2), flags (2), people count (8)
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Position of people count in binary header
+     */
+    static final int COUNT_OFFSET = 8;
+
+    /**
+     * Header flag of files split into compressed blocks
+     */
+    static final short FLAG_COMPRESSED = 1;
+
+    /**
+     * Header flag of delta files
+     */
+    static final short FLAG_DELTA = 2;
+
+    /**
+     * Size of block index entry: offset (8), compressed size (4), size (4), people count (4), CRC32C (4)
+     */
+    static final int INDEX_ENTRY_SIZE = 24;
+
+    /**
+     * Size of compressed file footer: index offset (8), blocks count (4), index CRC32C (4), magic (4)
+     */
+    static final int FOOTER_SIZE = 20;
+
+    /**
+     * Magic number "PERX" ending compressed files
+     */
+    static final int FOOTER_MAGIC = 0x50455258;
+
+    /**
+     * Magic number starting Java serialization stream
+     */
+    private static final int SERIALIZATION_MAGIC = 0xACED;
+
+    /**
+     * Detects format of file by its first bytes (and header flags of binary files)
+     *
+     * @param file {@link File} to check
+     * @return format of the file
+     * @throws IOException if file can't be read
+     */
+    public static PersonFileFormat detect(File file) throws IOException {
+        byte[] head = new byte[8];
+        int read;
+        try (InputStream in = new FileInputStream(file)) {
+            read = in.readNBytes(head, 0, head.length);
+        }
+
+        if (read >= 2 && ((head[0] & 0xFF) << 8 | (head[1] & 0xFF)) == SERIALIZATION_MAGIC) {
+            return legacy;
+        }
+        if (read == 8 && ((head[0] & 0xFF) << 24 | (head[1] & 0xFF) << 16 | (head[2] & 0xFF) << 8 | (head[3] & 0xFF)) == MAGIC) {
+            short flags = (short) ((head[6] & 0xFF) << 8 | (head[7] & 0xFF));
+            if ((flags & FLAG_DELTA) != 0) return delta;
+            return (flags & FLAG_COMPRESSED) != 0 ? compressed : binary;
+        }
+        return unknown;
+    }
+}
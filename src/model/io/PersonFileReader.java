@@ -0,0 +1,164 @@
+package model.io;
+
+import model.PersonModel;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class reads people from binary person file (version 2) one by one,
+ * see {@link PersonFileWriter} for the format
+ */
+public class PersonFileReader implements Closeable {
+
+    /**
+     * Size of read buffer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Channel of read file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Buffer with read but not decoded bytes
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Quantity of people written in header (-1 if writer wasn't closed)
+     */
+    private final long count;
+
+    /**
+     * If the whole file is read into buffer
+     */
+    private boolean eof;
+
+    /**
+     * Constructor. Opens file and reads its header
+     *
+     * @param file {@link File} to read
+     * @throws IOException if file can't be read or isn't binary person file
+     */
+    public PersonFileReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+
+        try {
+            if (!ensure(PersonFileFormat.HEADER_SIZE) || buffer.getInt() != PersonFileFormat.MAGIC) {
+                throw new IOException("Not a person file: " + file);
+            }
+            short version = buffer.getShort();
+            if (version != PersonFileFormat.VERSION) {
+                throw new IOException("Unsupported person file version: " + version);
+            }
+            short flags = buffer.getShort();
+            if ((flags & PersonFileFormat.FLAG_COMPRESSED) != 0) {
+                throw new IOException("Compressed person file has to be read by BlockPersonFile: " + file);
+            }
+            if ((flags & PersonFileFormat.FLAG_DELTA) != 0) {
+                throw new IOException("Delta person file has to be read by PersonDeltaFile: " + file);
+            }
+            count = buffer.getLong();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns quantity of people written in header
+     *
+     * @return people count or -1 if it is unknown
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Reads next person
+     *
+     * @return {@link PersonModel} object or null if there are no more people
+     * @throws IOException if file can't be read or is truncated
+     */
+    public PersonModel read() throws IOException {
+        if (!ensure(1)) return null;
+
+        int bodySize = PersonRecordCodec.readVarint(buffer);
+        if (bodySize < 0) {
+            ensure(PersonRecordCodec.MAX_VARINT_SIZE);
+            bodySize = PersonRecordCodec.readVarint(buffer);
+            if (bodySize < 0) throw new EOFException("Truncated person record");
+        }
+
+        if (!ensure(bodySize)) throw new EOFException("Truncated person record");
+
+        int end = buffer.position() + bodySize;
+        PersonModel person = PersonRecordCodec.readBody(buffer);
+        if (buffer.position() != end) throw new IOException("Corrupted person record");
+        return person;
+    }
+
+    /**
+     * Reads all remaining people
+     *
+     * @return list of {@link PersonModel}s
+     * @throws IOException if file can't be read
+     */
+    public List<PersonModel> readAll() throws IOException {
+        List<PersonModel> people = new ArrayList<>(count > 0 && count < Integer.MAX_VALUE ? (int) count : 16);
+        PersonModel person;
+        while ((person = read()) != null) {
+            people.add(person);
+        }
+        return people;
+    }
+
+    /**
+     * Makes sure buffer has at least given quantity of bytes
+     *
+     * @param bytes required quantity of bytes
+     * @return false if file ends earlier
+     * @throws IOException if file can't be read
+     */
+    private boolean ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return true;
+
+        if (buffer.capacity() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(bytes);
+            bigger.put(buffer);
+            buffer = bigger;
+        } else {
+            buffer.compact();
+        }
+
+        while (!eof && buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) eof = true;
+        }
+        // read as much as fits to reduce system calls
+        if (!eof && buffer.hasRemaining() && channel.read(buffer) < 0) eof = true;
+
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IOException if file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
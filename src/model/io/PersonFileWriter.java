@@ -0,0 +1,268 @@
+package model.io;
+
+import model.PersonModel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/**
+ * Class writes people to binary person file (version 2) one by one.
+ * <p>
+ * File is: header (magic "PER2", version, flags, people count) and people records
+ * encoded by {@link PersonRecordCodec}. People count is written when the writer is closed.
+ * <p>
+ * Compressed file has the same header (with {@link PersonFileFormat#FLAG_COMPRESSED} flag), records are
+ * grouped into blocks compressed by Deflate independently of each other. Blocks are followed by block index
+ * (offset, compressed size, size, people count and CRC32C of compressed bytes of each block) and footer
+ * (index offset, blocks count, index CRC32C and magic "PERX"), see {@link BlockPersonFile}
+ */
+public class PersonFileWriter implements Closeable {
+
+    /**
+     * Size of write buffer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of uncompressed block
+     */
+    private static final int BLOCK_SIZE = 256 * 1024;
+
+    /**
+     * Channel of written file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Buffer collecting records before they are written
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Quantity of written people
+     */
+    private long count;
+
+    /**
+     * Compresses blocks (null if file isn't compressed)
+     */
+    private final Deflater deflater;
+
+    /**
+     * Buffer for compressed block
+     */
+    private byte[] deflated;
+
+    /**
+     * Block index being collected
+     */
+    private ByteBuffer index;
+
+    /**
+     * Quantity of people in block being collected
+     */
+    private int blockCount;
+
+    /**
+     * Quantity of written blocks
+     */
+    private int blocks;
+
+    /**
+     * Position in file where the next block is written
+     */
+    private long position = PersonFileFormat.HEADER_SIZE;
+
+    /**
+     * Constructor. Creates (or truncates) uncompressed file and writes header
+     *
+     * @param file {@link File} to write to
+     * @throws IOException if file can't be written
+     */
+    public PersonFileWriter(File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Constructor. Creates (or truncates) file and writes header
+     *
+     * @param file       {@link File} to write to
+     * @param compressed if records are written in compressed blocks
+     * @throws IOException if file can't be written
+     */
+    public PersonFileWriter(File file, boolean compressed) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        ByteBuffer header = ByteBuffer.allocate(PersonFileFormat.HEADER_SIZE);
+        header.putInt(PersonFileFormat.MAGIC);
+        header.putShort(PersonFileFormat.VERSION);
+        header.putShort(compressed ? PersonFileFormat.FLAG_COMPRESSED : 0);
+        header.putLong(-1);
+
+        if (compressed) {
+            deflater = new Deflater();
+            buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            deflated = new byte[BLOCK_SIZE];
+            index = ByteBuffer.allocate(64 * PersonFileFormat.INDEX_ENTRY_SIZE);
+
+            header.flip();
+            writeFully(header);
+        } else {
+            deflater = null;
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.put(header.array());
+        }
+    }
+
+    /**
+     * Writes person's record
+     *
+     * @param person {@link PersonModel} object
+     * @throws IOException if file can't be written
+     */
+    public void write(PersonModel person) throws IOException {
+        int bodySize = PersonRecordCodec.bodySize(person);
+        int recordSize = PersonRecordCodec.MAX_VARINT_SIZE + bodySize;
+
+        if (buffer.remaining() < recordSize) {
+            flush();
+            if (buffer.capacity() < recordSize) {
+                buffer = ByteBuffer.allocate(recordSize);
+            }
+        }
+
+        PersonRecordCodec.write(person, bodySize, buffer);
+        count++;
+        blockCount++;
+    }
+
+    /**
+     * Writes all given people
+     *
+     * @param people people to write
+     * @throws IOException if file can't be written
+     */
+    public void writeAll(Iterable<PersonModel> people) throws IOException {
+        for (PersonModel person : people) {
+            write(person);
+        }
+    }
+
+    /**
+     * Returns quantity of written people
+     *
+     * @return {@link PersonFileWriter#count}
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes buffered records to file (as compressed block for compressed file)
+     *
+     * @throws IOException if file can't be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        if (deflater == null) {
+            writeFully(buffer);
+        } else if (buffer.hasRemaining()) {
+            writeBlock();
+        }
+        buffer.clear();
+        blockCount = 0;
+    }
+
+    /**
+     * Compresses buffered records, writes them as block and adds block to index
+     *
+     * @throws IOException if file can't be written
+     */
+    private void writeBlock() throws IOException {
+        int size = buffer.remaining();
+
+        deflater.reset();
+        deflater.setInput(buffer.array(), 0, size);
+        deflater.finish();
+
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == deflated.length) {
+                deflated = Arrays.copyOf(deflated, deflated.length * 2);
+            }
+            length += deflater.deflate(deflated, length, deflated.length - length);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(deflated, 0, length);
+
+        if (index.remaining() < PersonFileFormat.INDEX_ENTRY_SIZE) {
+            ByteBuffer bigger = ByteBuffer.allocate(index.capacity() * 2);
+            bigger.put(index.flip());
+            index = bigger;
+        }
+        index.putLong(position);
+        index.putInt(length);
+        index.putInt(size);
+        index.putInt(blockCount);
+        index.putInt((int) crc.getValue());
+
+        writeFully(ByteBuffer.wrap(deflated, 0, length));
+        position += length;
+        blocks++;
+    }
+
+    /**
+     * Writes the whole buffer to file
+     *
+     * @param buf buffer to write
+     * @throws IOException if file can't be written
+     */
+    private void writeFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /**
+     * Writes buffered records, block index (for compressed file) and people count, closes the file
+     *
+     * @throws IOException if file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            if (deflater != null) {
+                index.flip();
+                CRC32C crc = new CRC32C();
+                crc.update(index.duplicate());
+
+                ByteBuffer footer = ByteBuffer.allocate(PersonFileFormat.FOOTER_SIZE);
+                footer.putLong(position);
+                footer.putInt(blocks);
+                footer.putInt((int) crc.getValue());
+                footer.putInt(PersonFileFormat.FOOTER_MAGIC);
+                footer.flip();
+
+                writeFully(index);
+                writeFully(footer);
+            }
+
+            ByteBuffer countBuf = ByteBuffer.allocate(Long.BYTES).putLong(0, count);
+            channel.write(countBuf, PersonFileFormat.COUNT_OFFSET);
+        } finally {
+            if (deflater != null) deflater.end();
+            channel.close();
+        }
+    }
+}
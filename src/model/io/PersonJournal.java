@@ -0,0 +1,810 @@
+package model.io;
+
+import model.PersonModel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Append only journal of changes of people list, so unsaved changes survive a crash.
+ * <p>
+ * Journal directory holds snapshot of people list (binary person file <code>snapshot-N.per</code>)
+ * and journal <code>journal-N.log</code> of changes made after the snapshot. Entry of journal is:
+ * length (int), type (byte), payload, CRC32C of type and payload (int). Entries are collected in memory
+ * and written by a background thread, which syncs the file at most every {@link PersonJournal#FLUSH_INTERVAL} ms,
+ * so many changes share one fsync. Torn entry at the end of journal is ignored on replay.
+ * <p>
+ * When journal grows larger than the snapshot, it is compacted: writing thread switches to new journal N+1
+ * after the last entry of journal N, then snapshot N+1 is written in background and older files are deleted.
+ * If compaction doesn't finish, replay continues from snapshot N through journals N and N+1.
+ * People loaded from database aren't journaled, only a mark that people list was loaded is.
+ * Appending methods must be called from one thread (the Event Dispatch Thread)
+ */
+public class PersonJournal implements Closeable {
+
+    /**
+     * Entry: person was added
+     */
+    private static final byte ADDED = 1;
+
+    /**
+     * Entry: person was edited
+     */
+    private static final byte UPDATED = 2;
+
+    /**
+     * Entry: person was removed
+     */
+    private static final byte REMOVED = 3;
+
+    /**
+     * Entry: people list was cleared
+     */
+    private static final byte CLEARED = 4;
+
+    /**
+     * Entry: people list is loaded from database (people themselves aren't journaled)
+     */
+    private static final byte LOADED = 5;
+
+    /**
+     * Entry: person is marked as added
+     */
+    private static final byte MARKED_ADDED = 6;
+
+    /**
+     * Entry: person is marked as edited
+     */
+    private static final byte MARKED_UPDATED = 7;
+
+    /**
+     * Entry: person is marked as removed
+     */
+    private static final byte MARKED_REMOVED = 8;
+
+    /**
+     * Entry: changes were taken to be saved
+     */
+    private static final byte TAKEN = 9;
+
+    /**
+     * Entry: taken changes were saved
+     */
+    private static final byte SAVED = 10;
+
+    /**
+     * Entry: taken changes were put back
+     */
+    private static final byte RESTORED = 11;
+
+    /**
+     * Maximum time in milliseconds entry waits to be written and synced
+     */
+    private static final long FLUSH_INTERVAL = 20;
+
+    /**
+     * Size of collected entries which are written without waiting
+     */
+    private static final int FLUSH_SIZE = 1 << 20;
+
+    /**
+     * Minimum size of journal which is compacted
+     */
+    private static final long COMPACTION_SIZE = 16L << 20;
+
+    /**
+     * Prefix of snapshot file name
+     */
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    /**
+     * Suffix of snapshot file name
+     */
+    private static final String SNAPSHOT_SUFFIX = ".per";
+
+    /**
+     * Prefix of journal file name
+     */
+    private static final String JOURNAL_PREFIX = "journal-";
+
+    /**
+     * Suffix of journal file name
+     */
+    private static final String JOURNAL_SUFFIX = ".log";
+
+    /**
+     * Journal directory
+     */
+    private final File dir;
+
+    /**
+     * Guards collected entries and current journal
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Held while entries are written, so journal isn't switched in the middle of writing
+     */
+    private final Object ioLock = new Object();
+
+    /**
+     * Entries which aren't written yet
+     */
+    private ByteBuffer pending;
+
+    /**
+     * Buffer swapped with {@link PersonJournal#pending} when entries are written
+     */
+    private ByteBuffer spare;
+
+    /**
+     * Checksum of appended entries
+     */
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Current journal file
+     */
+    private FileChannel channel;
+
+    /**
+     * Number of current journal
+     */
+    private long generation;
+
+    /**
+     * Size of current journal (including not written entries)
+     */
+    private long journalSize;
+
+    /**
+     * Size of the last snapshot
+     */
+    private long snapshotSize;
+
+    /**
+     * If journal is being compacted (switched or snapshot is being written)
+     */
+    private boolean compacting;
+
+    /**
+     * Position in {@link PersonJournal#pending} where new journal starts (-1 if journal isn't switched)
+     */
+    private int switchAt = -1;
+
+    /**
+     * People written to snapshot of new journal
+     */
+    private List<PersonModel> switchPeople;
+
+    /**
+     * If journal is closed
+     */
+    private boolean closed;
+
+    /**
+     * Error which stopped writing of entries
+     */
+    private volatile IOException failure;
+
+    /**
+     * Thread writing and syncing entries
+     */
+    private final Thread flusher;
+
+    /**
+     * Executor writing snapshots
+     */
+    private final ExecutorService compactor;
+
+    /**
+     * Constructor. Opens journal for appending
+     *
+     * @param dir          journal directory
+     * @param generation   number of current journal
+     * @param validSize    size of valid entries of current journal (the rest is cut off)
+     * @param snapshotSize size of the last snapshot
+     * @throws IOException if journal can't be opened
+     */
+    private PersonJournal(File dir, long generation, long validSize, long snapshotSize) throws IOException {
+        this.dir = dir;
+        this.generation = generation;
+        this.journalSize = validSize;
+        this.snapshotSize = snapshotSize;
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.spare = ByteBuffer.allocate(64 * 1024);
+
+        channel = FileChannel.open(journalFile(generation).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validSize);
+        channel.position(validSize);
+
+        compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher = new Thread(this::runFlusher, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Replays snapshot and journals of directory and opens the journal for appending
+     *
+     * @param dir     journal directory (is created if it doesn't exist)
+     * @param visitor receives snapshot and entries
+     * @return opened {@link PersonJournal}
+     * @throws IOException if journal can't be read or opened
+     */
+    public static PersonJournal open(File dir, JournalVisitor visitor) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create journal directory: " + dir);
+        }
+
+        long snapshot = -1;
+        List<Long> journals = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files == null) throw new IOException("Unable to list journal directory: " + dir);
+
+        for (File file : files) {
+            String name = file.getName();
+            long number = numberOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            if (number >= 0) snapshot = Math.max(snapshot, number);
+            number = numberOf(name, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+            if (number >= 0) journals.add(number);
+        }
+        Collections.sort(journals);
+
+        long base = Math.max(snapshot, 0);
+        long snapshotSize = 0;
+        if (snapshot >= 0) {
+            File file = new File(dir, SNAPSHOT_PREFIX + snapshot + SNAPSHOT_SUFFIX);
+            snapshotSize = file.length();
+            try (PersonFileReader reader = new PersonFileReader(file)) {
+                visitor.snapshot(reader.readAll());
+            }
+        }
+
+        long current = base;
+        long validSize = 0;
+        for (long number : journals) {
+            if (number < base) continue;
+            current = number;
+            validSize = replay(new File(dir, JOURNAL_PREFIX + number + JOURNAL_SUFFIX), visitor);
+        }
+
+        PersonJournal journal = new PersonJournal(dir, current, validSize, snapshotSize);
+        journal.deleteOlderThan(base);
+        return journal;
+    }
+
+    /**
+     * Person was appended to people list
+     *
+     * @param person added {@link PersonModel}
+     */
+    public void personAdded(PersonModel person) {
+        appendPerson(ADDED, person);
+    }
+
+    /**
+     * Person was edited or replaced by person with the same id
+     *
+     * @param person edited {@link PersonModel}
+     */
+    public void personUpdated(PersonModel person) {
+        appendPerson(UPDATED, person);
+    }
+
+    /**
+     * Person was removed from people list
+     *
+     * @param id person's id
+     */
+    public void personRemoved(int id) {
+        appendInt(REMOVED, id);
+    }
+
+    /**
+     * People list and its changes were cleared
+     */
+    public void cleared() {
+        synchronized (lock) {
+            int start = begin(CLEARED, 0);
+            end(start);
+        }
+    }
+
+    /**
+     * People list is loaded from database. Loaded people aren't written,
+     * on replay they are loaded from database again
+     */
+    public void loaded() {
+        synchronized (lock) {
+            int start = begin(LOADED, 0);
+            end(start);
+        }
+    }
+
+    /**
+     * Person is marked as added without changing people list
+     *
+     * @param person {@link PersonModel} object
+     */
+    public void markedAdded(PersonModel person) {
+        appendPerson(MARKED_ADDED, person);
+    }
+
+    /**
+     * Person is marked as edited without changing people list
+     *
+     * @param person {@link PersonModel} object
+     */
+    public void markedUpdated(PersonModel person) {
+        appendPerson(MARKED_UPDATED, person);
+    }
+
+    /**
+     * Person is marked as removed without changing people list
+     *
+     * @param id person's id
+     */
+    public void markedRemoved(int id) {
+        appendInt(MARKED_REMOVED, id);
+    }
+
+    /**
+     * Changes were taken to be saved
+     *
+     * @param token number identifying taken changes
+     */
+    public void changesTaken(int token) {
+        appendInt(TAKEN, token);
+    }
+
+    /**
+     * Taken changes were saved
+     *
+     * @param token number identifying taken changes
+     */
+    public void changesSaved(int token) {
+        appendInt(SAVED, token);
+    }
+
+    /**
+     * Taken changes were put back
+     *
+     * @param token number identifying taken changes
+     */
+    public void changesRestored(int token) {
+        appendInt(RESTORED, token);
+    }
+
+    /**
+     * Returns if journal is large enough to be compacted
+     *
+     * @return true if journal is larger than snapshot and isn't being compacted
+     */
+    public boolean needsCompaction() {
+        synchronized (lock) {
+            return !compacting && journalSize > Math.max(COMPACTION_SIZE, snapshotSize);
+        }
+    }
+
+    /**
+     * Starts new journal. Entries appended from now on go to the new journal: writing thread switches files
+     * after writing the older entries, and snapshot is written in background after that, so caller never waits
+     * for disk. People objects are written as they are at the moment of writing: later edits of them
+     * are also written to the new journal, replaying them again gives the same result.
+     * Does nothing if journal is being compacted
+     *
+     * @param people copy of people list
+     * @param head   appends entries starting the new journal (marks of unsaved changes)
+     * @throws IOException if journal is closed or writing has failed
+     */
+    public void compact(List<PersonModel> people, Runnable head) throws IOException {
+        synchronized (lock) {
+            if (closed) throw new IOException("Journal is closed");
+            if (failure != null) throw failure;
+            if (compacting) return;
+
+            switchAt = pending.position();
+            switchPeople = people;
+            generation++;
+            journalSize = 0;
+            compacting = true;
+            lock.notifyAll();
+        }
+
+        head.run();
+    }
+
+    /**
+     * Writes all entries, stops background threads and closes the journal
+     *
+     * @throws IOException if entries couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            flusher.join();
+            compactor.shutdown();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (ioLock) {
+            synchronized (lock) {
+                try {
+                    if (failure == null) writeFully(pending, channel);
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Appends entry with person's record
+     *
+     * @param type   type of entry
+     * @param person {@link PersonModel} object
+     */
+    private void appendPerson(byte type, PersonModel person) {
+        int bodySize = PersonRecordCodec.bodySize(person);
+        synchronized (lock) {
+            int start = begin(type, PersonRecordCodec.varintSize(bodySize) + bodySize);
+            PersonRecordCodec.write(person, bodySize, pending);
+            end(start);
+        }
+    }
+
+    /**
+     * Appends entry with int value
+     *
+     * @param type  type of entry
+     * @param value value
+     */
+    private void appendInt(byte type, int value) {
+        synchronized (lock) {
+            int start = begin(type, Integer.BYTES);
+            pending.putInt(value);
+            end(start);
+        }
+    }
+
+    /**
+     * Starts entry: makes room for it and writes its length and type. Lock must be held
+     *
+     * @param type        type of entry
+     * @param payloadSize size of payload
+     * @return position of entry in {@link PersonJournal#pending}
+     */
+    private int begin(byte type, int payloadSize) {
+        if (closed) throw new IllegalStateException("Journal is closed");
+
+        int size = Integer.BYTES + 1 + payloadSize + Integer.BYTES;
+        if (pending.remaining() < size) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size));
+            bigger.put(pending.flip());
+            pending = bigger;
+        }
+
+        int start = pending.position();
+        pending.putInt(1 + payloadSize);
+        pending.put(type);
+        return start;
+    }
+
+    /**
+     * Finishes entry: writes its checksum and wakes up writing thread. Lock must be held
+     *
+     * @param start position of entry in {@link PersonJournal#pending}
+     */
+    private void end(int start) {
+        ByteBuffer entry = pending.duplicate();
+        entry.limit(pending.position()).position(start + Integer.BYTES);
+        crc.reset();
+        crc.update(entry);
+        pending.putInt((int) crc.getValue());
+
+        journalSize += pending.position() - start;
+        if (start == 0 || pending.position() >= FLUSH_SIZE) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Body of writing thread. Waits for entries, lets them collect for a while,
+     * then writes and syncs them at once
+     */
+    private void runFlusher() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (pending.position() == 0 && switchAt < 0 && !closed) {
+                        lock.wait();
+                    }
+                    if (pending.position() == 0 && switchAt < 0) return;
+                    if (!closed && pending.position() < FLUSH_SIZE) {
+                        lock.wait(FLUSH_INTERVAL);
+                    }
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure = e;
+            System.err.println("Unable to write journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes and syncs collected entries. Appending continues to the spare buffer meanwhile.
+     * If journal was compacted, entries before the switch finish the old journal, the rest starts the new one
+     * and its snapshot is written then
+     *
+     * @throws IOException if entries can't be written
+     */
+    private void flush() throws IOException {
+        synchronized (ioLock) {
+            ByteBuffer out;
+            FileChannel target;
+            int switchPosition;
+            long number;
+            List<PersonModel> snapshot;
+            synchronized (lock) {
+                if (pending.position() == 0 && switchAt < 0) return;
+                out = pending;
+                pending = spare;
+                target = channel;
+                switchPosition = switchAt;
+                number = generation;
+                snapshot = switchPeople;
+                switchAt = -1;
+                switchPeople = null;
+            }
+
+            if (switchPosition < 0) {
+                writeFully(out, target);
+            } else {
+                int end = out.position();
+                out.position(switchPosition);
+                ByteBuffer rest = out.slice();
+                rest.position(end - switchPosition);
+                out.position(switchPosition);
+
+                writeFully(out, target);
+                target.close();
+
+                FileChannel next = FileChannel.open(journalFile(number).toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                synchronized (lock) {
+                    channel = next;
+                }
+                writeFully(rest, next);
+                compactor.execute(() -> writeSnapshot(number, snapshot));
+            }
+
+            synchronized (lock) {
+                spare = out;
+            }
+        }
+    }
+
+    /**
+     * Writes collected entries and syncs the file
+     *
+     * @param buf    buffer with entries (is cleared)
+     * @param target file to write to
+     * @throws IOException if entries can't be written
+     */
+    private static void writeFully(ByteBuffer buf, FileChannel target) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            target.write(buf);
+        }
+        target.force(false);
+        buf.clear();
+    }
+
+    /**
+     * Writes snapshot with given number and deletes older files
+     *
+     * @param number number of snapshot
+     * @param people people to write
+     */
+    private void writeSnapshot(long number, List<PersonModel> people) {
+        File snapshot = new File(dir, SNAPSHOT_PREFIX + number + SNAPSHOT_SUFFIX);
+        File tmp = new File(dir, snapshot.getName() + ".tmp");
+        try {
+            try (PersonFileWriter writer = new PersonFileWriter(tmp)) {
+                writer.writeAll(people);
+            }
+            try (FileChannel written = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+                written.force(true);
+            }
+            Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            deleteOlderThan(number);
+            synchronized (lock) {
+                snapshotSize = snapshot.length();
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to compact journal: " + e.getMessage());
+            tmp.delete();
+        } finally {
+            synchronized (lock) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * Deletes snapshots and journals older than given number and unfinished snapshots
+     *
+     * @param number number of the oldest kept files
+     */
+    private void deleteOlderThan(long number) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        for (File file : files) {
+            String name = file.getName();
+            long snapshot = numberOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            long journal = numberOf(name, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+            if ((snapshot >= 0 && snapshot < number) || (journal >= 0 && journal < number)
+                    || (name.endsWith(".tmp") && !compacting)) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns journal file with given number
+     *
+     * @param number number of journal
+     * @return {@link File} object
+     */
+    private File journalFile(long number) {
+        return new File(dir, JOURNAL_PREFIX + number + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Reads entries of journal file and passes them to visitor. Stops at torn or damaged entry
+     *
+     * @param file    journal file
+     * @param visitor receives entries
+     * @return size of valid entries
+     * @throws IOException if file can't be read
+     */
+    private static long replay(File file, JournalVisitor visitor) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Journal is too large: " + file);
+            buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining()) {
+                if (in.read(buf) < 0) break;
+            }
+            buf.flip();
+        }
+
+        CRC32C crc = new CRC32C();
+        int valid = 0;
+        while (buf.remaining() >= Integer.BYTES) {
+            int length = buf.getInt();
+            if (length < 1 || length > buf.remaining() - Integer.BYTES) break;
+
+            ByteBuffer entry = buf.duplicate();
+            entry.limit(buf.position() + length);
+            crc.reset();
+            crc.update(entry.duplicate());
+            if ((int) crc.getValue() != buf.getInt(buf.position() + length)) break;
+
+            apply(entry, visitor);
+            buf.position(buf.position() + length + Integer.BYTES);
+            valid = buf.position();
+        }
+        return valid;
+    }
+
+    /**
+     * Passes entry to visitor
+     *
+     * @param entry   buffer positioned at entry's type
+     * @param visitor receives entry
+     * @throws IOException if entry has unknown type
+     */
+    private static void apply(ByteBuffer entry, JournalVisitor visitor) throws IOException {
+        byte type = entry.get();
+        switch (type) {
+            case ADDED:
+                visitor.added(readPerson(entry));
+                break;
+            case UPDATED:
+                visitor.updated(readPerson(entry));
+                break;
+            case REMOVED:
+                visitor.removed(entry.getInt());
+                break;
+            case CLEARED:
+                visitor.cleared();
+                break;
+            case LOADED:
+                // people written by older versions are ignored, they are loaded from database again
+                visitor.loaded();
+                break;
+            case MARKED_ADDED:
+                visitor.markedAdded(readPerson(entry));
+                break;
+            case MARKED_UPDATED:
+                visitor.markedUpdated(readPerson(entry));
+                break;
+            case MARKED_REMOVED:
+                visitor.markedRemoved(entry.getInt());
+                break;
+            case TAKEN:
+                visitor.taken(entry.getInt());
+                break;
+            case SAVED:
+                visitor.saved(entry.getInt());
+                break;
+            case RESTORED:
+                visitor.restored(entry.getInt());
+                break;
+            default:
+                throw new IOException("Unknown journal entry: " + type);
+        }
+    }
+
+    /**
+     * Reads person's record
+     *
+     * @param entry buffer positioned at record
+     * @return {@link PersonModel} object
+     */
+    private static PersonModel readPerson(ByteBuffer entry) {
+        PersonRecordCodec.readVarint(entry);
+        return PersonRecordCodec.readBody(entry);
+    }
+
+    /**
+     * Parses number of snapshot or journal from file name
+     *
+     * @param name   file name
+     * @param prefix expected prefix
+     * @param suffix expected suffix
+     * @return number or -1 if name doesn't match
+     */
+    private static long numberOf(String name, String prefix, String suffix) {
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) return -1;
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
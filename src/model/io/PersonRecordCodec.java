@@ -0,0 +1,262 @@
+package model.io;
+
+import model.PersonModel;
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class encodes people into binary records and decodes them back.
+ * <p>
+ * Record is: body length (varint), id (int), age category, employment category, gender (one byte each,
+ * ordinal or -1 for null), flags (bit 0 - US citizen), then name, occupation and tax id.
+ * String is stored as varint (UTF-8 length + 1, 0 for null) followed by UTF-8 bytes
+ */
+final class PersonRecordCodec {
+
+    /**
+     * Cached values of age categories
+     */
+    private static final AgeCategory[] AGES = AgeCategory.values();
+
+    /**
+     * Cached values of employment categories
+     */
+    private static final EmploymentCategory[] EMPLOYMENTS = EmploymentCategory.values();
+
+    /**
+     * Cached values of genders
+     */
+    private static final Gender[] GENDERS = Gender.values();
+
+    /**
+     * Size of fixed part of record's body
+     */
+    private static final int FIXED_SIZE = 8;
+
+    /**
+     * Maximum size of varint
+     */
+    static final int MAX_VARINT_SIZE = 5;
+
+    /**
+     * Utility class
+     */
+    private PersonRecordCodec() {
+    }
+
+    /**
+     * Returns size of person's record body
+     *
+     * @param person {@link PersonModel} object
+     * @return size in bytes (without length prefix)
+     */
+    static int bodySize(PersonModel person) {
+        return FIXED_SIZE + stringSize(person.getName()) + stringSize(person.getOccupation())
+                + stringSize(person.getTaxId());
+    }
+
+    /**
+     * Writes person's record. Buffer must have at least
+     * {@link PersonRecordCodec#MAX_VARINT_SIZE} + bodySize bytes remaining
+     *
+     * @param person   {@link PersonModel} object
+     * @param bodySize size returned by {@link PersonRecordCodec#bodySize(PersonModel)}
+     * @param buf      buffer to write to
+     */
+    static void write(PersonModel person, int bodySize, ByteBuffer buf) {
+        writeVarint(buf, bodySize);
+        buf.putInt(person.getId());
+        buf.put(ordinal(person.getAgeCategory()));
+        buf.put(ordinal(person.getEmpCat()));
+        buf.put(ordinal(person.getGender()));
+        buf.put((byte) (person.isUsCitizen() ? 1 : 0));
+        writeString(buf, person.getName());
+        writeString(buf, person.getOccupation());
+        writeString(buf, person.getTaxId());
+    }
+
+    /**
+     * Reads record's body (buffer must be positioned after length prefix)
+     *
+     * @param buf buffer containing the whole body
+     * @return {@link PersonModel} object
+     */
+    static PersonModel readBody(ByteBuffer buf) {
+        int id = buf.getInt();
+        byte age = buf.get();
+        byte emp = buf.get();
+        byte gender = buf.get();
+        byte flags = buf.get();
+        String name = readString(buf);
+        String occupation = readString(buf);
+        String taxId = readString(buf);
+
+        return new PersonModel(id, name, occupation,
+                age < 0 ? null : AGES[age],
+                emp < 0 ? null : EMPLOYMENTS[emp],
+                taxId, (flags & 1) != 0,
+                gender < 0 ? null : GENDERS[gender]);
+    }
+
+    /**
+     * Reads varint. Returns -1 if buffer ends before varint does
+     *
+     * @param buf buffer to read from
+     * @return value or -1 if varint is incomplete (buffer position is not changed then)
+     */
+    static int readVarint(ByteBuffer buf) {
+        int start = buf.position();
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buf.hasRemaining()) {
+                buf.position(start);
+                return -1;
+            }
+            byte b = buf.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * Writes non negative int as varint (7 bits per byte)
+     *
+     * @param buf   buffer to write to
+     * @param value value to write
+     */
+    static void writeVarint(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    /**
+     * Returns size of varint
+     *
+     * @param value value
+     * @return size in bytes
+     */
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns size of encoded string
+     *
+     * @param s string or null
+     * @return size in bytes
+     */
+    private static int stringSize(String s) {
+        if (s == null) return 1;
+        int length = utf8Length(s);
+        return varintSize(length + 1) + length;
+    }
+
+    /**
+     * Writes string's UTF-8 bytes straight into buffer
+     *
+     * @param buf buffer to write to
+     * @param s   string or null
+     */
+    private static void writeString(ByteBuffer buf, String s) {
+        if (s == null) {
+            buf.put((byte) 0);
+            return;
+        }
+
+        writeVarint(buf, utf8Length(s) + 1);
+
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf.put((byte) c);
+            } else if (c < 0x800) {
+                buf.put((byte) (0xC0 | c >> 6));
+                buf.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf.put((byte) (0xF0 | cp >> 18));
+                buf.put((byte) (0x80 | cp >> 12 & 0x3F));
+                buf.put((byte) (0x80 | cp >> 6 & 0x3F));
+                buf.put((byte) (0x80 | cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // lone surrogate can't be encoded, like String.getBytes
+                buf.put((byte) '?');
+            } else {
+                buf.put((byte) (0xE0 | c >> 12));
+                buf.put((byte) (0x80 | c >> 6 & 0x3F));
+                buf.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Returns length of string's UTF-8 encoding
+     *
+     * @param s string
+     * @return length in bytes
+     */
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Reads string
+     *
+     * @param buf buffer to read from
+     * @return string or null
+     */
+    private static String readString(ByteBuffer buf) {
+        int length = readVarint(buf) - 1;
+        if (length < 0) return null;
+
+        String s;
+        if (buf.hasArray()) {
+            s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+            buf.position(buf.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    /**
+     * Returns enum's ordinal as byte
+     *
+     * @param value enum constant or null
+     * @return ordinal or -1 for null
+     */
+    private static byte ordinal(Enum<?> value) {
+        return (byte) (value == null ? -1 : value.ordinal());
+    }
+}
@@ -0,0 +1,37 @@
+package model.io;
+
+import java.io.File;
+
+/**
+ * Enum to represent text formats people are exchanged with other tools in.
+ * Fields are id, name, occupation, ageCategory, empCat, taxId, usCitizen and gender,
+ * enums are written by their names, see {@link PersonTextWriter}
+ */
+public enum PersonTextFormat {
+    /**
+     * Comma separated values (RFC 4180) with header row. Empty field is null, quoted empty field is empty string
+     */
+    csv,
+    /**
+     * One JSON object per line
+     */
+    jsonLines;
+
+    /**
+     * Names of fields in order of CSV columns (and keys of JSON objects)
+     */
+    static final String[] FIELDS = {"id", "name", "occupation", "ageCategory", "empCat", "taxId", "usCitizen", "gender"};
+
+    /**
+     * Returns format by extension of file name (.csv, .jsonl, .ndjson or .json)
+     *
+     * @param file {@link File} object
+     * @return format or null if extension is unknown
+     */
+    public static PersonTextFormat forFile(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".csv")) return csv;
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) return jsonLines;
+        return null;
+    }
+}
@@ -0,0 +1,711 @@
+package model.io;
+
+import model.PersonModel;
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class reads people from CSV or JSON lines file one by one, see {@link PersonTextFormat}.
+ * File is read through direct buffer into reused byte array, records are parsed in place
+ * and only field values become strings, so memory use doesn't depend on file size
+ */
+public class PersonTextReader implements Closeable {
+
+    /**
+     * Size of read buffer
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * UTF-8 names of fields
+     */
+    private static final byte[][] FIELDS = names(PersonTextFormat.FIELDS);
+
+    /**
+     * Age categories by ordinals
+     */
+    private static final AgeCategory[] AGES = AgeCategory.values();
+
+    /**
+     * Names of age categories by ordinals
+     */
+    private static final byte[][] AGE_NAMES = names(AGES);
+
+    /**
+     * Employment categories by ordinals
+     */
+    private static final EmploymentCategory[] EMPLOYMENTS = EmploymentCategory.values();
+
+    /**
+     * Names of employment categories by ordinals
+     */
+    private static final byte[][] EMPLOYMENT_NAMES = names(EMPLOYMENTS);
+
+    /**
+     * Genders by ordinals
+     */
+    private static final Gender[] GENDERS = Gender.values();
+
+    /**
+     * Names of genders by ordinals
+     */
+    private static final byte[][] GENDER_NAMES = names(GENDERS);
+
+    /**
+     * UTF-8 literal true
+     */
+    private static final byte[] TRUE = names("true")[0];
+
+    /**
+     * UTF-8 literal false
+     */
+    private static final byte[] FALSE = names("false")[0];
+
+    /**
+     * UTF-8 literal null
+     */
+    private static final byte[] NULL = names("null")[0];
+
+    /**
+     * Channel of read file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Format of read file
+     */
+    private final PersonTextFormat format;
+
+    /**
+     * Direct buffer file is read into
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Read bytes, copied from {@link PersonTextReader#buffer} at once
+     */
+    private byte[] data = new byte[BUFFER_SIZE];
+
+    /**
+     * Position of the first not parsed byte in {@link PersonTextReader#data}
+     */
+    private int position;
+
+    /**
+     * Quantity of read bytes in {@link PersonTextReader#data}
+     */
+    private int limit;
+
+    /**
+     * If the whole file is read into buffer
+     */
+    private boolean eof;
+
+    /**
+     * Bytes of field being parsed (unquoted and unescaped)
+     */
+    private byte[] field = new byte[256];
+
+    /**
+     * Position of parsing in buffer
+     */
+    private int at;
+
+    /**
+     * End of record being parsed in buffer
+     */
+    private int end;
+
+    /**
+     * Start of the next record in buffer (after line break)
+     */
+    private int next;
+
+    /**
+     * Number of line being parsed (starting from 1)
+     */
+    private long line;
+
+    /**
+     * Constructor. Opens file and skips CSV header
+     *
+     * @param file   {@link File} to read
+     * @param format format of the file
+     * @throws IOException if file can't be read
+     */
+    public PersonTextReader(File file, PersonTextFormat format) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        try {
+            // header row starts with column name, data row starts with id
+            if (format == PersonTextFormat.csv && nextRecord()) {
+                byte first = data[at];
+                if (first == '-' || first >= '0' && first <= '9') {
+                    // there is no header, the record is found again by read()
+                    line--;
+                } else {
+                    position = next;
+                }
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads next person
+     *
+     * @return {@link PersonModel} object or null if there are no more people
+     * @throws IOException if file can't be read or has malformed record
+     */
+    public PersonModel read() throws IOException {
+        if (!nextRecord()) return null;
+
+        PersonModel person = format == PersonTextFormat.csv ? parseCsv() : parseJson();
+        position = next;
+        return person;
+    }
+
+    /**
+     * Reads all remaining people
+     *
+     * @return list of {@link PersonModel}s
+     * @throws IOException if file can't be read or has malformed record
+     */
+    public List<PersonModel> readAll() throws IOException {
+        List<PersonModel> people = new ArrayList<>();
+        PersonModel person;
+        while ((person = read()) != null) {
+            people.add(person);
+        }
+        return people;
+    }
+
+    /**
+     * Finds the next non blank record in buffer, reading file when record isn't complete.
+     * Sets {@link PersonTextReader#at} to its start, {@link PersonTextReader#end} to its line break
+     * and {@link PersonTextReader#next} after the line break
+     *
+     * @return false if there are no more records
+     * @throws IOException if file can't be read
+     */
+    private boolean nextRecord() throws IOException {
+        while (true) {
+            int start = position;
+            boolean quoted = false;
+            int i = start;
+            for (; i < limit; i++) {
+                byte b = data[i];
+                if (b == '\n' && !quoted) break;
+                // JSON strings can't contain line breaks, CSV quoted fields can
+                if (b == '"' && format == PersonTextFormat.csv) quoted = !quoted;
+            }
+
+            if (i == limit && !eof) {
+                fill();
+                continue;
+            }
+            if (i == start && i == limit) return false;
+
+            line++;
+            at = start;
+            end = i;
+            next = Math.min(i + 1, limit);
+            // CRLF line breaks
+            if (end > at && data[end - 1] == '\r') end--;
+
+            if (isBlank()) {
+                position = next;
+                continue;
+            }
+            if (end - at > field.length) field = new byte[end - at];
+            return true;
+        }
+    }
+
+    /**
+     * Reads more of the file, keeping not parsed bytes. Grows byte array if record doesn't fit
+     *
+     * @throws IOException if file can't be read
+     */
+    private void fill() throws IOException {
+        if (position == 0 && limit == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        } else {
+            System.arraycopy(data, position, data, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+
+        while (!eof && limit < data.length) {
+            buffer.clear().limit(Math.min(buffer.capacity(), data.length - limit));
+            int read = channel.read(buffer);
+            if (read < 0) {
+                eof = true;
+            } else {
+                buffer.flip().get(data, limit, read);
+                limit += read;
+            }
+        }
+    }
+
+    /**
+     * Parses CSV record
+     *
+     * @return {@link PersonModel} object
+     * @throws IOException if record is malformed
+     */
+    private PersonModel parseCsv() throws IOException {
+        int id = toInt(csvField(), 0);
+        String name = toString(csvField());
+        String occupation = toString(csvField());
+        AgeCategory age = toEnum(csvField(), AGES, AGE_NAMES, 3);
+        EmploymentCategory emp = toEnum(csvField(), EMPLOYMENTS, EMPLOYMENT_NAMES, 4);
+        String taxId = toString(csvField());
+        boolean usCitizen = toBoolean(csvField(), 6);
+        Gender gender = toEnum(csvField(), GENDERS, GENDER_NAMES, 7);
+
+        if (at <= end) throw malformed("more than " + FIELDS.length + " fields");
+        return new PersonModel(id, name, occupation, age, emp, taxId, usCitizen, gender);
+    }
+
+    /**
+     * Unquotes the next CSV field into {@link PersonTextReader#field}
+     *
+     * @return length of the field or -1 for empty unquoted field (null)
+     * @throws IOException if record ends before field or quotes are unbalanced
+     */
+    private int csvField() throws IOException {
+        if (at > end) throw malformed("less than " + FIELDS.length + " fields");
+
+        int length = 0;
+        if (at < end && data[at] == '"') {
+            at++;
+            while (true) {
+                if (at >= end) throw malformed("unterminated quoted field");
+                byte b = data[at++];
+                if (b == '"') {
+                    if (at < end && data[at] == '"') {
+                        at++;
+                    } else {
+                        break;
+                    }
+                }
+                field[length++] = b;
+            }
+            if (at < end && data[at] != ',') throw malformed("text after quoted field");
+        } else {
+            int start = at;
+            while (at < end && data[at] != ',') at++;
+            length = at - start;
+            System.arraycopy(data, start, field, 0, length);
+            if (length == 0) length = -1;
+        }
+
+        // skip comma
+        at++;
+        return length;
+    }
+
+    /**
+     * Parses JSON object record. Unknown keys are skipped
+     *
+     * @return {@link PersonModel} object
+     * @throws IOException if record is malformed
+     */
+    private PersonModel parseJson() throws IOException {
+        int id = 0;
+        boolean hasId = false;
+        String name = null;
+        String occupation = null;
+        AgeCategory age = null;
+        EmploymentCategory emp = null;
+        String taxId = null;
+        boolean usCitizen = false;
+        Gender gender = null;
+
+        // keys written by PersonTextWriter come in order of fields
+        int expected = 0;
+
+        expect('{');
+        if (peek() == '}') {
+            at++;
+        } else {
+            while (true) {
+                if (peek() != '"') throw malformed("key expected");
+                int key = indexOf(FIELDS, jsonString(), expected);
+                expected = key + 1;
+                expect(':');
+                int length = jsonValue();
+
+                switch (key) {
+                    case 0:
+                        id = toInt(length, key);
+                        hasId = true;
+                        break;
+                    case 1:
+                        name = toString(length);
+                        break;
+                    case 2:
+                        occupation = toString(length);
+                        break;
+                    case 3:
+                        age = toEnum(length, AGES, AGE_NAMES, key);
+                        break;
+                    case 4:
+                        emp = toEnum(length, EMPLOYMENTS, EMPLOYMENT_NAMES, key);
+                        break;
+                    case 5:
+                        taxId = toString(length);
+                        break;
+                    case 6:
+                        usCitizen = toBoolean(length, key);
+                        break;
+                    case 7:
+                        gender = toEnum(length, GENDERS, GENDER_NAMES, key);
+                        break;
+                    default:
+                        break;
+                }
+
+                byte next = peek();
+                at++;
+                if (next == '}') break;
+                if (next != ',') throw malformed("',' or '}' expected");
+            }
+        }
+
+        if (peek() != 0) throw malformed("text after object");
+        if (!hasId) throw malformed("no id");
+        return new PersonModel(id, name, occupation, age, emp, taxId, usCitizen, gender);
+    }
+
+    /**
+     * Reads JSON value into {@link PersonTextReader#field}: unescaped string or bytes of number or literal
+     *
+     * @return length of the value or -1 for null
+     * @throws IOException if value is malformed or is object or array
+     */
+    private int jsonValue() throws IOException {
+        byte first = peek();
+        if (first == '"') return jsonString();
+        if (first == '{' || first == '[') throw malformed("nested values aren't supported");
+
+        int start = at;
+        while (at < end) {
+            byte b = data[at];
+            if (b == ',' || b == '}' || b == ' ' || b == '\t') break;
+            at++;
+        }
+        int length = at - start;
+        if (length == 0) throw malformed("value expected");
+        System.arraycopy(data, start, field, 0, length);
+        return equal(length, NULL) ? -1 : length;
+    }
+
+    /**
+     * Unescapes JSON string into {@link PersonTextReader#field}
+     *
+     * @return length of the string
+     * @throws IOException if string is malformed
+     */
+    private int jsonString() throws IOException {
+        at++;
+        int length = 0;
+        while (true) {
+            if (at >= end) throw malformed("unterminated string");
+            byte b = data[at++];
+            if (b == '"') return length;
+            if (b != '\\') {
+                field[length++] = b;
+                continue;
+            }
+
+            if (at >= end) throw malformed("unterminated string");
+            byte escaped = data[at++];
+            switch (escaped) {
+                case 'n':
+                    field[length++] = '\n';
+                    break;
+                case 'r':
+                    field[length++] = '\r';
+                    break;
+                case 't':
+                    field[length++] = '\t';
+                    break;
+                case 'b':
+                    field[length++] = '\b';
+                    break;
+                case 'f':
+                    field[length++] = '\f';
+                    break;
+                case 'u':
+                    int c = hex4();
+                    if (Character.isHighSurrogate((char) c) && at + 1 < end
+                            && data[at] == '\\' && data[at + 1] == 'u') {
+                        int mark = at;
+                        at += 2;
+                        int low = hex4();
+                        if (Character.isLowSurrogate((char) low)) {
+                            c = Character.toCodePoint((char) c, (char) low);
+                        } else {
+                            at = mark;
+                        }
+                    }
+                    length = putUtf8(c, length);
+                    break;
+                default:
+                    // \" \\ \/
+                    field[length++] = escaped;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads 4 hex digits of \\u escape
+     *
+     * @return char code
+     * @throws IOException if there are no 4 hex digits
+     */
+    private int hex4() throws IOException {
+        if (at + 4 > end) throw malformed("bad \\u escape");
+        int c = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(data[at++], 16);
+            if (digit < 0) throw malformed("bad \\u escape");
+            c = c << 4 | digit;
+        }
+        return c;
+    }
+
+    /**
+     * Puts code point into {@link PersonTextReader#field} as UTF-8. Unpaired surrogate is put as '?'
+     *
+     * @param cp     code point
+     * @param length current length of field
+     * @return new length of field
+     */
+    private int putUtf8(int cp, int length) {
+        if (cp < 0x80) {
+            field[length++] = (byte) cp;
+        } else if (cp < 0x800) {
+            field[length++] = (byte) (0xC0 | cp >> 6);
+            field[length++] = (byte) (0x80 | cp & 0x3F);
+        } else if (Character.isSurrogate((char) cp) && cp <= 0xFFFF) {
+            field[length++] = '?';
+        } else if (cp <= 0xFFFF) {
+            field[length++] = (byte) (0xE0 | cp >> 12);
+            field[length++] = (byte) (0x80 | cp >> 6 & 0x3F);
+            field[length++] = (byte) (0x80 | cp & 0x3F);
+        } else {
+            field[length++] = (byte) (0xF0 | cp >> 18);
+            field[length++] = (byte) (0x80 | cp >> 12 & 0x3F);
+            field[length++] = (byte) (0x80 | cp >> 6 & 0x3F);
+            field[length++] = (byte) (0x80 | cp & 0x3F);
+        }
+        return length;
+    }
+
+    /**
+     * Skips whitespace and returns the next byte of record without consuming it
+     *
+     * @return the next byte or 0 if record ended
+     */
+    private byte peek() {
+        while (at < end) {
+            byte b = data[at];
+            if (b != ' ' && b != '\t') return b;
+            at++;
+        }
+        return 0;
+    }
+
+    /**
+     * Skips whitespace and given char
+     *
+     * @param c expected char
+     * @throws IOException if the next byte isn't given char
+     */
+    private void expect(char c) throws IOException {
+        if (peek() != c) throw malformed("'" + c + "' expected");
+        at++;
+    }
+
+    /**
+     * Returns if record has only whitespace
+     *
+     * @return true if there is nothing to parse
+     */
+    private boolean isBlank() {
+        int start = at;
+        boolean blank = peek() == 0;
+        at = start;
+        return blank;
+    }
+
+    /**
+     * Converts field to string
+     *
+     * @param length length of field (-1 for null)
+     * @return string or null
+     */
+    private String toString(int length) {
+        return length < 0 ? null : new String(field, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses field as int
+     *
+     * @param length length of field
+     * @param column index of field
+     * @return int value
+     * @throws IOException if field isn't int
+     */
+    private int toInt(int length, int column) throws IOException {
+        if (length <= 0) throw malformed(PersonTextFormat.FIELDS[column] + " is empty");
+
+        boolean negative = field[0] == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            int digit = field[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw malformed(PersonTextFormat.FIELDS[column] + " isn't a number");
+            }
+            value = value * 10 + digit;
+        }
+        if (negative) value = -value;
+        if (value != (int) value || length == (negative ? 1 : 0)) {
+            throw malformed(PersonTextFormat.FIELDS[column] + " isn't a number");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses field as true or false
+     *
+     * @param length length of field
+     * @param column index of field
+     * @return boolean value (false for null)
+     * @throws IOException if field is other value
+     */
+    private boolean toBoolean(int length, int column) throws IOException {
+        if (length < 0) return false;
+        if (equal(length, TRUE)) return true;
+        if (equal(length, FALSE)) return false;
+        throw malformed(PersonTextFormat.FIELDS[column] + " isn't true or false");
+    }
+
+    /**
+     * Parses field as name of enum constant
+     *
+     * @param length    length of field
+     * @param constants enum constants
+     * @param names     names of constants
+     * @param column    index of field
+     * @param <T>       type of enum
+     * @return enum constant or null
+     * @throws IOException if there is no such constant
+     */
+    private <T> T toEnum(int length, T[] constants, byte[][] names, int column) throws IOException {
+        if (length < 0) return null;
+        for (int i = 0; i < names.length; i++) {
+            if (equal(length, names[i])) return constants[i];
+        }
+        throw malformed("unknown " + PersonTextFormat.FIELDS[column]);
+    }
+
+    /**
+     * Returns index of field bytes among given names
+     *
+     * @param names  names to look in
+     * @param length length of field
+     * @param hint   index which is checked first
+     * @return index or -1 if field isn't one of names
+     */
+    private int indexOf(byte[][] names, int length, int hint) {
+        if (hint >= 0 && hint < names.length && equal(length, names[hint])) return hint;
+        for (int i = 0; i < names.length; i++) {
+            if (equal(length, names[i])) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Compares field with bytes
+     *
+     * @param length length of field
+     * @param bytes  bytes to compare with
+     * @return true if they are equal
+     */
+    private boolean equal(int length, byte[] bytes) {
+        if (length != bytes.length) return false;
+        for (int i = 0; i < length; i++) {
+            if (field[i] != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates exception for malformed record
+     *
+     * @param reason what is wrong
+     * @return {@link IOException} with line number
+     */
+    private IOException malformed(String reason) {
+        return new IOException("Malformed " + format + " record at line " + line + ": " + reason);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IOException if file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns UTF-8 bytes of names
+     *
+     * @param values strings
+     * @return bytes by index
+     */
+    private static byte[][] names(String... values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * Returns UTF-8 bytes of names of enum constants
+     *
+     * @param values enum constants
+     * @return bytes by index
+     */
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().getBytes(StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,478 @@
+package model.io;
+
+import model.PersonModel;
+import model.enums.AgeCategory;
+import model.enums.EmploymentCategory;
+import model.enums.Gender;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class writes people to CSV or JSON lines file one by one.
+ * Record is encoded to UTF-8 into reused byte array without building strings and copied into direct buffer,
+ * which is written to file when it is full, so memory use doesn't depend on file size
+ */
+public class PersonTextWriter implements Closeable {
+
+    /**
+     * Size of write buffer
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Upper bound of record bytes besides its strings (field names, id, enums, separators)
+     */
+    private static final int FIXED_BOUND = 256;
+
+    /**
+     * Upper bound of bytes written per char of string (JSON \\u escape)
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+
+    /**
+     * Hex digits for JSON \\u escapes
+     */
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * JSON null
+     */
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Boolean true
+     */
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Boolean false
+     */
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Start of JSON \\u escape of control char
+     */
+    private static final byte[] UNICODE_ESCAPE = "\\u00".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Names of age categories by their ordinals
+     */
+    private static final byte[][] AGES = names(AgeCategory.values());
+
+    /**
+     * Names of employment categories by their ordinals
+     */
+    private static final byte[][] EMPLOYMENTS = names(EmploymentCategory.values());
+
+    /**
+     * Names of genders by their ordinals
+     */
+    private static final byte[][] GENDERS = names(Gender.values());
+
+    /**
+     * JSON keys with quotes and colon, preceded by "{" for the first one and "," for the others
+     */
+    private static final byte[][] KEYS = new byte[PersonTextFormat.FIELDS.length][];
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = ((i == 0 ? "{\"" : ",\"") + PersonTextFormat.FIELDS[i] + "\":").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Channel of written file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Format of written file
+     */
+    private final PersonTextFormat format;
+
+    /**
+     * Direct buffer collecting records before they are written
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Record being encoded, it is copied to {@link PersonTextWriter#buffer} at once
+     */
+    private byte[] record = new byte[FIXED_BOUND];
+
+    /**
+     * Size of record being encoded
+     */
+    private int size;
+
+    /**
+     * Digits of number being written
+     */
+    private final byte[] digits = new byte[11];
+
+    /**
+     * Quantity of written people
+     */
+    private long count;
+
+    /**
+     * Constructor. Creates (or truncates) file and writes CSV header
+     *
+     * @param file   {@link File} to write to
+     * @param format format of the file
+     * @throws IOException if file can't be written
+     */
+    public PersonTextWriter(File file, PersonTextFormat format) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        if (format == PersonTextFormat.csv) {
+            buffer.put(String.join(",", PersonTextFormat.FIELDS).getBytes(StandardCharsets.US_ASCII));
+            buffer.put((byte) '\n');
+        }
+    }
+
+    /**
+     * Writes person's record
+     *
+     * @param person {@link PersonModel} object
+     * @throws IOException if file can't be written
+     */
+    public void write(PersonModel person) throws IOException {
+        long bound = FIXED_BOUND + (long) MAX_CHAR_BYTES
+                * (length(person.getName()) + length(person.getOccupation()) + length(person.getTaxId()));
+        if (record.length < bound) {
+            record = new byte[Math.toIntExact(bound)];
+        }
+
+        size = 0;
+        if (format == PersonTextFormat.csv) {
+            writeCsv(person);
+        } else {
+            writeJson(person);
+        }
+
+        if (buffer.remaining() < size) {
+            flush();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocateDirect(size);
+            }
+        }
+        buffer.put(record, 0, size);
+        count++;
+    }
+
+    /**
+     * Writes all given people
+     *
+     * @param people people to write
+     * @throws IOException if file can't be written
+     */
+    public void writeAll(Iterable<PersonModel> people) throws IOException {
+        for (PersonModel person : people) {
+            write(person);
+        }
+    }
+
+    /**
+     * Returns quantity of written people
+     *
+     * @return {@link PersonTextWriter#count}
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Encodes person as CSV row
+     *
+     * @param person {@link PersonModel} object
+     */
+    private void writeCsv(PersonModel person) {
+        putInt(person.getId());
+        put((byte) ',');
+        putCsvString(person.getName());
+        put((byte) ',');
+        putCsvString(person.getOccupation());
+        put((byte) ',');
+        putEnum(AGES, person.getAgeCategory(), false);
+        put((byte) ',');
+        putEnum(EMPLOYMENTS, person.getEmpCat(), false);
+        put((byte) ',');
+        putCsvString(person.getTaxId());
+        put((byte) ',');
+        putBoolean(person.isUsCitizen());
+        put((byte) ',');
+        putEnum(GENDERS, person.getGender(), false);
+        put((byte) '\n');
+    }
+
+    /**
+     * Encodes person as JSON object line
+     *
+     * @param person {@link PersonModel} object
+     */
+    private void writeJson(PersonModel person) {
+        put(KEYS[0]);
+        putInt(person.getId());
+        put(KEYS[1]);
+        putJsonString(person.getName());
+        put(KEYS[2]);
+        putJsonString(person.getOccupation());
+        put(KEYS[3]);
+        putEnum(AGES, person.getAgeCategory(), true);
+        put(KEYS[4]);
+        putEnum(EMPLOYMENTS, person.getEmpCat(), true);
+        put(KEYS[5]);
+        putJsonString(person.getTaxId());
+        put(KEYS[6]);
+        putBoolean(person.isUsCitizen());
+        put(KEYS[7]);
+        putEnum(GENDERS, person.getGender(), true);
+        put((byte) '}');
+        put((byte) '\n');
+    }
+
+    /**
+     * Puts string as CSV field. It is quoted if it is empty or contains comma, quote or line break,
+     * null is put as empty field
+     *
+     * @param s string or null
+     */
+    private void putCsvString(String s) {
+        if (s == null) return;
+        if (s.isEmpty()) {
+            put((byte) '"');
+            put((byte) '"');
+            return;
+        }
+
+        // most strings don't need quotes, so they are put as they are until special char is met
+        int start = size;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                size = start;
+                putQuotedCsvString(s);
+                return;
+            }
+            if (c < 0x80) {
+                put((byte) c);
+            } else {
+                i = putNonAscii(s, i);
+            }
+        }
+    }
+
+    /**
+     * Puts string as quoted CSV field, quotes inside are doubled
+     *
+     * @param s string
+     */
+    private void putQuotedCsvString(String s) {
+        put((byte) '"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') put((byte) '"');
+                put((byte) c);
+            } else {
+                i = putNonAscii(s, i);
+            }
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * Puts string as JSON string value, null is put as null
+     *
+     * @param s string or null
+     */
+    private void putJsonString(String s) {
+        if (s == null) {
+            put(NULL);
+            return;
+        }
+
+        put((byte) '"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') put((byte) '\\');
+                put((byte) c);
+            } else if (c == '\n') {
+                put((byte) '\\');
+                put((byte) 'n');
+            } else if (c == '\r') {
+                put((byte) '\\');
+                put((byte) 'r');
+            } else if (c == '\t') {
+                put((byte) '\\');
+                put((byte) 't');
+            } else if (c < 0x20) {
+                put(UNICODE_ESCAPE);
+                put(HEX[c >> 4]);
+                put(HEX[c & 0xF]);
+            } else {
+                i = putNonAscii(s, i);
+            }
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * Puts non ASCII char (or surrogate pair) as UTF-8. Unpaired surrogate is put as '?'
+     *
+     * @param s string
+     * @param i position of the char
+     * @return position of the last put char
+     */
+    private int putNonAscii(String s, int i) {
+        char c = s.charAt(i);
+        if (c < 0x800) {
+            put((byte) (0xC0 | c >> 6));
+            put((byte) (0x80 | c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            put((byte) (0xE0 | c >> 12));
+            put((byte) (0x80 | c >> 6 & 0x3F));
+            put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(++i));
+            put((byte) (0xF0 | cp >> 18));
+            put((byte) (0x80 | cp >> 12 & 0x3F));
+            put((byte) (0x80 | cp >> 6 & 0x3F));
+            put((byte) (0x80 | cp & 0x3F));
+        } else {
+            put((byte) '?');
+        }
+        return i;
+    }
+
+    /**
+     * Puts enum constant's name (quoted for JSON), null is put as empty CSV field or JSON null
+     *
+     * @param names names of constants by ordinals
+     * @param value enum constant or null
+     * @param json  if value is JSON
+     */
+    private void putEnum(byte[][] names, Enum<?> value, boolean json) {
+        if (value == null) {
+            if (json) put(NULL);
+            return;
+        }
+        if (json) put((byte) '"');
+        put(names[value.ordinal()]);
+        if (json) put((byte) '"');
+    }
+
+    /**
+     * Puts boolean as true or false
+     *
+     * @param value boolean value
+     */
+    private void putBoolean(boolean value) {
+        if (value) {
+            put(TRUE);
+        } else {
+            put(FALSE);
+        }
+    }
+
+    /**
+     * Puts decimal digits of int
+     *
+     * @param value int value
+     */
+    private void putInt(int value) {
+        long v = value;
+        if (v < 0) {
+            put((byte) '-');
+            v = -v;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        System.arraycopy(digits, pos, record, size, digits.length - pos);
+        size += digits.length - pos;
+    }
+
+    /**
+     * Puts byte to record
+     *
+     * @param b byte
+     */
+    private void put(byte b) {
+        record[size++] = b;
+    }
+
+    /**
+     * Puts bytes to record
+     *
+     * @param bytes bytes
+     */
+    private void put(byte[] bytes) {
+        System.arraycopy(bytes, 0, record, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Writes buffered records to file
+     *
+     * @throws IOException if file can't be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes buffered records and closes the file
+     *
+     * @throws IOException if file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns length of string
+     *
+     * @param s string or null
+     * @return length or 0 for null
+     */
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    /**
+     * Returns US-ASCII names of enum constants
+     *
+     * @param values enum constants
+     * @return names by ordinals
+     */
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (Enum<?> value : values) {
+            names[value.ordinal()] = value.name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
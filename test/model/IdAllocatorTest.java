@@ -0,0 +1,112 @@
+package model;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks of {@link IdAllocator} reserving blocks ahead (runs without database connection)
+ */
+public class IdAllocatorTest {
+
+    /**
+     * Runs all checks
+     *
+     * @param args not used
+     * @throws Exception if executor is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        callerNeverReserves();
+        failedReservingIsReported();
+        usedIdsAreSkipped();
+        System.out.println("IdAllocatorTest passed");
+    }
+
+    /**
+     * With prefetch executor blocks are reserved only on it, ids are unique
+     *
+     * @throws Exception if executor is interrupted
+     */
+    private static void callerNeverReserves() throws Exception {
+        Thread caller = Thread.currentThread();
+        AtomicInteger sequence = new AtomicInteger(1);
+        AtomicBoolean reservedByCaller = new AtomicBoolean();
+        IdAllocator ids = new IdAllocator((size, above) -> {
+            if (Thread.currentThread() == caller) reservedByCaller.set(true);
+            return sequence.getAndAdd(size);
+        }, 10);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ids.setPrefetcher(executor);
+        Set<Integer> handedOut = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            waitForIds(ids);
+            check(handedOut.add(ids.next()), "id is handed out once");
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+
+        check(!reservedByCaller.get(), "caller doesn't wait for source");
+    }
+
+    /**
+     * Failed reserving is thrown instead of handing out ids which weren't reserved
+     */
+    private static void failedReservingIsReported() {
+        IdAllocator ids = new IdAllocator((size, above) -> {
+            throw new SQLException("database is down");
+        }, 10);
+        ids.setPrefetcher(Runnable::run);
+
+        try {
+            ids.next();
+            check(false, "id isn't handed out");
+        } catch (IllegalStateException e) {
+            check(e.getMessage().contains("database is down"), "failure is reported");
+        }
+        check(ids.available() == 0, "nothing is reserved");
+    }
+
+    /**
+     * Ids used elsewhere are never handed out, even from blocks reserved ahead
+     *
+     * @throws SQLException never
+     */
+    private static void usedIdsAreSkipped() throws SQLException {
+        AtomicInteger sequence = new AtomicInteger(1);
+        IdAllocator ids = new IdAllocator((size, above) -> {
+            int first = Math.max(sequence.get(), above + 1);
+            sequence.set(first + size);
+            return first;
+        }, 10);
+
+        ids.reserve(25);
+        check(ids.available() >= 25, "requested quantity is reserved");
+        ids.used(15);
+        check(ids.next() == 16, "used ids are skipped");
+    }
+
+    /**
+     * Waits until prefetch executor reserves ids
+     *
+     * @param ids allocator reserving ids
+     */
+    private static void waitForIds(IdAllocator ids) {
+        while (ids.available() == 0) Thread.onSpinWait();
+    }
+
+    /**
+     * Fails if condition doesn't hold
+     *
+     * @param condition checked condition
+     * @param message   what is checked
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
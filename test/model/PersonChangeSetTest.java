@@ -0,0 +1,126 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Checks of changes {@link Database#save()} writes (runs without database connection)
+ */
+public class PersonChangeSetTest {
+
+    /**
+     * Runs all checks
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        importedPersonDeletedBeforeSaveIsDeleted();
+        addedPersonDeletedBeforeSaveIsDeleted();
+        failedSaveKeepsTombstone();
+        deletedPersonStaysDeletedAfterImport();
+        failedBulkEditChangesNothing();
+        System.out.println("PersonChangeSetTest passed");
+    }
+
+    /**
+     * Imported person may already be stored in database, deleting it before save has to leave tombstone
+     */
+    private static void importedPersonDeletedBeforeSaveIsDeleted() {
+        Database db = new Database();
+        db.replacePeople(List.of(person(1, "Ann"), person(2, "Bob")));
+        db.removePerson(2);
+
+        PersonChangeSet pending = db.takeChanges();
+        check(pending.getRemoved().equals(List.of(2)), "tombstone of imported person is saved");
+        check(pending.getChanged().size() == 1 && pending.getChanged().get(0).getId() == 1,
+                "removed person isn't written");
+    }
+
+    /**
+     * Deleting person added since the last save leaves tombstone too (deleting missing row does nothing)
+     */
+    private static void addedPersonDeletedBeforeSaveIsDeleted() {
+        PersonChangeSet changes = new PersonChangeSet();
+        changes.personAdded(person(3, "Cid"));
+        changes.personRemoved(3);
+
+        check(changes.getAddedCount() == 0, "removed person isn't inserted");
+        check(changes.getRemoved().equals(List.of(3)), "tombstone is left");
+
+        changes.personAdded(person(3, "Cid"));
+        check(changes.getRemovedCount() == 0 && changes.getAddedCount() == 1, "person added again isn't deleted");
+    }
+
+    /**
+     * Tombstone taken by failed save is written by the next one
+     */
+    private static void failedSaveKeepsTombstone() {
+        Database db = new Database();
+        db.replacePeople(List.of(person(1, "Ann")));
+        db.removePerson(1);
+
+        db.restoreChanges(db.takeChanges());
+        check(db.takeChanges().getRemoved().equals(List.of(1)), "tombstone is restored");
+    }
+
+    /**
+     * Import replacing people keeps tombstones which aren't saved yet, unless the person is imported again
+     */
+    private static void deletedPersonStaysDeletedAfterImport() {
+        Database db = new Database();
+        db.replacePeople(List.of(person(1, "Ann"), person(2, "Bob"), person(3, "Cid")));
+        db.takeChanges();
+        db.removePerson(2);
+        db.removePerson(3);
+
+        db.replacePeople(List.of(person(1, "Ann"), person(3, "Cid")));
+        PersonChangeSet pending = db.takeChanges();
+        check(pending.getRemoved().equals(List.of(2)), "tombstone of person not imported is kept");
+        check(pending.getAddedCount() == 2, "imported people are saved");
+    }
+
+    /**
+     * Bulk edit failing on one of people leaves all of them unchanged and not marked for save
+     */
+    private static void failedBulkEditChangesNothing() {
+        Database db = new Database();
+        db.replacePeople(List.of(person(1, "Ann"), person(2, "Bob")));
+        db.takeChanges();
+
+        try {
+            db.editPeople(List.of(1, 2), p -> {
+                p.setName("Dan");
+                if (p.getId() == 2) throw new IllegalArgumentException("rejected");
+            });
+            check(false, "failed edit is thrown");
+        } catch (IllegalArgumentException expected) {
+            // nothing was edited
+        }
+
+        check(db.getPeople().get(0).getName().equals("Ann"), "person edited before failure is kept");
+        check(db.takeChanges().isEmpty(), "nothing is saved");
+
+        check(db.editPeople(List.of(1, 2, 1), p -> p.setName("Dan")) == 2, "each person is edited once");
+        check(db.getPeople().get(1).getName().equals("Dan"), "edit is stored");
+    }
+
+    /**
+     * Creates person
+     *
+     * @param id   person's id
+     * @param name person's name
+     * @return {@link PersonModel} object
+     */
+    private static PersonModel person(int id, String name) {
+        return PersonModel.getBuilder().withId(id).withName(name).withOccupation("tester").build();
+    }
+
+    /**
+     * Fails if condition doesn't hold
+     *
+     * @param condition checked condition
+     * @param message   what is checked
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,171 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares people list kept in {@link LinkedList} (as it was before {@link PersonStore})
+ * with {@link PersonStore}: painting one screen of table rows, removing one person by id
+ * and removing many people at once. Painting time of {@link PersonStore} shouldn't grow with quantity of people
+ */
+public class PersonStoreBenchmark {
+
+    /**
+     * Quantity of rows shown on one screen of the table
+     */
+    private static final int SCREEN_ROWS = 40;
+
+    /**
+     * Quantity of people removed at once
+     */
+    private static final int BULK_SIZE = 1000;
+
+    /**
+     * Quantity of measured repeats (the best one is reported)
+     */
+    private static final int REPEATS = 5;
+
+    /**
+     * Id of the next removed person
+     */
+    private static int nextRemoved;
+
+    /**
+     * Runs benchmark
+     *
+     * @param args quantities of people (default 10000 100000 1000000)
+     */
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{10_000, 100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%10s %12s %12s %12s %12s %12s %12s  (microseconds)%n", "people",
+                "list paint", "store paint", "list remove", "store remove", "list bulk", "store bulk");
+        for (int size : sizes) {
+            List<PersonModel> people = people(size);
+            LinkedList<PersonModel> list = new LinkedList<>(people);
+            PersonStore store = new PersonStore(people);
+
+            double listPaint = best(() -> paint(list));
+            double storePaint = best(() -> paint(store));
+            nextRemoved = size / 2;
+            double listRemove = best(() -> removeFromList(list, removedIds(1)));
+            nextRemoved = size / 2;
+            double storeRemove = best(() -> removeFromStore(store, removedIds(1)));
+            double listBulk = best(() -> removeFromList(list, removedIds(BULK_SIZE)));
+            nextRemoved -= (REPEATS + 1) * BULK_SIZE;
+            double storeBulk = best(() -> store.removeIds(removedIds(BULK_SIZE)));
+
+            System.out.printf("%10d %12.1f %12.1f %12.1f %12.1f %12.1f %12.1f%n", size,
+                    listPaint, storePaint, listRemove, storeRemove, listBulk, storeBulk);
+        }
+    }
+
+    /**
+     * Reads every cell of one screen in the middle of the table, like painting does
+     *
+     * @param rows people list shown by the table
+     */
+    private static void paint(List<PersonModel> rows) {
+        PersonTableModel model = new PersonTableModel();
+        model.setData(rows);
+
+        int first = rows.size() / 2;
+        int cells = 0;
+        for (int row = first; row < first + SCREEN_ROWS; row++) {
+            for (int col = 0; col < model.getColumnCount(); col++) {
+                if (model.getValueAt(row, col) != null) cells++;
+            }
+        }
+        if (cells == 0) throw new IllegalStateException("Nothing painted");
+    }
+
+    /**
+     * Takes ids of people which weren't removed yet (people in the middle of the list)
+     *
+     * @param count quantity of ids
+     * @return set of ids
+     */
+    private static Set<Integer> removedIds(int count) {
+        Set<Integer> ids = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            ids.add(nextRemoved++);
+        }
+        return ids;
+    }
+
+    /**
+     * Removes people with given ids from linked list in one pass
+     *
+     * @param list people list
+     * @param ids  ids of removed people
+     */
+    private static void removeFromList(LinkedList<PersonModel> list, Set<Integer> ids) {
+        int left = ids.size();
+        Iterator<PersonModel> iterator = list.iterator();
+        while (left > 0 && iterator.hasNext()) {
+            if (ids.contains(iterator.next().getId())) {
+                iterator.remove();
+                left--;
+            }
+        }
+    }
+
+    /**
+     * Removes people with given ids from store one by one, like removing person from the table
+     *
+     * @param store people list
+     * @param ids   ids of removed people
+     */
+    private static void removeFromStore(PersonStore store, Set<Integer> ids) {
+        for (int id : ids) {
+            store.remove(store.indexOfId(id));
+        }
+    }
+
+    /**
+     * Runs task several times
+     *
+     * @param task measured task
+     * @return the best time in microseconds
+     */
+    private static double best(Runnable task) {
+        // warm up
+        task.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < REPEATS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1000.0;
+    }
+
+    /**
+     * Creates people
+     *
+     * @param size quantity of people
+     * @return list of {@link PersonModel}s with ids from 1
+     */
+    private static List<PersonModel> people(int size) {
+        List<PersonModel> people = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            people.add(PersonModel.getBuilder()
+                    .withId(id)
+                    .withName("Person " + id)
+                    .withOccupation("Occupation " + id % 100)
+                    .withCategory(id % 3)
+                    .withEmployment("employed")
+                    .withUSCitizen(id % 2 == 0, "T" + id)
+                    .withGender("male")
+                    .build());
+        }
+        return people;
+    }
+}